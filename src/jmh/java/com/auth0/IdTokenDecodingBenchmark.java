@@ -0,0 +1,99 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the decoding of the ID Token payload with java-jwt ({@code javaJwt}) and with {@link IdTokenClaimsDecoder}
+ * ({@code lightweight}), followed by the claims validation. The signature is not checked, so that only the decoding
+ * and the validation are measured. Each benchmark runs with 1, 8 and 32 threads sharing the same options, like
+ * concurrent callbacks. Run with {@code -prof gc} to see the allocation per verification ({@code gc.alloc.rate.norm}).
+ */
+public class IdTokenDecodingBenchmark {
+
+    private static final String ISSUER = "https://tokens-test.auth0.com/";
+    private static final String AUDIENCE = "tokens-test-123";
+    private static final String NONCE = "a59vk592";
+
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public abstract static class AbstractDecodingBenchmark {
+
+        private IdTokenVerifier verifier;
+        private String token;
+        private IdTokenVerifier.Options javaJwtOptions;
+        private IdTokenVerifier.Options lightweightOptions;
+
+        @Setup
+        public void setUp() {
+            long now = System.currentTimeMillis();
+            // A typical ID Token, with the profile claims and a few custom ones that are not validated
+            token = JWT.create()
+                    .withIssuer(ISSUER)
+                    .withSubject("auth0|5e9f3a1c2b4d6e0011a2b3c4")
+                    .withAudience(AUDIENCE)
+                    .withIssuedAt(new Date(now))
+                    .withExpiresAt(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                    .withClaim("nonce", NONCE)
+                    .withClaim("auth_time", new Date(now))
+                    .withClaim("name", "Jane Doe")
+                    .withClaim("nickname", "jane.doe")
+                    .withClaim("email", "jane.doe@example.com")
+                    .withClaim("email_verified", true)
+                    .withClaim("picture", "https://s.gravatar.com/avatar/3b5d5c3712955042212316173ccf37be?s=480&r=pg&d=https%3A%2F%2Fcdn.auth0.com%2Favatars%2Fjd.png")
+                    .withClaim("updated_at", "2020-04-22T16:35:21.428Z")
+                    .withArrayClaim("https://example.com/roles", new String[]{"admin", "editor", "viewer"})
+                    .withClaim("https://example.com/tenant", "acme")
+                    .sign(Algorithm.HMAC256("secret"));
+
+            SignatureVerifier javaJwtVerifier = new AlgorithmNameVerifier();
+            javaJwtOptions = new IdTokenVerifier.Options(ISSUER, AUDIENCE, javaJwtVerifier);
+            javaJwtOptions.setMaxAge(3600);
+            SignatureVerifier lightweightVerifier = new AlgorithmNameVerifier();
+            lightweightVerifier.setLightweightDecoding(true);
+            lightweightOptions = new IdTokenVerifier.Options(ISSUER, AUDIENCE, lightweightVerifier);
+            lightweightOptions.setMaxAge(3600);
+            verifier = new IdTokenVerifier();
+        }
+
+        @Benchmark
+        public void javaJwt() {
+            verifier.verify(token, javaJwtOptions, NONCE);
+        }
+
+        @Benchmark
+        public void lightweight() {
+            verifier.verify(token, lightweightOptions, NONCE);
+        }
+    }
+
+    @Threads(1)
+    public static class OneThread extends AbstractDecodingBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends AbstractDecodingBenchmark {
+    }
+
+    @Threads(32)
+    public static class ThirtyTwoThreads extends AbstractDecodingBenchmark {
+    }
+}
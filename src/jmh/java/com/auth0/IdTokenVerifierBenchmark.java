@@ -0,0 +1,80 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link IdTokenVerifier#verify(String, IdTokenVerifier.Options, String)}.
+ * <p>
+ * {@code claimsOnly} uses a pre-decoded token, so that only the claims validation is measured, while
+ * {@code hs256} also decodes the token and verifies its signature. Run with {@code -prof gc} to see the
+ * allocation per verification ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdTokenVerifierBenchmark {
+
+    private static final String ISSUER = "https://tokens-test.auth0.com/";
+    private static final String AUDIENCE = "tokens-test-123";
+    private static final String NONCE = "a59vk592";
+    private static final String SECRET = "secret";
+
+    private IdTokenVerifier verifier;
+    private String token;
+    private IdTokenVerifier.Options claimsOnlyOptions;
+    private IdTokenVerifier.Options hs256Options;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        token = JWT.create()
+                .withIssuer(ISSUER)
+                .withSubject("auth0|sdk458fks")
+                .withAudience(AUDIENCE)
+                .withIssuedAt(new Date(now))
+                .withExpiresAt(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                .withClaim("nonce", NONCE)
+                .withClaim("auth_time", new Date(now))
+                .sign(Algorithm.HMAC256(SECRET));
+
+        final DecodedJWT decoded = JWT.decode(token);
+        claimsOnlyOptions = new IdTokenVerifier.Options(ISSUER, AUDIENCE, new SymmetricSignatureVerifier(SECRET) {
+            @Override
+            DecodedJWT verifySignature(String token, BatchVerifiers batch) {
+                return decoded;
+            }
+        });
+        claimsOnlyOptions.setMaxAge(3600);
+        hs256Options = new IdTokenVerifier.Options(ISSUER, AUDIENCE, new SymmetricSignatureVerifier(SECRET));
+        hs256Options.setMaxAge(3600);
+        verifier = new IdTokenVerifier();
+    }
+
+    @Benchmark
+    public void claimsOnly() {
+        verifier.verify(token, claimsOnlyOptions, NONCE);
+    }
+
+    @Benchmark
+    public void hs256() {
+        verifier.verify(token, hs256Options, NONCE);
+    }
+}
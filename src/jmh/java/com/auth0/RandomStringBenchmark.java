@@ -0,0 +1,58 @@
+package com.auth0;
+
+import org.apache.commons.codec.binary.Base64;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the generation of the State and Nonce values, run from several threads like concurrent logins.
+ * <p>
+ * {@code newSecureRandom} creates a {@link SecureRandom} on each call, {@code threadLocal} reuses one per thread, and
+ * {@code pool} takes the values from a {@link RandomPool} refilled in the background.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class RandomStringBenchmark {
+
+    private RandomPool pool;
+
+    @Setup
+    public void setUp() {
+        pool = new RandomPool(1024, null);
+    }
+
+    @Benchmark
+    public String newSecureRandom() {
+        SecureRandom sr = new SecureRandom();
+        byte[] randomBytes = new byte[StorageUtils.RANDOM_BYTES];
+        sr.nextBytes(randomBytes);
+        return Base64.encodeBase64URLSafeString(randomBytes);
+    }
+
+    @Benchmark
+    public String threadLocal() {
+        return StorageUtils.secureRandomString();
+    }
+
+    @Benchmark
+    public String pool() {
+        return pool.nextString();
+    }
+}
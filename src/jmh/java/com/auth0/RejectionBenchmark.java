@@ -0,0 +1,95 @@
+package com.auth0;
+
+import com.auth0.client.auth.AuthAPI;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rejection of invalid ID Tokens, with the stack traces of the thrown exceptions captured or skipped.
+ * <p>
+ * {@code wrongAudience} fails the claims validation, while {@code unsupportedAlgorithm} fails on the header. Both end
+ * in an {@link IdentityVerificationException} caused by a {@link TokenValidationException}, like a rejected callback.
+ * As the cost of capturing a stack trace grows with its depth, {@code callDepth} adds frames below the verification
+ * to mimic the filters and servlets of a container.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+
+    private static final String ISSUER = "https://tokens-test.auth0.com/";
+    private static final String AUDIENCE = "tokens-test-123";
+    private static final String SECRET = "secret";
+
+    @Param({"true", "false"})
+    public boolean stackTraces;
+
+    @Param({"0", "100"})
+    public int callDepth;
+
+    private RequestProcessor processor;
+    private String wrongAudienceToken;
+    private String noneAlgorithmToken;
+
+    @Setup
+    public void setUp() {
+        long now = System.currentTimeMillis();
+        wrongAudienceToken = JWT.create()
+                .withIssuer(ISSUER)
+                .withSubject("auth0|sdk458fks")
+                .withAudience("another-audience")
+                .withIssuedAt(new Date(now))
+                .withExpiresAt(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                .sign(Algorithm.HMAC256(SECRET));
+        noneAlgorithmToken = JWT.create()
+                .withIssuer(ISSUER)
+                .withSubject("auth0|sdk458fks")
+                .withAudience(AUDIENCE)
+                .sign(Algorithm.none());
+
+        SignatureVerifier signatureVerifier = new SymmetricSignatureVerifier(SECRET);
+        signatureVerifier.setErrorStackTraces(stackTraces);
+        IdTokenVerifier.Options options = new IdTokenVerifier.Options(ISSUER, AUDIENCE, signatureVerifier);
+        options.setErrorStackTraces(stackTraces);
+        processor = new RequestProcessor(new AuthAPI("tokens-test.auth0.com", AUDIENCE, SECRET), "code", options);
+        processor.setErrorStackTraces(stackTraces);
+    }
+
+    @Benchmark
+    public Object wrongAudience() {
+        return reject(wrongAudienceToken, callDepth);
+    }
+
+    @Benchmark
+    public Object unsupportedAlgorithm() {
+        return reject(noneAlgorithmToken, callDepth);
+    }
+
+    private Object reject(String token, int depth) {
+        if (depth > 0) {
+            return reject(token, depth - 1);
+        }
+        try {
+            return processor.verifyIdToken(token);
+        } catch (IdentityVerificationException e) {
+            return e;
+        }
+    }
+}
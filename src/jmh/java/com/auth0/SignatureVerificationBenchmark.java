@@ -0,0 +1,114 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the signature verification of java-jwt's {@link Algorithm}, which looks a {@link java.security.Signature}
+ * or a {@link javax.crypto.Mac} up through the provider registry on every call, against {@link PooledSignatureAlgorithm}
+ * and {@link PooledHS256Algorithm}, which keep a pool of initialized instances.
+ * <p>
+ * The difference shows with many threads, as the provider lookup is shared. Run with {@code -t 1}, {@code -t 8},
+ * {@code -t 32} and {@code -t 64} to compare the verifications per second at each thread count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SignatureVerificationBenchmark {
+
+    private static final String SECRET = "secret";
+
+    private DecodedJWT rs256Token;
+    private DecodedJWT hs256Token;
+    private DecodedJWT es256Token;
+    private Algorithm javaJwtRs256;
+    private Algorithm pooledRs256;
+    private Algorithm javaJwtHs256;
+    private Algorithm pooledHs256;
+    private Algorithm javaJwtEs256;
+    private Algorithm pooledEs256;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+
+        rs256Token = JWT.decode(JWT.create()
+                .withSubject("auth0|sdk458fks")
+                .sign(Algorithm.RSA256(publicKey, (RSAPrivateKey) keyPair.getPrivate())));
+        hs256Token = JWT.decode(JWT.create()
+                .withSubject("auth0|sdk458fks")
+                .sign(Algorithm.HMAC256(SECRET)));
+
+        javaJwtRs256 = Algorithm.RSA256(publicKey, null);
+        pooledRs256 = PooledSignatureAlgorithm.rs256(publicKey);
+        javaJwtHs256 = Algorithm.HMAC256(SECRET);
+        pooledHs256 = new PooledHS256Algorithm(SECRET);
+
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair ecKeyPair = ecGenerator.generateKeyPair();
+        ECPublicKey ecPublicKey = (ECPublicKey) ecKeyPair.getPublic();
+        es256Token = JWT.decode(JWT.create()
+                .withSubject("auth0|sdk458fks")
+                .sign(Algorithm.ECDSA256(ecPublicKey, (ECPrivateKey) ecKeyPair.getPrivate())));
+        javaJwtEs256 = Algorithm.ECDSA256(ecPublicKey, null);
+        pooledEs256 = PooledSignatureAlgorithm.es256(ecPublicKey);
+    }
+
+    @Benchmark
+    public void javaJwtRs256() {
+        javaJwtRs256.verify(rs256Token);
+    }
+
+    @Benchmark
+    public void pooledRs256() {
+        pooledRs256.verify(rs256Token);
+    }
+
+    @Benchmark
+    public void javaJwtHs256() {
+        javaJwtHs256.verify(hs256Token);
+    }
+
+    @Benchmark
+    public void pooledHs256() {
+        pooledHs256.verify(hs256Token);
+    }
+
+    @Benchmark
+    public void javaJwtEs256() {
+        javaJwtEs256.verify(es256Token);
+    }
+
+    @Benchmark
+    public void pooledEs256() {
+        pooledEs256.verify(es256Token);
+    }
+}
@@ -3,48 +3,172 @@ package com.auth0;
 import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkException;
 import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.UrlJwkProvider;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
-import com.auth0.jwt.interfaces.RSAKeyProvider;
+import com.auth0.jwt.interfaces.Header;
 
-import java.security.interfaces.RSAPrivateKey;
+import java.security.PublicKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.auth0.IdentityVerificationException.API_ERROR;
+import static com.auth0.IdentityVerificationException.JWT_MISSING_PUBLIC_KEY_ERROR;
 
 @SuppressWarnings("unused")
 class AsymmetricSignatureVerifier extends SignatureVerifier {
 
+    static final String RS256 = "RS256";
+    static final String PS256 = "PS256";
+    static final String ES256 = "ES256";
+    static final List<String> SUPPORTED_ALGORITHMS = Arrays.asList(RS256, PS256, ES256);
+
+    // Bounds the verifiers kept for the keys seen over time, as the key set is rotated. The least recently used go first
+    private static final int MAX_CACHED_VERIFIERS = 16;
+    private static final int P256_FIELD_SIZE = 256;
+
+    private final JwkProvider jwkProvider;
+    private final Map<List<Object>, JWTVerifier> verifiers = new LinkedHashMap<List<Object>, JWTVerifier>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, JWTVerifier> eldest) {
+            return size() > MAX_CACHED_VERIFIERS;
+        }
+    };
+
     AsymmetricSignatureVerifier(JwkProvider jwkProvider) {
-        super(createJWTVerifier(jwkProvider), "RS256");
+        this(jwkProvider, RS256);
+    }
+
+    /**
+     * @param jwkProvider the provider of the public keys.
+     * @param algorithms  the accepted algorithms, any of RS256, PS256 and ES256.
+     */
+    AsymmetricSignatureVerifier(JwkProvider jwkProvider, String... algorithms) {
+        super(null, algorithms);
+        for (String algorithm : algorithms) {
+            if (!SUPPORTED_ALGORITHMS.contains(algorithm)) {
+                throw new IllegalArgumentException("Unsupported algorithm " + algorithm + ". Expected any of " + SUPPORTED_ALGORITHMS + ".");
+            }
+        }
+        this.jwkProvider = jwkProvider;
+    }
+
+    @Override
+    JWTVerifier getVerifier(Header header) throws TokenValidationException {
+        // The key is looked up before decoding the payload, so tokens with an unknown key id are rejected early
+        return getVerifier(header.getAlgorithm(), getJwkById(header.getKeyId()));
     }
 
-    private static JWTVerifier createJWTVerifier(final JwkProvider jwkProvider) {
-        Algorithm alg = Algorithm.RSA256(new RSAKeyProvider() {
-            @Override
-            public RSAPublicKey getPublicKeyById(String keyId) {
+    private JWTVerifier getVerifier(String algorithm, Jwk jwk) throws TokenValidationException {
+        if (jwk.getAlgorithm() != null && !jwk.getAlgorithm().equals(algorithm)) {
+            throw error("Signature algorithm of \"" + algorithm + "\" does not match the algorithm \"" + jwk.getAlgorithm() + "\" of the signing key.", null);
+        }
+        // Keyed by the key id and material, so the public key is only parsed again when the key changes, and not when a
+        // refresh returns a new instance of the same key
+        List<Object> key = Arrays.<Object>asList(algorithm, jwk.getId(), jwk.getType(), jwk.getAdditionalAttributes(), jwk.getCertificateChain());
+        JWTVerifier verifier;
+        synchronized (verifiers) {
+            verifier = verifiers.get(key);
+        }
+        if (verifier != null) {
+            return verifier;
+        }
+        // The verifier keeps a pool of initialized Signatures, so they are reused for every token signed with the key
+        verifier = JWT.require(createAlgorithm(algorithm, getPublicKey(jwk)))
+                .ignoreIssuedAt()
+                .build();
+        synchronized (verifiers) {
+            JWTVerifier existing = verifiers.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            verifiers.put(key, verifier);
+        }
+        return verifier;
+    }
+
+    /**
+     * Fetches every signing key, when the provider can list them, and creates the instances that verify the signatures
+     * made with them for the accepted algorithms.
+     *
+     * @return the algorithm and the key id of a key ready to verify signatures, or null if the keys can't be listed.
+     * @throws JwkException             if the keys can't be fetched.
+     * @throws TokenValidationException if none of the keys can verify signatures made with the accepted algorithms.
+     */
+    List<String> warmUp() throws JwkException {
+        List<Jwk> jwks;
+        if (jwkProvider instanceof JwksCache) {
+            jwks = ((JwksCache) jwkProvider).fetchAll();
+        } else if (jwkProvider instanceof UrlJwkProvider) {
+            jwks = ((UrlJwkProvider) jwkProvider).getAll();
+        } else {
+            return null;
+        }
+        List<String> ready = null;
+        for (Jwk jwk : jwks) {
+            for (String algorithm : getAcceptedAlgorithms()) {
+                if (jwk.getAlgorithm() != null && !jwk.getAlgorithm().equals(algorithm)) {
+                    continue;
+                }
                 try {
-                    Jwk jwk = jwkProvider.get(keyId);
-                    return (RSAPublicKey) jwk.getPublicKey();
-                } catch (JwkException ignored) {
-                    // JwkException handled by Algorithm verify implementation from java-jwt
+                    getVerifier(algorithm, jwk);
+                } catch (TokenValidationException e) {
+                    // The key can't verify signatures made with this algorithm
+                    continue;
+                }
+                if (ready == null && jwk.getId() != null) {
+                    ready = Arrays.asList(algorithm, jwk.getId());
                 }
-                return null;
             }
+        }
+        if (ready == null) {
+            throw error("None of the signing keys can verify signatures made with " + getAcceptedAlgorithms() + ".", null);
+        }
+        return ready;
+    }
 
-            @Override
-            public RSAPrivateKey getPrivateKey() {
-                //NO-OP
-                return null;
+    private Algorithm createAlgorithm(String algorithm, PublicKey publicKey) throws TokenValidationException {
+        if (ES256.equals(algorithm)) {
+            if (!(publicKey instanceof ECPublicKey)
+                    || ((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize() != P256_FIELD_SIZE) {
+                throw error("Signing key of type " + publicKey.getAlgorithm() + " cannot verify " + algorithm + " signatures.", null);
             }
+            return PooledSignatureAlgorithm.es256((ECPublicKey) publicKey);
+        }
+        if (!(publicKey instanceof RSAPublicKey)) {
+            throw error("Signing key of type " + publicKey.getAlgorithm() + " cannot verify " + algorithm + " signatures.", null);
+        }
+        return PS256.equals(algorithm)
+                ? PooledSignatureAlgorithm.ps256((RSAPublicKey) publicKey)
+                : PooledSignatureAlgorithm.rs256((RSAPublicKey) publicKey);
+    }
 
-            @Override
-            public String getPrivateKeyId() {
-                //NO-OP
-                return null;
-            }
-        });
-        return JWT.require(alg)
-                .ignoreIssuedAt()
-                .build();
+    private Jwk getJwkById(String keyId) throws TokenValidationException {
+        Object event = FlightRecorderEvents.beginJwkLookup(keyId);
+        String outcome = FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR;
+        try {
+            Jwk jwk = jwkProvider.get(keyId);
+            outcome = FlightRecorderEvents.OUTCOME_SUCCESS;
+            return jwk;
+        } catch (JwkException e) {
+            // The JWKS was fetched without the key, or it couldn't be fetched
+            outcome = JwksCache.isKeyMissing(e) ? JWT_MISSING_PUBLIC_KEY_ERROR : API_ERROR;
+            throw error("Invalid token signature", e);
+        } finally {
+            FlightRecorderEvents.end(event, outcome);
+        }
+    }
+
+    private PublicKey getPublicKey(Jwk jwk) throws TokenValidationException {
+        try {
+            return jwk.getPublicKey();
+        } catch (JwkException e) {
+            throw error("Invalid token signature", e);
+        }
     }
 }
@@ -0,0 +1,56 @@
+package com.auth0;
+
+import javax.servlet.AsyncContext;
+import java.util.concurrent.Executor;
+
+/**
+ * Executor that completes an {@link AsyncContext} after running each task on the given delegate.
+ * Used to release the asynchronous request once the callback was notified, whatever the outcome.
+ */
+class AsyncContextExecutor implements Executor {
+
+    private final Executor delegate;
+    private final AsyncContext asyncContext;
+    private volatile boolean used;
+
+    AsyncContextExecutor(Executor delegate, AsyncContext asyncContext) {
+        this.delegate = delegate;
+        this.asyncContext = asyncContext;
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        delegate.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    complete();
+                }
+            }
+        });
+        // Only set once the delegate accepted the task, as the context won't be completed otherwise
+        used = true;
+    }
+
+    /**
+     * Whether a task was handed to the delegate executor, which will then take care of completing the context.
+     *
+     * @return true if a task was accepted by the delegate executor, false otherwise.
+     */
+    boolean isUsed() {
+        return used;
+    }
+
+    /**
+     * Completes the asynchronous request.
+     */
+    void complete() {
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignored) {
+            // The container already completed the request, i.e. because of a timeout
+        }
+    }
+}
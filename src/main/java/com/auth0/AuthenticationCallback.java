@@ -0,0 +1,25 @@
+package com.auth0;
+
+/**
+ * Receives the outcome of a callback request processed with
+ * {@link AuthenticationController#handleAsync(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse, java.util.concurrent.Executor, AuthenticationCallback)}.
+ * Exactly one of the methods is called, on the thread that completed the processing.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface AuthenticationCallback {
+
+    /**
+     * Called when the user was successfully authenticated.
+     *
+     * @param tokens the Tokens obtained after the user authentication.
+     */
+    void onSuccess(Tokens tokens);
+
+    /**
+     * Called when the request could not be validated or the tokens could not be obtained or verified. Unexpected
+     * errors are passed here too, with the {@code a0.unexpected_error} code.
+     *
+     * @param exception the error, with the same code that {@link AuthenticationController#handle(javax.servlet.http.HttpServletRequest, javax.servlet.http.HttpServletResponse)} would have thrown.
+     */
+    void onFailure(IdentityVerificationException exception);
+}
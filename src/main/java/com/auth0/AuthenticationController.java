@@ -2,12 +2,22 @@ package com.auth0;
 
 import com.auth0.client.auth.AuthAPI;
 import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.UrlJwkProvider;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.net.Telemetry;
 import com.google.common.annotations.VisibleForTesting;
+import okhttp3.OkHttpClient;
 import org.apache.commons.lang3.Validate;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -49,15 +59,33 @@ public class AuthenticationController {
 
     public static class Builder {
         private static final String RESPONSE_TYPE_CODE = "code";
+        private static final int DEFAULT_VERIFIED_ID_TOKEN_CACHE_SIZE = 0;
 
         private final String domain;
         private final String clientId;
         private final String clientSecret;
         private String responseType;
         private JwkProvider jwkProvider;
+        private String[] jwkAlgorithms;
+        private JwksCacheConfig jwksCacheConfig;
         private Integer clockSkew;
         private Integer authenticationMaxAge;
         private boolean useLegacySameSiteCookie;
+        private OkHttpClient httpClient;
+        private CircuitBreakerConfig circuitBreakerConfig;
+        private RetryPolicy retryPolicy;
+        private long codeExchangeDeduplicationMillis;
+        private Executor codeExchangeExecutor;
+        private MetricsListener metricsListener;
+        private final List<ClaimValidator> claimValidators = new ArrayList<>();
+        private int verifiedIdTokenCacheSize = DEFAULT_VERIFIED_ID_TOKEN_CACHE_SIZE;
+        private int maxIdTokenLength = SignatureVerifier.DEFAULT_MAX_TOKEN_LENGTH;
+        private boolean lightweightIdTokenDecoding;
+        private boolean errorStackTraces = true;
+        private int randomPoolSize;
+        private Executor randomPoolExecutor;
+        private int rejectionCacheSize;
+        private long rejectionCacheTtlMillis;
 
         Builder(String domain, String clientId, String clientSecret) {
             Validate.notNull(domain);
@@ -91,8 +119,43 @@ public class AuthenticationController {
          * @return this same builder instance.
          */
         public Builder withJwkProvider(JwkProvider jwkProvider) {
+            return withJwkProvider(jwkProvider, AsymmetricSignatureVerifier.RS256);
+        }
+
+        /**
+         * Sets the Jwk Provider that will return the Public Key required to verify the token, and the asymmetric
+         * algorithms the tokens can be signed with. Any of RS256, PS256 and ES256 can be accepted, so that the
+         * tenant can move from one algorithm to another without rejecting the tokens signed with the previous one.
+         * When the key returned by the provider declares its algorithm, it must match the one of the token.
+         *
+         * @param jwkProvider a valid Jwk provider.
+         * @param algorithms  the accepted algorithms.
+         * @return this same builder instance.
+         */
+        public Builder withJwkProvider(JwkProvider jwkProvider, String... algorithms) {
             Validate.notNull(jwkProvider);
+            Validate.notEmpty(algorithms, "algorithms must not be empty");
+            for (String algorithm : algorithms) {
+                Validate.isTrue(AsymmetricSignatureVerifier.SUPPORTED_ALGORITHMS.contains(algorithm),
+                        "Unsupported algorithm %s. Expected any of %s.", algorithm, AsymmetricSignatureVerifier.SUPPORTED_ALGORITHMS);
+            }
             this.jwkProvider = jwkProvider;
+            this.jwkAlgorithms = algorithms.clone();
+            return this;
+        }
+
+        /**
+         * Keeps the signing keys in a built-in cache that refreshes them in the background before they expire, and
+         * keeps serving them for a grace period while they can't be fetched, so that a login callback doesn't wait for
+         * the JWKS to be fetched. The keys are fetched with the Jwk Provider set with {@link #withJwkProvider(JwkProvider)},
+         * or from the JWKS of the domain if none is set, in which case RS256 ID Tokens are expected.
+         *
+         * @param jwksCacheConfig the settings of the cache.
+         * @return this same builder instance.
+         */
+        public Builder withJwksCache(JwksCacheConfig jwksCacheConfig) {
+            Validate.notNull(jwksCacheConfig);
+            this.jwksCacheConfig = jwksCacheConfig;
             return this;
         }
 
@@ -134,6 +197,225 @@ public class AuthenticationController {
             return this;
         }
 
+        /**
+         * Sets the networking client to use for the Code Exchange request performed on the login callback.
+         * Use it to size the connection pool and dispatcher to the expected callback throughput, or to set connect, read
+         * and call timeouts so that a slow Auth0 server can't hold the request threads for long. The telemetry header and
+         * {@link AuthenticationController#setLoggingEnabled(boolean)} apply to this request too, the logging through an
+         * interceptor added to a client derived from the given one, which shares its connection pool and dispatcher.
+         * By default, the client created by the Auth0 Authentication API library is used.
+         *
+         * @param httpClient a pre-configured networking client.
+         * @return this same builder instance.
+         */
+        public Builder withHttpClient(OkHttpClient httpClient) {
+            Validate.notNull(httpClient);
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Guards the Code Exchange request made on the login callback with a circuit breaker and a bulkhead, so that
+         * callbacks fail fast instead of waiting for the request timeout when the Auth0 servers are degraded.
+         * By default, the request is always sent.
+         *
+         * @param circuitBreakerConfig the circuit breaker settings.
+         * @return this same builder instance.
+         * @see CircuitBreakerConfig
+         */
+        public Builder withCircuitBreaker(CircuitBreakerConfig circuitBreakerConfig) {
+            Validate.notNull(circuitBreakerConfig);
+            this.circuitBreakerConfig = circuitBreakerConfig;
+            return this;
+        }
+
+        /**
+         * Retries the Code Exchange request made on the login callback when it failed before the authorization code
+         * could be consumed, like on connection errors or 429 and 503 responses. By default, the request is never retried.
+         * When a circuit breaker is also configured, every attempt goes through it.
+         *
+         * @param retryPolicy the retry policy, which also holds the retry counters.
+         * @return this same builder instance.
+         * @see RetryPolicy
+         */
+        public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            Validate.notNull(retryPolicy);
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Shares a single Code Exchange request between the callbacks carrying the same authorization code, state and
+         * redirect uri, like a form submitted twice, instead of sending one request per callback. Duplicates that arrive
+         * while the request is in flight, or up to the given duration after it completed, receive the same outcome. Each
+         * callback still verifies the received tokens on its own. By default, a request is sent on every callback.
+         *
+         * @param duration how long a completed exchange is shared with late duplicates.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withCodeExchangeDeduplication(long duration, TimeUnit unit) {
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.codeExchangeDeduplicationMillis = Math.max(1, unit.toMillis(duration));
+            return this;
+        }
+
+        /**
+         * Sets the executor used to send the Code Exchange request of the Hybrid flow (a response type containing both
+         * "code" and "id_token") while the front-channel ID Token is being verified, instead of after it. If the ID Token
+         * is rejected, the result of the exchange is discarded. A request already sent is not interrupted, so that it
+         * doesn't count as a failure of the circuit breaker. When the executor rejects the task,
+         * the exchange is sent after the verification. By default, the ID Token is always verified first.
+         *
+         * @param codeExchangeExecutor the executor to send the Code Exchange request on.
+         * @return this same builder instance.
+         */
+        public Builder withCodeExchangeExecutor(Executor codeExchangeExecutor) {
+            Validate.notNull(codeExchangeExecutor);
+            this.codeExchangeExecutor = codeExchangeExecutor;
+            return this;
+        }
+
+        /**
+         * Sets the listener to report the duration and outcome of each stage of the login flow to, like the state
+         * check, the Code Exchange or the ID Token signature verification. By default, the stages are not timed.
+         *
+         * @param metricsListener the listener to report to.
+         * @return this same builder instance.
+         * @see HistogramMetricsListener
+         */
+        public Builder withMetricsListener(MetricsListener metricsListener) {
+            Validate.notNull(metricsListener);
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Adds a check of the claims of the ID Token, like an organization or an authentication context class, that
+         * runs after the standard claims were validated. Validators run in the order they were added.
+         *
+         * @param claimValidator the validator to add.
+         * @return this same builder instance.
+         */
+        public Builder withClaimValidator(ClaimValidator claimValidator) {
+            Validate.notNull(claimValidator);
+            this.claimValidators.add(claimValidator);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of ID Tokens kept by {@link AuthenticationController#verifyIdToken(String)} once
+         * verified, so that verifying them again only costs a lookup. The least recently used tokens are evicted first.
+         * Use 0 to verify the ID Token every time. Defaults to 0, as each cached token is kept in memory until it expires.
+         *
+         * @param maxSize the maximum number of verified ID Tokens to keep.
+         * @return this same builder instance.
+         */
+        public Builder withVerifiedIdTokenCacheSize(int maxSize) {
+            Validate.isTrue(maxSize >= 0, "maxSize must not be negative");
+            this.verifiedIdTokenCacheSize = maxSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of the ID Tokens to verify. Longer tokens are rejected before being decoded, to bound
+         * the work spent on junk tokens. Defaults to 16384 characters.
+         *
+         * @param maxLength the maximum number of characters of an ID Token.
+         * @return this same builder instance.
+         */
+        public Builder withMaxIdTokenLength(int maxLength) {
+            Validate.isTrue(maxLength > 0, "maxLength must be greater than 0");
+            this.maxIdTokenLength = maxLength;
+            return this;
+        }
+
+        /**
+         * Sets whether to decode the payload of the ID Token with a lightweight parser that only extracts the claims
+         * checked during the verification, instead of building the whole JSON tree. Any other claim, like the ones read
+         * by a {@link ClaimValidator}, is decoded on first access. Disabled by default.
+         *
+         * @param lightweightIdTokenDecoding whether to use the lightweight parser.
+         * @return this same builder instance.
+         */
+        public Builder withLightweightIdTokenDecoding(boolean lightweightIdTokenDecoding) {
+            this.lightweightIdTokenDecoding = lightweightIdTokenDecoding;
+            return this;
+        }
+
+        /**
+         * Keeps the recently rejected callbacks and ID Tokens, so that a replay of the same callback URL, like a bad
+         * URL replayed by a bot, or of the same ID Token passed to {@link AuthenticationController#verifyIdToken(String)}
+         * is rejected again with the original error code, without decoding and verifying the ID Token again. Only the
+         * rejections that would happen again for the same values are kept: a missing token or an invalid ID Token. An
+         * invalid state or nonce is never kept, as it depends on the values stored for the browser that started the
+         * login, and neither is an ID Token rejected because its signing key could not be obtained, as a later lookup
+         * may succeed. Callbacks are keyed by the SHA-256 hash of their state, code and tokens, and ID Tokens by their
+         * own hash.
+         * <p>
+         * Each cache takes a fixed amount of memory, allocated upfront, and can evict an entry before the given
+         * duration once full. Lookups are reported to the {@link MetricsListener}, if set. Disabled by default.
+         *
+         * @param maxSize  the maximum number of rejections kept by each cache.
+         * @param duration how long a rejection is kept.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withRejectionCache(int maxSize, long duration, TimeUnit unit) {
+            Validate.isTrue(maxSize > 0, "maxSize must be greater than 0");
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.rejectionCacheSize = maxSize;
+            this.rejectionCacheTtlMillis = Math.max(1, unit.toMillis(duration));
+            return this;
+        }
+
+        /**
+         * Sets whether the exceptions thrown when a callback or an ID Token is rejected, like for an invalid state or
+         * an expired token, capture their stack trace. Capturing it is the most expensive part of creating an exception,
+         * and is of little use for these errors, which are fully described by their code and message. Disabling it lowers
+         * the cost of rejecting a flood of invalid callbacks. Enabled by default.
+         *
+         * @param errorStackTraces false to skip the stack traces.
+         * @return this same builder instance.
+         */
+        public Builder withErrorStackTraces(boolean errorStackTraces) {
+            this.errorStackTraces = errorStackTraces;
+            return this;
+        }
+
+        /**
+         * Keeps random values ready for the State and Nonce of the Authorize URLs, generated in the background, so that
+         * building an Authorize URL doesn't wait for the random generator. When the pool runs out faster than it's
+         * refilled, the values are generated on the calling thread instead. Disabled by default, the values are then
+         * always generated on the calling thread, with a random generator kept per thread.
+         *
+         * @param size the number of values to keep ready.
+         * @return this same builder instance.
+         */
+        public Builder withRandomPool(int size) {
+            Validate.isTrue(size > 0, "size must be greater than 0");
+            this.randomPoolSize = size;
+            return this;
+        }
+
+        /**
+         * Like {@link #withRandomPool(int)}, but generates the values on the given executor instead of the daemon thread
+         * shared by every pool, which ends after a minute without refill. The controller never shuts down the given
+         * executor: it's up to the application, for example when its context is destroyed.
+         *
+         * @param size     the number of values to keep ready.
+         * @param executor the executor that generates the random values.
+         * @return this same builder instance.
+         */
+        public Builder withRandomPool(int size, Executor executor) {
+            Validate.notNull(executor);
+            withRandomPool(size);
+            this.randomPoolExecutor = executor;
+            return this;
+        }
+
         /**
          * Create a new {@link AuthenticationController} instance that will handle both Code Grant and Implicit Grant flows using either Code Exchange or Token Signature verification.
          *
@@ -144,10 +426,15 @@ public class AuthenticationController {
             AuthAPI apiClient = createAPIClient(domain, clientId, clientSecret);
             setupTelemetry(apiClient);
 
-            final boolean expectedAlgorithmIsExplicitlySetAndAsymmetric = jwkProvider != null;
+            final boolean expectedAlgorithmIsExplicitlySetAndAsymmetric = jwkProvider != null || jwksCacheConfig != null;
             final SignatureVerifier signatureVerifier;
             if (expectedAlgorithmIsExplicitlySetAndAsymmetric) {
-                signatureVerifier = new AsymmetricSignatureVerifier(jwkProvider);
+                JwkProvider keyProvider = jwkProvider != null ? jwkProvider : createJwkProvider(domain);
+                if (jwksCacheConfig != null) {
+                    keyProvider = new JwksCache(keyProvider, jwksCacheConfig, Clock.SYSTEM, metricsListener);
+                }
+                String[] algorithms = jwkAlgorithms != null ? jwkAlgorithms : new String[]{AsymmetricSignatureVerifier.RS256};
+                signatureVerifier = new AsymmetricSignatureVerifier(keyProvider, algorithms);
             } else if (responseType.contains(RESPONSE_TYPE_CODE)) {
                 // Old behavior: To maintain backwards-compatibility when
                 // no explicit algorithm is set by the user, we
@@ -156,15 +443,49 @@ public class AuthenticationController {
             } else {
                 signatureVerifier = new SymmetricSignatureVerifier(clientSecret);
             }
+            signatureVerifier.setMaxTokenLength(maxIdTokenLength);
+            signatureVerifier.setLightweightDecoding(lightweightIdTokenDecoding);
+            signatureVerifier.setErrorStackTraces(errorStackTraces);
 
             String issuer = getIssuer(domain);
             IdTokenVerifier.Options verifyOptions = createIdTokenVerificationOptions(issuer, clientId, signatureVerifier);
             verifyOptions.setClockSkew(clockSkew);
             verifyOptions.setMaxAge(authenticationMaxAge);
-            RequestProcessor processor = new RequestProcessor(apiClient, responseType, verifyOptions, useLegacySameSiteCookie);
+            verifyOptions.setClaimValidators(claimValidators);
+            verifyOptions.setErrorStackTraces(errorStackTraces);
+            // Compile the claim checks once, instead of on the first callback
+            verifyOptions.getValidationPlan();
+            RequestProcessor processor = new RequestProcessor(apiClient, responseType, verifyOptions, new IdTokenVerifier(metricsListener), useLegacySameSiteCookie);
+            processor.setMetricsListener(metricsListener);
+            processor.setErrorStackTraces(errorStackTraces);
+            if (circuitBreakerConfig != null) {
+                processor.setCircuitBreaker(new CircuitBreaker(circuitBreakerConfig));
+            }
+            processor.setRetryPolicy(retryPolicy);
+            if (codeExchangeDeduplicationMillis > 0) {
+                processor.setSingleFlight(new CodeExchangeSingleFlight(codeExchangeDeduplicationMillis, TimeUnit.MILLISECONDS));
+            }
+            processor.setCodeExchangeExecutor(codeExchangeExecutor);
+            if (verifiedIdTokenCacheSize > 0) {
+                int skew = clockSkew != null ? clockSkew : IdTokenVerifier.DEFAULT_CLOCK_SKEW;
+                processor.setVerifiedIdTokenCache(new VerifiedIdTokenCache(verifiedIdTokenCacheSize, skew, authenticationMaxAge, Clock.SYSTEM, metricsListener));
+            }
+            if (rejectionCacheSize > 0) {
+                processor.setRejectionCaches(
+                        new RejectionCache(rejectionCacheSize, rejectionCacheTtlMillis, TimeUnit.MILLISECONDS, MetricsListener.Cache.REJECTED_CALLBACK, Clock.SYSTEM, metricsListener),
+                        new RejectionCache(rejectionCacheSize, rejectionCacheTtlMillis, TimeUnit.MILLISECONDS, MetricsListener.Cache.REJECTED_ID_TOKEN, Clock.SYSTEM, metricsListener));
+            }
+            if (randomPoolSize > 0) {
+                processor.setRandomPool(new RandomPool(randomPoolSize, randomPoolExecutor));
+            }
             return new AuthenticationController(processor);
         }
 
+        @VisibleForTesting
+        JwkProvider createJwkProvider(String domain) {
+            return new UrlJwkProvider(domain);
+        }
+
         @VisibleForTesting
         IdTokenVerifier.Options createIdTokenVerificationOptions(String issuer, String audience, SignatureVerifier signatureVerifier) {
             return new IdTokenVerifier.Options(issuer, audience, signatureVerifier);
@@ -172,6 +493,9 @@ public class AuthenticationController {
 
         @VisibleForTesting
         AuthAPI createAPIClient(String domain, String clientId, String clientSecret) {
+            if (httpClient != null) {
+                return new HttpClientAuthAPI(domain, clientId, clientSecret, httpClient);
+            }
             return new AuthAPI(domain, clientId, clientSecret);
         }
 
@@ -240,6 +564,115 @@ public class AuthenticationController {
         return requestProcessor.process(request, response);
     }
 
+    /**
+     * Process a request to obtain a set of {@link Tokens} without blocking the calling thread on the Code Exchange.
+     *
+     * The request parameters, state and nonce are validated on the calling thread before this method returns. The Code
+     * Exchange request and the ID token verification then run on the given executor. The request and response are not
+     * used after this method returns, so the container thread can go back to the pool right away when combined with the
+     * Servlet async support.
+     *
+     * <p><strong>Important:</strong> When using this API, you <strong>must</strong> also use {@link AuthenticationController#buildAuthorizeUrl(HttpServletRequest, HttpServletResponse, String)}
+     * when building the {@link AuthorizeUrl} that the user will be redirected to to login.</p>
+     *
+     * @param request  the received request to process.
+     * @param response the received response to process.
+     * @param executor the executor that will run the Code Exchange and the ID token verification.
+     * @return a future completed with the Tokens obtained after the user authentication. On failure, its {@link Future#get()}
+     * method throws an {@link java.util.concurrent.ExecutionException} caused by the same {@link IdentityVerificationException} that {@link #handle(HttpServletRequest, HttpServletResponse)} would throw.
+     */
+    public Future<Tokens> handleAsync(HttpServletRequest request, HttpServletResponse response, Executor executor) {
+        return handleAsync(request, response, executor, null);
+    }
+
+    /**
+     * Same as {@link #handleAsync(HttpServletRequest, HttpServletResponse, Executor)}, but also notifies the given callback
+     * once the request processing is complete. The callback is notified of every outcome: a request that can't be
+     * parsed, an executor rejecting the task, or a cancelled future are reported as an
+     * {@link IdentityVerificationException} with the {@code a0.unexpected_error} code.
+     *
+     * @param request  the received request to process.
+     * @param response the received response to process.
+     * @param executor the executor that will run the Code Exchange and the ID token verification.
+     * @param callback the callback to notify with the result. Can be null.
+     * @return a future completed with the Tokens obtained after the user authentication.
+     */
+    public Future<Tokens> handleAsync(HttpServletRequest request, HttpServletResponse response, Executor executor, AuthenticationCallback callback) {
+        Validate.notNull(request, "request must not be null");
+        Validate.notNull(response, "response must not be null");
+        Validate.notNull(executor, "executor must not be null");
+
+        return requestProcessor.processAsync(request, response, executor, callback);
+    }
+
+    /**
+     * Process a request using the Servlet asynchronous support, so the container thread can go back to the pool while
+     * the Code Exchange request is in flight.
+     *
+     * This method puts the request in asynchronous mode by calling {@link HttpServletRequest#startAsync(javax.servlet.ServletRequest, javax.servlet.ServletResponse)},
+     * validates it on the calling thread and runs the Code Exchange and the ID token verification on the given executor.
+     * The callback is then notified and can use the request and response, for example to redirect the user.
+     * The {@link AsyncContext} is completed right after the callback returns, even if it throws.
+     *
+     * <p>The Servlet or Filter calling this method must support asynchronous processing.</p>
+     *
+     * @param request  the received request to process.
+     * @param response the received response to process.
+     * @param executor the executor that will run the Code Exchange, the ID token verification and the callback.
+     * @param callback the callback to notify with the result.
+     * @return the started async context. It may already be completed when this method returns, so it must not be
+     * changed. Use {@link #handleWithAsyncContext(HttpServletRequest, HttpServletResponse, Executor, AuthenticationCallback, long, AsyncListener)}
+     * to set its timeout or register a listener.
+     * @throws IllegalStateException if the request does not support asynchronous processing.
+     */
+    public AsyncContext handleWithAsyncContext(HttpServletRequest request, HttpServletResponse response, Executor executor, AuthenticationCallback callback) {
+        return processWithAsyncContext(request, response, executor, callback, null, null);
+    }
+
+    /**
+     * Same as {@link #handleWithAsyncContext(HttpServletRequest, HttpServletResponse, Executor, AuthenticationCallback)},
+     * but also sets the timeout of the {@link AsyncContext} and registers a listener on it. Both are applied before the
+     * Code Exchange is handed to the executor, so they are in place before the context can be completed.
+     *
+     * @param request       the received request to process.
+     * @param response      the received response to process.
+     * @param executor      the executor that will run the Code Exchange, the ID token verification and the callback.
+     * @param callback      the callback to notify with the result.
+     * @param timeoutMillis the timeout of the async context in milliseconds, as in {@link AsyncContext#setTimeout(long)}. Zero or less means no timeout.
+     * @param listener      the listener to register on the async context. Can be null.
+     * @return the started async context. It may already be completed when this method returns, so it must not be changed.
+     * @throws IllegalStateException if the request does not support asynchronous processing.
+     */
+    public AsyncContext handleWithAsyncContext(HttpServletRequest request, HttpServletResponse response, Executor executor, AuthenticationCallback callback, long timeoutMillis, AsyncListener listener) {
+        return processWithAsyncContext(request, response, executor, callback, timeoutMillis, listener);
+    }
+
+    private AsyncContext processWithAsyncContext(HttpServletRequest request, HttpServletResponse response, Executor executor, AuthenticationCallback callback, Long timeoutMillis, AsyncListener listener) {
+        Validate.notNull(request, "request must not be null");
+        Validate.notNull(response, "response must not be null");
+        Validate.notNull(executor, "executor must not be null");
+        Validate.notNull(callback, "callback must not be null");
+
+        AsyncContext asyncContext = request.startAsync(request, response);
+        // Applied before the task is dispatched, as the context may be completed as soon as it is
+        if (timeoutMillis != null) {
+            asyncContext.setTimeout(timeoutMillis);
+        }
+        if (listener != null) {
+            asyncContext.addListener(listener);
+        }
+        AsyncContextExecutor contextExecutor = new AsyncContextExecutor(executor, asyncContext);
+        try {
+            requestProcessor.processAsync(request, response, contextExecutor, callback);
+        } finally {
+            // Request validation failed and the callback already ran, or the executor rejected the task
+            if (!contextExecutor.isUsed()) {
+                contextExecutor.complete();
+            }
+        }
+        return asyncContext;
+    }
+
     /**
      * Process a request to obtain a set of {@link Tokens} that represent successful authentication or authorization.
      *
@@ -268,6 +701,77 @@ public class AuthenticationController {
         return requestProcessor.process(request, null);
     }
 
+    /**
+     * Verifies again an ID Token obtained on a previous login, like the one kept in the session, to check it is still
+     * valid before trusting its claims. The signature and the claims are verified the same way as on the callback,
+     * except for the nonce, which is only known during the login. The verified tokens are cached until they expire,
+     * so verifying the same token again only costs a lookup (see {@link Builder#withVerifiedIdTokenCacheSize(int)}).
+     * This method is thread-safe.
+     * <p>
+     * The signature can only be verified with the public keys of the tenant, set with
+     * {@link Builder#withJwkProvider(JwkProvider)} or {@link Builder#withJwksCache(JwksCacheConfig)}, or with the client
+     * secret when the response type doesn't include {@code code}. Otherwise the signature is not checked when the
+     * ID Token comes straight from the token endpoint, which is not enough for a stored token, and this method throws.
+     *
+     * @param idToken the ID Token to verify.
+     * @return the verified ID Token, to read its claims.
+     * @throws IdentityVerificationException if the ID Token is not valid, for example because it expired.
+     * @throws IllegalStateException         if no public keys are set and the response type includes {@code code}.
+     */
+    public DecodedJWT verifyIdToken(String idToken) throws IdentityVerificationException {
+        Validate.notNull(idToken, "idToken must not be null");
+
+        return requestProcessor.verifyIdToken(idToken);
+    }
+
+    /**
+     * Warms up the login callback, so that the first logins after a start don't pay for it. Fetches the signing keys
+     * and parses them, opens a connection to the Auth0 domain with the networking client set with
+     * {@link Builder#withHttpClient(OkHttpClient)}, and verifies a made up ID Token so that the verification code is
+     * loaded and compiled. The made up token doesn't reach the metrics nor the caches. A step that doesn't apply to
+     * the configuration is skipped, and so is the verification when the signing keys can't be listed, like with a
+     * custom {@link JwkProvider}. The verification fails if a {@link ClaimValidator} rejects the made up token.
+     * <p>
+     * The steps run on a separate thread, and this method returns once they end or the timeout is reached, whichever
+     * comes first. It never throws when a step fails, which is reported instead.
+     *
+     * @param timeout how long to wait for the warm-up to end.
+     * @param unit    the unit of the timeout.
+     * @return the outcome and duration of each step.
+     * @throws InterruptedException if interrupted while waiting for the warm-up.
+     */
+    public WarmUpReport warmUp(long timeout, TimeUnit unit) throws InterruptedException {
+        Validate.isTrue(timeout > 0, "timeout must be greater than 0");
+        Validate.notNull(unit);
+
+        return requestProcessor.warmUp(unit.toMillis(timeout));
+    }
+
+    /**
+     * Verifies a batch of ID Tokens obtained on previous logins, like for an audit or a migration, without throwing
+     * when one of them is rejected. Each token is verified like with {@link #verifyIdToken(String)}, but the verified
+     * and rejected tokens caches are neither used nor filled. The tokens are verified in parallel on the given executor,
+     * like a {@link java.util.concurrent.ForkJoinPool}, and the signing key of the tokens sharing the same key id is only
+     * looked up once. This method blocks until every token is verified, and is thread-safe. The calling thread verifies
+     * the tokens the executor has not picked up yet, so it can be called from a thread of the same executor.
+     * <p>
+     * A token whose verification fails with an unexpected error is rejected with the {@code a0.unexpected_error} code,
+     * without affecting the others. Like {@link #verifyIdToken(String)}, this method requires the public keys of the
+     * tenant to verify the signatures.
+     *
+     * @param idTokens the ID Tokens to verify. A null value is rejected as a missing ID Token.
+     * @param executor the executor that runs the verifications.
+     * @return the result of each ID Token, in the same order as given.
+     * @throws InterruptedException  if interrupted while waiting for the verifications.
+     * @throws IllegalStateException if no public keys are set and the response type includes {@code code}.
+     */
+    public List<IdTokenVerificationResult> verifyIdTokens(Iterable<String> idTokens, Executor executor) throws InterruptedException {
+        Validate.notNull(idTokens, "idTokens must not be null");
+        Validate.notNull(executor, "executor must not be null");
+
+        return requestProcessor.verifyIdTokens(idTokens, executor);
+    }
+
     /**
      * Pre builds an Auth0 Authorize Url with the given redirect URI using a random state and a random nonce if applicable.
      *
@@ -289,10 +793,7 @@ public class AuthenticationController {
         Validate.notNull(request, "request must not be null");
         Validate.notNull(redirectUri, "redirectUri must not be null");
 
-        String state = StorageUtils.secureRandomString();
-        String nonce = StorageUtils.secureRandomString();
-
-        return requestProcessor.buildAuthorizeUrl(request, null, redirectUri, state, nonce);
+        return createAuthorizeUrl(request, null, redirectUri);
     }
 
     /**
@@ -312,10 +813,24 @@ public class AuthenticationController {
         Validate.notNull(response, "response must not be null");
         Validate.notNull(redirectUri, "redirectUri must not be null");
 
-        String state = StorageUtils.secureRandomString();
-        String nonce = StorageUtils.secureRandomString();
+        return createAuthorizeUrl(request, response, redirectUri);
+    }
 
-        return requestProcessor.buildAuthorizeUrl(request, response, redirectUri, state, nonce);
+    private AuthorizeUrl createAuthorizeUrl(HttpServletRequest request, HttpServletResponse response, String redirectUri) {
+        MetricsListener metricsListener = requestProcessor.getMetricsListener();
+        long start = MetricsListener.start(metricsListener);
+        boolean success = false;
+        try {
+            RandomPool randomPool = requestProcessor.getRandomPool();
+            String state = randomPool != null ? randomPool.nextString() : StorageUtils.secureRandomString();
+            String nonce = randomPool != null ? randomPool.nextString() : StorageUtils.secureRandomString();
+
+            AuthorizeUrl authorizeUrl = requestProcessor.buildAuthorizeUrl(request, response, redirectUri, state, nonce);
+            success = true;
+            return authorizeUrl;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.BUILD_AUTHORIZE_URL, start, success);
+        }
     }
 
 }
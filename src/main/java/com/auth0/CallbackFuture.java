@@ -0,0 +1,77 @@
+package com.auth0;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import static com.auth0.IdentityVerificationException.UNEXPECTED_ERROR;
+
+/**
+ * Future that notifies an {@link AuthenticationCallback} once the {@link Tokens} are obtained or an
+ * {@link IdentityVerificationException} is thrown. Unexpected errors are wrapped in an
+ * {@link IdentityVerificationException} with the {@code a0.unexpected_error} code, so that the callback is always
+ * notified. A cancelled future notifies the callback of such an error too, caused by a {@link CancellationException}.
+ */
+class CallbackFuture extends FutureTask<Tokens> {
+
+    private final AuthenticationCallback callback;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param callable the task that obtains the tokens.
+     * @param callback the callback to notify with the result. Can be null.
+     */
+    CallbackFuture(final Callable<Tokens> callable, AuthenticationCallback callback) {
+        super(new Callable<Tokens>() {
+            @Override
+            public Tokens call() throws Exception {
+                try {
+                    return callable.call();
+                } catch (RuntimeException e) {
+                    throw unexpectedError(e);
+                }
+            }
+        });
+        this.callback = callback;
+    }
+
+    /**
+     * Fails the future without running the task, like when the executor rejects it, and notifies the callback.
+     *
+     * @param e the unexpected error, wrapped like when thrown by the task.
+     */
+    void fail(RuntimeException e) {
+        setException(unexpectedError(e));
+    }
+
+    @Override
+    protected void done() {
+        if (callback == null) {
+            return;
+        }
+        if (isCancelled()) {
+            callback.onFailure(unexpectedError(new CancellationException("The processing of the request was cancelled")));
+            return;
+        }
+        Tokens tokens;
+        try {
+            tokens = get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            // Errors are not wrapped by the task, but are reported to the callback all the same
+            callback.onFailure(cause instanceof IdentityVerificationException ? (IdentityVerificationException) cause : unexpectedError(cause));
+            return;
+        } catch (InterruptedException e) {
+            // Can't happen once the task is done
+            Thread.currentThread().interrupt();
+            return;
+        }
+        callback.onSuccess(tokens);
+    }
+
+    private static IdentityVerificationException unexpectedError(Throwable cause) {
+        return new IdentityVerificationException(UNEXPECTED_ERROR, "An unexpected error occurred while processing the request", cause);
+    }
+}
@@ -0,0 +1,220 @@
+package com.auth0;
+
+import com.auth0.exception.APIException;
+import com.auth0.exception.Auth0Exception;
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.IdentityVerificationException.BULKHEAD_FULL_ERROR;
+import static com.auth0.IdentityVerificationException.CIRCUIT_OPEN_ERROR;
+
+/**
+ * Count-based circuit breaker and bulkhead used to guard the Code Exchange request.
+ * The state and the sliding window are guarded by a single lock, which is only held to update a few counters.
+ *
+ * @see CircuitBreakerConfig
+ */
+class CircuitBreaker {
+
+    private final CircuitBreakerConfig config;
+    private final Semaphore bulkhead;
+    private final long slowCallDurationThresholdNanos;
+    private final long waitDurationInOpenStateNanos;
+    private final Object lock = new Object();
+
+    // Guarded by lock
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+    // Incremented on each transition, so that the results of the calls permitted in a previous state are ignored
+    private long generation;
+    private final boolean[] failedCalls;
+    private final boolean[] slowCalls;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failedCount;
+    private int slowCount;
+    private long openedAtNanos;
+    private int remainingHalfOpenCalls;
+    // The probe results are counted apart from the sliding window, which may be smaller than the number of probes
+    private int recordedProbes;
+    private int failedProbes;
+    private int slowProbes;
+
+    CircuitBreaker(CircuitBreakerConfig config) {
+        Validate.notNull(config);
+        this.config = config;
+        this.bulkhead = config.getMaxConcurrentCalls() == Integer.MAX_VALUE ? null : new Semaphore(config.getMaxConcurrentCalls());
+        this.slowCallDurationThresholdNanos = config.getSlowCallDurationThresholdMillis() == Long.MAX_VALUE ?
+                Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(config.getSlowCallDurationThresholdMillis());
+        this.waitDurationInOpenStateNanos = TimeUnit.MILLISECONDS.toNanos(config.getWaitDurationInOpenStateMillis());
+        this.failedCalls = new boolean[config.getSlidingWindowSize()];
+        this.slowCalls = new boolean[config.getSlidingWindowSize()];
+    }
+
+    /**
+     * Checks whether a call can be made. Every successful call to this method must be followed by a call to
+     * {@link #onSuccess(long, long)} or {@link #onError(long, long)} with the returned permit, even if the call
+     * throws an unexpected error, so that the bulkhead is released.
+     *
+     * @return the permit of the call, identifying the state it was permitted in.
+     * @throws IdentityVerificationException if the circuit is open or the maximum number of concurrent calls was reached.
+     */
+    long acquirePermission() throws IdentityVerificationException {
+        if (bulkhead != null && !bulkhead.tryAcquire()) {
+            throw new IdentityVerificationException(BULKHEAD_FULL_ERROR, "Too many concurrent requests to exchange the authorization code.", null);
+        }
+        CircuitBreakerState previous = null;
+        boolean permitted = true;
+        long permit;
+        synchronized (lock) {
+            if (state == CircuitBreakerState.OPEN && nanoTime() - openedAtNanos >= waitDurationInOpenStateNanos) {
+                previous = transitionTo(CircuitBreakerState.HALF_OPEN);
+            }
+            if (state == CircuitBreakerState.OPEN) {
+                permitted = false;
+            } else if (state == CircuitBreakerState.HALF_OPEN) {
+                if (remainingHalfOpenCalls > 0) {
+                    remainingHalfOpenCalls--;
+                } else {
+                    permitted = false;
+                }
+            }
+            permit = generation;
+        }
+        notifyTransition(previous, CircuitBreakerState.HALF_OPEN);
+        if (!permitted) {
+            releaseBulkhead();
+            throw new IdentityVerificationException(CIRCUIT_OPEN_ERROR, "The authorization code exchange is temporarily disabled after too many failures.", null);
+        }
+        return permit;
+    }
+
+    /**
+     * Records a call that completed successfully, or failed because of the request itself.
+     *
+     * @param permit        the permit returned by {@link #acquirePermission()} for the call.
+     * @param durationNanos the duration of the call, in nanoseconds.
+     */
+    void onSuccess(long permit, long durationNanos) {
+        record(permit, false, durationNanos);
+    }
+
+    /**
+     * Records a call that failed because of a network error, a server side error or an unexpected error.
+     *
+     * @param permit        the permit returned by {@link #acquirePermission()} for the call.
+     * @param durationNanos the duration of the call, in nanoseconds.
+     */
+    void onError(long permit, long durationNanos) {
+        record(permit, true, durationNanos);
+    }
+
+    /**
+     * Whether the given error means the Auth0 servers could not be reached or could not handle the request.
+     * Other error responses, like an invalid or already used authorization code, don't count as failures.
+     *
+     * @param e the error thrown by the Code Exchange request.
+     * @return true if the error must be recorded as a failure, false otherwise.
+     */
+    static boolean isFailure(Auth0Exception e) {
+        if (!(e instanceof APIException)) {
+            return true;
+        }
+        int statusCode = ((APIException) e).getStatusCode();
+        return statusCode >= 500 || statusCode == 429;
+    }
+
+    CircuitBreakerState getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private void record(long permit, boolean failed, long durationNanos) {
+        releaseBulkhead();
+        boolean slow = durationNanos >= slowCallDurationThresholdNanos;
+        CircuitBreakerState previous = null;
+        CircuitBreakerState next = null;
+        synchronized (lock) {
+            if (permit != generation) {
+                // Late result of a call permitted in a previous state, like one started before the circuit opened,
+                // which must neither count as a probe nor reach the sliding window of the circuit closed again
+                return;
+            }
+            if (state == CircuitBreakerState.HALF_OPEN) {
+                recordedProbes++;
+                failedProbes += failed ? 1 : 0;
+                slowProbes += slow ? 1 : 0;
+                if (recordedProbes >= config.getPermittedCallsInHalfOpenState()) {
+                    next = exceedsThresholds(failedProbes, slowProbes, recordedProbes) ? CircuitBreakerState.OPEN : CircuitBreakerState.CLOSED;
+                    previous = transitionTo(next);
+                }
+            } else {
+                if (recordedCalls == failedCalls.length) {
+                    failedCount -= failedCalls[nextIndex] ? 1 : 0;
+                    slowCount -= slowCalls[nextIndex] ? 1 : 0;
+                } else {
+                    recordedCalls++;
+                }
+                failedCalls[nextIndex] = failed;
+                slowCalls[nextIndex] = slow;
+                failedCount += failed ? 1 : 0;
+                slowCount += slow ? 1 : 0;
+                nextIndex = (nextIndex + 1) % failedCalls.length;
+
+                if (recordedCalls >= config.getMinimumNumberOfCalls() && exceedsThresholds(failedCount, slowCount, recordedCalls)) {
+                    next = CircuitBreakerState.OPEN;
+                    previous = transitionTo(next);
+                }
+            }
+        }
+        notifyTransition(previous, next);
+    }
+
+    private boolean exceedsThresholds(int failed, int slow, int recorded) {
+        return failed * 100 >= config.getFailureRateThreshold() * recorded
+                || slow * 100 >= config.getSlowCallRateThreshold() * recorded;
+    }
+
+    /**
+     * Moves to the given state and resets the sliding window and the probe results. Must be called holding the lock.
+     *
+     * @param next the new state.
+     * @return the previous state.
+     */
+    private CircuitBreakerState transitionTo(CircuitBreakerState next) {
+        CircuitBreakerState previous = state;
+        state = next;
+        generation++;
+        nextIndex = 0;
+        recordedCalls = 0;
+        failedCount = 0;
+        slowCount = 0;
+        recordedProbes = 0;
+        failedProbes = 0;
+        slowProbes = 0;
+        if (next == CircuitBreakerState.OPEN) {
+            openedAtNanos = nanoTime();
+        } else if (next == CircuitBreakerState.HALF_OPEN) {
+            remainingHalfOpenCalls = config.getPermittedCallsInHalfOpenState();
+        }
+        return previous;
+    }
+
+    private void notifyTransition(CircuitBreakerState previous, CircuitBreakerState next) {
+        if (previous != null && config.getListener() != null) {
+            config.getListener().onStateTransition(previous, next);
+        }
+    }
+
+    private void releaseBulkhead() {
+        if (bulkhead != null) {
+            bulkhead.release();
+        }
+    }
+}
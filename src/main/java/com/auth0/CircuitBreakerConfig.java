@@ -0,0 +1,210 @@
+package com.auth0;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the circuit breaker and bulkhead that guard the Code Exchange request made on the login callback.
+ * <p>
+ * The outcome of the last {@code slidingWindowSize} requests is recorded. Network errors and 5xx or 429 responses
+ * count as failures, while other error responses like an invalid code don't. Once at least {@code minimumNumberOfCalls}
+ * were recorded, the circuit opens if the failure rate or the slow call rate reaches its threshold. While open, callbacks
+ * fail fast with an {@link IdentityVerificationException} with code {@code a0.circuit_open}. After the wait duration,
+ * a few probe requests are let through to decide whether to close the circuit again.
+ * <p>
+ * Independently of the circuit state, no more than {@code maxConcurrentCalls} requests are sent at the same time.
+ * Callbacks exceeding that limit fail fast with code {@code a0.bulkhead_full}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class CircuitBreakerConfig {
+
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallDurationThresholdMillis;
+    private final int slidingWindowSize;
+    private final int minimumNumberOfCalls;
+    private final long waitDurationInOpenStateMillis;
+    private final int permittedCallsInHalfOpenState;
+    private final int maxConcurrentCalls;
+    private final CircuitBreakerListener listener;
+
+    private CircuitBreakerConfig(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDurationThresholdMillis = builder.slowCallDurationThresholdMillis;
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumNumberOfCalls = builder.minimumNumberOfCalls;
+        this.waitDurationInOpenStateMillis = builder.waitDurationInOpenStateMillis;
+        this.permittedCallsInHalfOpenState = builder.permittedCallsInHalfOpenState;
+        this.maxConcurrentCalls = builder.maxConcurrentCalls;
+        this.listener = builder.listener;
+    }
+
+    /**
+     * Create a new {@link Builder} instance with the default settings: a 50% failure rate threshold, slow calls
+     * ignored, a sliding window of 50 calls with a minimum of 10 calls, a 30 seconds wait in the open state,
+     * 5 probe calls in the half-open state and no limit of concurrent calls.
+     *
+     * @return a new Builder instance ready to configure
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    long getSlowCallDurationThresholdMillis() {
+        return slowCallDurationThresholdMillis;
+    }
+
+    int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    long getWaitDurationInOpenStateMillis() {
+        return waitDurationInOpenStateMillis;
+    }
+
+    int getPermittedCallsInHalfOpenState() {
+        return permittedCallsInHalfOpenState;
+    }
+
+    int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    CircuitBreakerListener getListener() {
+        return listener;
+    }
+
+    public static class Builder {
+        private int failureRateThreshold = 50;
+        private int slowCallRateThreshold = 100;
+        private long slowCallDurationThresholdMillis = Long.MAX_VALUE;
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 10;
+        private long waitDurationInOpenStateMillis = TimeUnit.SECONDS.toMillis(30);
+        private int permittedCallsInHalfOpenState = 5;
+        private int maxConcurrentCalls = Integer.MAX_VALUE;
+        private CircuitBreakerListener listener;
+
+        Builder() {
+        }
+
+        /**
+         * Sets the percentage of failed calls at which the circuit opens. Default value is 50.
+         *
+         * @param failureRateThreshold a percentage between 1 and 100.
+         * @return this same builder instance.
+         */
+        public Builder withFailureRateThreshold(int failureRateThreshold) {
+            Validate.inclusiveBetween(1, 100, failureRateThreshold);
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the percentage of slow calls at which the circuit opens, and the duration from which a call is
+         * considered slow. By default slow calls don't open the circuit.
+         *
+         * @param slowCallRateThreshold a percentage between 1 and 100.
+         * @param duration              the duration from which a call is considered slow.
+         * @param unit                  the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withSlowCallThreshold(int slowCallRateThreshold, long duration, TimeUnit unit) {
+            Validate.inclusiveBetween(1, 100, slowCallRateThreshold);
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.slowCallDurationThresholdMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the number of most recent calls used to compute the failure and slow call rates, and how many of them
+         * must be recorded before the rates are computed. Default values are 50 and 10.
+         *
+         * @param slidingWindowSize    the number of calls to record.
+         * @param minimumNumberOfCalls the number of calls required before the circuit can open.
+         * @return this same builder instance.
+         */
+        public Builder withSlidingWindow(int slidingWindowSize, int minimumNumberOfCalls) {
+            Validate.isTrue(slidingWindowSize > 0, "slidingWindowSize must be greater than 0");
+            Validate.inclusiveBetween(1, slidingWindowSize, minimumNumberOfCalls);
+            this.slidingWindowSize = slidingWindowSize;
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+            return this;
+        }
+
+        /**
+         * Sets how long the circuit stays open before letting probe calls through. Default value is 30 seconds.
+         *
+         * @param duration the wait duration.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withWaitDurationInOpenState(long duration, TimeUnit unit) {
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.waitDurationInOpenStateMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the number of probe calls let through while the circuit is half-open. Default value is 5.
+         *
+         * @param permittedCalls the number of probe calls.
+         * @return this same builder instance.
+         */
+        public Builder withPermittedCallsInHalfOpenState(int permittedCalls) {
+            Validate.isTrue(permittedCalls > 0, "permittedCalls must be greater than 0");
+            this.permittedCallsInHalfOpenState = permittedCalls;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of Code Exchange requests in flight at the same time. By default there is no limit.
+         *
+         * @param maxConcurrentCalls the maximum number of concurrent calls.
+         * @return this same builder instance.
+         */
+        public Builder withMaxConcurrentCalls(int maxConcurrentCalls) {
+            Validate.isTrue(maxConcurrentCalls > 0, "maxConcurrentCalls must be greater than 0");
+            this.maxConcurrentCalls = maxConcurrentCalls;
+            return this;
+        }
+
+        /**
+         * Sets the listener to notify when the circuit changes its state.
+         *
+         * @param listener the listener to notify.
+         * @return this same builder instance.
+         */
+        public Builder withListener(CircuitBreakerListener listener) {
+            Validate.notNull(listener);
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Create a new {@link CircuitBreakerConfig} instance with the configured values.
+         *
+         * @return a new instance of {@link CircuitBreakerConfig}.
+         */
+        public CircuitBreakerConfig build() {
+            return new CircuitBreakerConfig(this);
+        }
+    }
+}
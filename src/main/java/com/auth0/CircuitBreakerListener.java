@@ -0,0 +1,17 @@
+package com.auth0;
+
+/**
+ * Listener notified when the circuit breaker that guards the Code Exchange request changes its state.
+ * Calls are made on the thread that triggered the transition and must return quickly.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface CircuitBreakerListener {
+
+    /**
+     * Called after the circuit breaker moved from one state to another.
+     *
+     * @param from the previous state.
+     * @param to   the new state.
+     */
+    void onStateTransition(CircuitBreakerState from, CircuitBreakerState to);
+}
@@ -0,0 +1,21 @@
+package com.auth0;
+
+/**
+ * The states of the circuit breaker that guards the Code Exchange request.
+ *
+ * @see CircuitBreakerConfig
+ */
+public enum CircuitBreakerState {
+    /**
+     * Requests are sent to the Auth0 servers and their outcome is recorded.
+     */
+    CLOSED,
+    /**
+     * Requests fail fast without being sent, until the configured wait duration has elapsed.
+     */
+    OPEN,
+    /**
+     * A limited number of probe requests are sent to decide whether to close or open the circuit again.
+     */
+    HALF_OPEN
+}
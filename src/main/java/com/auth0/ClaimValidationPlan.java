@@ -0,0 +1,289 @@
+package com.auth0;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The claim checks of an ID Token, compiled once from the {@link IdTokenVerifier.Options}.
+ * The steps that depend on the options, like the max age check or the custom validators, are only part of the plan
+ * when configured, so verifying a token only runs the checks that apply. The nonce and the current time are the only
+ * values that change on each verification.
+ */
+final class ClaimValidationPlan {
+
+    private final Clock clock;
+    private final Step[] steps;
+
+    private ClaimValidationPlan(Clock clock, List<Step> steps) {
+        this.clock = clock;
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    /**
+     * Compiles the given options into a plan. Checks run in the order of the OIDC specification, followed by the
+     * custom validators in the order they were registered.
+     *
+     * @param options the verification options.
+     * @param defaultClockSkew the clock skew in seconds to use if none was set in the options.
+     * @return the compiled plan.
+     */
+    static ClaimValidationPlan compile(IdTokenVerifier.Options options, int defaultClockSkew) {
+        long clockSkewMillis = (options.clockSkew != null ? options.clockSkew : defaultClockSkew) * 1000L;
+
+        boolean stackTraces = options.errorStackTraces;
+
+        List<Step> steps = new ArrayList<>();
+        steps.add(new IssuerStep(stackTraces, options.issuer));
+        steps.add(new SubjectStep(stackTraces));
+        steps.add(new AudienceStep(stackTraces, options.audience));
+        steps.add(new ExpiresAtStep(stackTraces, clockSkewMillis));
+        steps.add(new IssuedAtStep(stackTraces));
+        steps.add(new NonceStep(stackTraces));
+        steps.add(new AuthorizedPartyStep(stackTraces, options.audience));
+        if (options.getMaxAge() != null) {
+            steps.add(new AuthTimeStep(stackTraces, options.getMaxAge() * 1000L + clockSkewMillis));
+        }
+        for (ClaimValidator validator : options.claimValidators) {
+            steps.add(new CustomStep(stackTraces, validator));
+        }
+        return new ClaimValidationPlan(options.clock != null ? options.clock : Clock.SYSTEM, steps);
+    }
+
+    /**
+     * Validates the claims of the given token.
+     *
+     * @param decoded the decoded token, whose signature was already verified.
+     * @param nonce   the nonce expected for this request, or null to skip the nonce check.
+     * @throws TokenValidationException if a claim is missing or invalid.
+     */
+    void validate(DecodedJWT decoded, String nonce) throws TokenValidationException {
+        validate(decoded, nonce, null);
+    }
+
+    /**
+     * Validates the claims of the given token, checking the time based claims against the given clock.
+     *
+     * @param decoded the decoded token, whose signature was already verified.
+     * @param nonce   the nonce expected for this request, or null to skip the nonce check.
+     * @param clock   the clock for this request, or null to use the one of the options.
+     * @throws TokenValidationException if a claim is missing or invalid.
+     */
+    void validate(DecodedJWT decoded, String nonce, Clock clock) throws TokenValidationException {
+        long nowMillis = (clock != null ? clock : this.clock).currentTimeMillis();
+        for (Step step : steps) {
+            step.validate(decoded, nonce, nowMillis);
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    private abstract static class Step {
+        final boolean stackTraces;
+
+        Step(boolean stackTraces) {
+            this.stackTraces = stackTraces;
+        }
+
+        abstract void validate(DecodedJWT decoded, String nonce, long nowMillis) throws TokenValidationException;
+
+        TokenValidationException error(String message) {
+            return error(message, null);
+        }
+
+        TokenValidationException error(String message, Throwable cause) {
+            return new TokenValidationException(message, cause, stackTraces);
+        }
+    }
+
+    private static final class IssuerStep extends Step {
+        private final String issuer;
+
+        IssuerStep(boolean stackTraces, String issuer) {
+            super(stackTraces);
+            this.issuer = issuer;
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            if (isEmpty(decoded.getIssuer())) {
+                throw error("Issuer (iss) claim must be a string present in the ID token");
+            }
+            if (!decoded.getIssuer().equals(issuer)) {
+                throw error("Issuer (iss) claim mismatch in the ID token, expected \"" + issuer + "\", found \"" + decoded.getIssuer() + "\"");
+            }
+        }
+    }
+
+    private static final class SubjectStep extends Step {
+        SubjectStep(boolean stackTraces) {
+            super(stackTraces);
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            if (isEmpty(decoded.getSubject())) {
+                throw error("Subject (sub) claim must be a string present in the ID token");
+            }
+        }
+    }
+
+    private static final class AudienceStep extends Step {
+        private final String audience;
+
+        AudienceStep(boolean stackTraces, String audience) {
+            super(stackTraces);
+            this.audience = audience;
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            final List<String> tokenAudience = decoded.getAudience();
+            if (tokenAudience == null) {
+                throw error("Audience (aud) claim must be a string or array of strings present in the ID token");
+            }
+            if (!tokenAudience.contains(audience)) {
+                throw error("Audience (aud) claim mismatch in the ID token; expected \"" + audience + "\" but found \"" + tokenAudience + "\"");
+            }
+        }
+    }
+
+    private static final class ExpiresAtStep extends Step {
+        private final long clockSkewMillis;
+
+        ExpiresAtStep(boolean stackTraces, long clockSkewMillis) {
+            super(stackTraces);
+            this.clockSkewMillis = clockSkewMillis;
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            if (decoded.getExpiresAt() == null) {
+                throw error("Expiration Time (exp) claim must be a number present in the ID token");
+            }
+            // Plain epoch arithmetic: the claims are in seconds, while the clock and the Date values are in milliseconds.
+            final long expMillis = decoded.getExpiresAt().getTime() + clockSkewMillis;
+            if (nowMillis > expMillis) {
+                throw error("Expiration Time (exp) claim error in the ID token; current time (" + nowMillis / 1000 + ") is after expiration time (" + expMillis / 1000 + ")");
+            }
+        }
+    }
+
+    private static final class IssuedAtStep extends Step {
+        IssuedAtStep(boolean stackTraces) {
+            super(stackTraces);
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            if (decoded.getIssuedAt() == null) {
+                throw error("Issued At (iat) claim must be a number present in the ID token");
+            }
+        }
+    }
+
+    private static final class NonceStep extends Step {
+        NonceStep(boolean stackTraces) {
+            super(stackTraces);
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            if (nonce == null) {
+                return;
+            }
+            String nonceClaim = IdTokenClaims.getNonce(decoded);
+            if (isEmpty(nonceClaim)) {
+                throw error("Nonce (nonce) claim must be a string present in the ID token");
+            }
+            if (!nonce.equals(nonceClaim)) {
+                throw error("Nonce (nonce) claim mismatch in the ID token; expected \"" + nonce + "\", found \"" + nonceClaim + "\"");
+            }
+        }
+
+        @Override
+        TokenValidationException error(String message, Throwable cause) {
+            return new NonceMismatchException(message, stackTraces);
+        }
+    }
+
+    private static final class AuthorizedPartyStep extends Step {
+        private final String audience;
+
+        AuthorizedPartyStep(boolean stackTraces, String audience) {
+            super(stackTraces);
+            this.audience = audience;
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            if (decoded.getAudience().size() <= 1) {
+                return;
+            }
+            String azpClaim = IdTokenClaims.getAuthorizedParty(decoded);
+            if (isEmpty(azpClaim)) {
+                throw error("Authorized Party (azp) claim must be a string present in the ID token when Audience (aud) claim has multiple values");
+            }
+            if (!audience.equals(azpClaim)) {
+                throw error("Authorized Party (azp) claim mismatch in the ID token; expected \"" + audience + "\", found \"" + azpClaim + "\"");
+            }
+        }
+    }
+
+    private static final class AuthTimeStep extends Step {
+        private final long maxAgeWithSkewMillis;
+
+        AuthTimeStep(boolean stackTraces, long maxAgeWithSkewMillis) {
+            super(stackTraces);
+            this.maxAgeWithSkewMillis = maxAgeWithSkewMillis;
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            Date authTime = IdTokenClaims.getAuthTime(decoded);
+            if (authTime == null) {
+                throw error("Authentication Time (auth_time) claim must be a number present in the ID token when Max Age (max_age) is specified");
+            }
+            final long authTimeMillis = authTime.getTime() + maxAgeWithSkewMillis;
+            if (nowMillis > authTimeMillis) {
+                throw error("Authentication Time (auth_time) claim in the ID token indicates that too much time has passed since the last end-user authentication. Current time (" + nowMillis / 1000 + ") is after last auth at (" + authTimeMillis / 1000 + ")");
+            }
+        }
+    }
+
+    private static final class CustomStep extends Step {
+        private final ClaimValidator validator;
+
+        CustomStep(boolean stackTraces, ClaimValidator validator) {
+            super(stackTraces);
+            this.validator = validator;
+        }
+
+        @Override
+        void validate(DecodedJWT decoded, String nonce, long nowMillis) {
+            try {
+                validator.validate(decoded);
+            } catch (JWTVerificationException e) {
+                throw error(e.getMessage(), e);
+            } catch (RuntimeException e) {
+                // Like a claim of an unexpected type, so that the token is rejected like by any other check
+                throw error("A claim validator failed: " + e, e);
+            }
+        }
+    }
+
+    /**
+     * Thrown when the nonce claim doesn't match the nonce stored for the login request. Unlike the other claim errors,
+     * it depends on the stored nonce as well as on the ID Token.
+     */
+    static final class NonceMismatchException extends TokenValidationException {
+        NonceMismatchException(String message, boolean writableStackTrace) {
+            super(message, null, writableStackTrace);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.auth0;
+
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * Additional check of the claims of the ID Token, like an organization or an authentication context class.
+ * Validators run after the standard OIDC claims were validated, on the token that was already decoded and whose
+ * signature was already verified. They are called concurrently and must be thread-safe.
+ *
+ * @see AuthenticationController.Builder#withClaimValidator(ClaimValidator)
+ */
+@SuppressWarnings("WeakerAccess")
+public interface ClaimValidator {
+
+    /**
+     * Validates the claims of the ID Token.
+     *
+     * @param idToken the decoded ID Token.
+     * @throws InvalidClaimException if a claim is missing or has an unexpected value. The ID Token is then rejected
+     *                               with an {@link IdentityVerificationException} with code {@code a0.invalid_jwt_error}.
+     *                               Any other runtime exception, like a claim of an unexpected type, rejects it the same way.
+     */
+    void validate(DecodedJWT idToken) throws InvalidClaimException;
+}
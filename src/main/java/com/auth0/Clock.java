@@ -0,0 +1,22 @@
+package com.auth0;
+
+/**
+ * Source of the current time, so that time-based checks can be tested with a fixed time.
+ */
+interface Clock {
+
+    /**
+     * The system clock.
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    /**
+     * @return the current time as milliseconds since the epoch.
+     */
+    long currentTimeMillis();
+}
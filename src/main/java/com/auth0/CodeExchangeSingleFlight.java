@@ -0,0 +1,146 @@
+package com.auth0;
+
+import com.auth0.exception.Auth0Exception;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares a single Code Exchange between the callbacks that carry the same authorization code, like a form_post
+ * submitted twice. The first callback sends the request while the duplicates wait for its outcome, either the
+ * received {@link Tokens} or the error. Once completed, the outcome is kept for a short time to serve late duplicates,
+ * after which a new exchange would be attempted (and rejected by the server, as the code was already used).
+ * <p>
+ * Exchanges are only shared between callbacks that also carry the same state and redirect uri. The state was checked
+ * against the one stored for the browser, so a code replayed from another login request, with its own state, is sent
+ * to the server and rejected there instead of receiving the tokens of the first exchange.
+ * <p>
+ * Only the network request is shared: each callback still verifies the received tokens on its own. The keys are
+ * hashed, so the codes are not kept in memory.
+ */
+class CodeExchangeSingleFlight {
+
+    private final ConcurrentHashMap<TokenHash, Flight> flights = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private volatile long nextEvictionNanos;
+
+    CodeExchangeSingleFlight(long ttl, TimeUnit unit) {
+        Validate.isTrue(ttl > 0, "ttl must be greater than 0");
+        Validate.notNull(unit);
+        this.ttlNanos = unit.toNanos(ttl);
+        this.nextEvictionNanos = nanoTime() + ttlNanos;
+    }
+
+    /**
+     * Runs the given exchange, unless another one for the same authorization code, state and redirect uri is in flight
+     * or completed recently, in which case its outcome is returned instead.
+     *
+     * @param authorizationCode the code to exchange.
+     * @param state             the state received with the code.
+     * @param redirectUri       the redirect uri sent with the code.
+     * @param exchange          the exchange to run if no other one can be shared.
+     * @return the tokens received by the shared exchange.
+     * @throws Auth0Exception                if the shared exchange failed.
+     * @throws IdentityVerificationException if the shared exchange was rejected before sending the request.
+     */
+    Tokens execute(String authorizationCode, String state, String redirectUri, final Exchange exchange) throws Auth0Exception, IdentityVerificationException {
+        evictExpired();
+        TokenHash key = TokenHash.of(authorizationCode, state, redirectUri);
+        Flight flight = new Flight(new Callable<Tokens>() {
+            @Override
+            public Tokens call() throws Exception {
+                return exchange.execute();
+            }
+        });
+        Flight shared = flights.putIfAbsent(key, flight);
+        while (shared != null && shared.isExpired(nanoTime(), ttlNanos)) {
+            if (flights.replace(key, shared, flight)) {
+                shared = null;
+            } else {
+                shared = flights.putIfAbsent(key, flight);
+            }
+        }
+        if (shared == null) {
+            flight.run();
+            return flight.getTokens();
+        }
+        return shared.getTokens();
+    }
+
+    int size() {
+        return flights.size();
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private void evictExpired() {
+        long now = nanoTime();
+        if (now - nextEvictionNanos < 0) {
+            return;
+        }
+        nextEvictionNanos = now + ttlNanos;
+        Iterator<Map.Entry<TokenHash, Flight>> it = flights.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().isExpired(now, ttlNanos)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * The Code Exchange to share.
+     */
+    interface Exchange {
+        Tokens execute() throws Auth0Exception, IdentityVerificationException;
+    }
+
+    private class Flight {
+        private final FutureTask<Tokens> task;
+        private volatile long completedAtNanos;
+        private volatile boolean completed;
+
+        Flight(Callable<Tokens> callable) {
+            this.task = new FutureTask<>(callable);
+        }
+
+        void run() {
+            try {
+                task.run();
+            } finally {
+                completedAtNanos = nanoTime();
+                completed = true;
+            }
+        }
+
+        boolean isExpired(long now, long ttlNanos) {
+            return completed && now - completedAtNanos >= ttlNanos;
+        }
+
+        Tokens getTokens() throws Auth0Exception, IdentityVerificationException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return task.get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw RequestProcessor.rethrowCodeExchangeFailure(e);
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
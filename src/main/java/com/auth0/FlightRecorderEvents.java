@@ -0,0 +1,44 @@
+package com.auth0;
+
+/**
+ * Hooks that emit JDK Flight Recorder events for the stages of the login flow.
+ * <p>
+ * This is the Java 7 version, which does nothing and is optimized away by the JIT compiler. On Java 11 and later,
+ * the Multi-Release jar provides a version of this class from {@code src/main/java11} that records
+ * {@code com.auth0.*} events, with the same methods. The values returned by the {@code begin} methods are opaque
+ * and must be passed to the matching {@code end} method once the stage completed.
+ */
+final class FlightRecorderEvents {
+
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_UNEXPECTED_ERROR = "unexpected_error";
+
+    private FlightRecorderEvents() {
+    }
+
+    static Object beginAuthorizeUrlBuild(String responseType) {
+        return null;
+    }
+
+    static Object beginCallbackProcess(String responseType) {
+        return null;
+    }
+
+    static Object beginCodeExchange() {
+        return null;
+    }
+
+    static Object beginIdTokenVerify() {
+        return null;
+    }
+
+    static Object beginJwkLookup(String keyId) {
+        return null;
+    }
+
+    static void end(Object event, String outcome) {
+    }
+
+    static void endCodeExchange(Object event, String outcome, int statusCode) {
+    }
+}
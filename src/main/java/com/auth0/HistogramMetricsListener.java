@@ -0,0 +1,193 @@
+package com.auth0;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link MetricsListener} that keeps, for each stage, the number of successful and failed completions, the total
+ * time spent and a histogram of the durations. Recording only increments atomic counters, so it never blocks the
+ * callbacks, and the values can be read at any time to be exported to a monitoring system.
+ * <p>
+ * The histogram uses power of two buckets in microseconds: bucket {@code 0} counts the durations under 1 microsecond,
+ * and bucket {@code i} the durations from {@code 2^(i-1)} up to {@code 2^i} microseconds. The last bucket also
+ * counts every longer duration, from about 17 seconds.
+ * <p>
+ * The number of hits and misses of each cache are counted as well.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class HistogramMetricsListener extends MetricsListener {
+
+    /**
+     * The number of buckets of each histogram.
+     */
+    public static final int BUCKET_COUNT = 26;
+
+    private static final int STAGE_COUNT = Stage.values().length;
+    private static final int CACHE_COUNT = Cache.values().length;
+
+    private final AtomicLongArray successCounts = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray failureCounts = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray totalNanos = new AtomicLongArray(STAGE_COUNT);
+    private final AtomicLongArray buckets = new AtomicLongArray(STAGE_COUNT * BUCKET_COUNT);
+    private final AtomicLongArray cacheHits = new AtomicLongArray(CACHE_COUNT);
+    private final AtomicLongArray cacheMisses = new AtomicLongArray(CACHE_COUNT);
+
+    @Override
+    public void onStageCompleted(Stage stage, long durationNanos, boolean success) {
+        int index = stage.ordinal();
+        if (success) {
+            successCounts.incrementAndGet(index);
+        } else {
+            failureCounts.incrementAndGet(index);
+        }
+        totalNanos.addAndGet(index, durationNanos);
+        buckets.incrementAndGet(index * BUCKET_COUNT + bucketOf(durationNanos));
+    }
+
+    @Override
+    public void onCacheLookup(Cache cache, boolean hit) {
+        (hit ? cacheHits : cacheMisses).incrementAndGet(cache.ordinal());
+    }
+
+    /**
+     * Getter for the number of lookups of the given cache that found a valid entry.
+     *
+     * @param cache the cache.
+     * @return the number of hits.
+     */
+    public long getHitCount(Cache cache) {
+        Validate.notNull(cache);
+        return cacheHits.get(cache.ordinal());
+    }
+
+    /**
+     * Getter for the number of lookups of the given cache that found no valid entry.
+     *
+     * @param cache the cache.
+     * @return the number of misses.
+     */
+    public long getMissCount(Cache cache) {
+        Validate.notNull(cache);
+        return cacheMisses.get(cache.ordinal());
+    }
+
+    /**
+     * Getter for the ratio of the lookups of the given cache that found a valid entry.
+     *
+     * @param cache the cache.
+     * @return the hit rate, between 0 and 1, or 0 if the cache was never looked up.
+     */
+    public double getHitRate(Cache cache) {
+        Validate.notNull(cache);
+        long hits = cacheHits.get(cache.ordinal());
+        long lookups = hits + cacheMisses.get(cache.ordinal());
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Getter for the number of times the given stage completed successfully.
+     *
+     * @param stage the stage.
+     * @return the number of successful completions.
+     */
+    public long getSuccessCount(Stage stage) {
+        Validate.notNull(stage);
+        return successCounts.get(stage.ordinal());
+    }
+
+    /**
+     * Getter for the number of times the given stage failed.
+     *
+     * @param stage the stage.
+     * @return the number of failures.
+     */
+    public long getFailureCount(Stage stage) {
+        Validate.notNull(stage);
+        return failureCounts.get(stage.ordinal());
+    }
+
+    /**
+     * Getter for the total time spent in the given stage.
+     *
+     * @param stage the stage.
+     * @param unit  the unit to convert the time to.
+     * @return the total time spent.
+     */
+    public long getTotalTime(Stage stage, TimeUnit unit) {
+        Validate.notNull(stage);
+        Validate.notNull(unit);
+        return unit.convert(totalNanos.get(stage.ordinal()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Getter for a copy of the duration histogram of the given stage. The counts are read one by one while other
+     * threads may be recording, so their sum can differ slightly from the completion counts.
+     *
+     * @param stage the stage.
+     * @return the count of each of the {@link #BUCKET_COUNT} buckets.
+     */
+    public long[] getHistogram(Stage stage) {
+        Validate.notNull(stage);
+        long[] histogram = new long[BUCKET_COUNT];
+        int offset = stage.ordinal() * BUCKET_COUNT;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            histogram[i] = buckets.get(offset + i);
+        }
+        return histogram;
+    }
+
+    /**
+     * Getter for the upper bound of a bucket of the histograms.
+     *
+     * @param bucket the bucket index, between 0 and {@link #BUCKET_COUNT} - 1.
+     * @param unit   the unit to convert the bound to.
+     * @return the exclusive upper bound of the bucket, or {@link Long#MAX_VALUE} for the last bucket.
+     */
+    public static long getBucketUpperBound(int bucket, TimeUnit unit) {
+        Validate.inclusiveBetween(0, BUCKET_COUNT - 1, bucket);
+        Validate.notNull(unit);
+        if (bucket == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(1L << bucket, TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Estimates a percentile of the durations of the given stage, as the upper bound of the bucket it falls in.
+     *
+     * @param stage      the stage.
+     * @param percentile the percentile, between 0 and 100.
+     * @param unit       the unit to convert the duration to.
+     * @return the estimated duration, or 0 if the stage never completed.
+     */
+    public long getPercentile(Stage stage, double percentile, TimeUnit unit) {
+        Validate.isTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        long[] histogram = getHistogram(stage);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += histogram[i];
+            if (seen >= rank && seen > 0) {
+                return getBucketUpperBound(i, unit);
+            }
+        }
+        return getBucketUpperBound(BUCKET_COUNT - 1, unit);
+    }
+
+    static int bucketOf(long durationNanos) {
+        long micros = durationNanos / 1000;
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+}
@@ -0,0 +1,133 @@
+package com.auth0;
+
+import com.auth0.client.auth.AuthAPI;
+import com.auth0.net.AuthRequest;
+import com.auth0.net.Telemetry;
+import com.auth0.net.TokenRequest;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.logging.HttpLoggingInterceptor;
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+
+/**
+ * Auth0 Authentication API client that performs the Code Exchange request using a pre-configured {@link OkHttpClient}.
+ * This allows to tune the timeouts, connection pool and dispatcher used on the login callback, which the default
+ * {@link AuthAPI} client doesn't expose. Every other request keeps using the default networking client.
+ * <p>
+ * The telemetry and logging settings apply to the Code Exchange request too. The logging interceptor is added to a
+ * client derived from the given one, which shares its connection pool and dispatcher.
+ */
+class HttpClientAuthAPI extends AuthAPI {
+
+    private static final String TELEMETRY_HEADER = "Auth0-Client";
+    private static final String KEY_CLIENT_ID = "client_id";
+    private static final String KEY_CLIENT_SECRET = "client_secret";
+    private static final String KEY_GRANT_TYPE = "grant_type";
+    private static final String KEY_CODE = "code";
+    private static final String KEY_REDIRECT_URI = "redirect_uri";
+
+    private final OkHttpClient httpClient;
+    private final HttpLoggingInterceptor logging;
+    private final String tokenUrl;
+    private final String clientId;
+    private final String clientSecret;
+    private volatile Telemetry telemetry;
+    private volatile boolean sendTelemetry = true;
+
+    /**
+     * Create a new instance.
+     *
+     * @param domain       the Auth0 domain
+     * @param clientId     the Auth0 application's client id
+     * @param clientSecret the Auth0 application's client secret
+     * @param httpClient   the networking client to use for the Code Exchange request
+     */
+    HttpClientAuthAPI(String domain, String clientId, String clientSecret, OkHttpClient httpClient) {
+        this(domain, clientId, clientSecret, httpClient, HttpLoggingInterceptor.Logger.DEFAULT);
+    }
+
+    HttpClientAuthAPI(String domain, String clientId, String clientSecret, OkHttpClient httpClient, HttpLoggingInterceptor.Logger logger) {
+        super(domain, clientId, clientSecret);
+        Validate.notNull(httpClient);
+        // Disabled until setLoggingEnabled is called, like the logging of the default networking client
+        this.logging = new HttpLoggingInterceptor(logger).setLevel(HttpLoggingInterceptor.Level.NONE);
+        this.httpClient = httpClient.newBuilder()
+                .addInterceptor(logging)
+                .build();
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.tokenUrl = createBaseUrl(domain)
+                .newBuilder()
+                .addPathSegment("oauth")
+                .addPathSegment("token")
+                .build()
+                .toString();
+    }
+
+    @Override
+    public void setLoggingEnabled(boolean enabled) {
+        super.setLoggingEnabled(enabled);
+        logging.setLevel(enabled ? HttpLoggingInterceptor.Level.BODY : HttpLoggingInterceptor.Level.NONE);
+    }
+
+    @Override
+    public void setTelemetry(Telemetry telemetry) {
+        super.setTelemetry(telemetry);
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public void doNotSendTelemetry() {
+        super.doNotSendTelemetry();
+        this.sendTelemetry = false;
+    }
+
+    @Override
+    public AuthRequest exchangeCode(String code, String redirectUri) {
+        Validate.notNull(code, "code must not be null");
+        Validate.notNull(redirectUri, "redirect uri must not be null");
+
+        TokenRequest request = new TokenRequest(httpClient, tokenUrl);
+        request.addParameter(KEY_CLIENT_ID, clientId);
+        request.addParameter(KEY_CLIENT_SECRET, clientSecret);
+        request.addParameter(KEY_GRANT_TYPE, "authorization_code");
+        request.addParameter(KEY_CODE, code);
+        request.addParameter(KEY_REDIRECT_URI, redirectUri);
+        Telemetry currentTelemetry = telemetry;
+        if (sendTelemetry && currentTelemetry != null) {
+            request.addHeader(TELEMETRY_HEADER, currentTelemetry.getValue());
+        }
+        return request;
+    }
+
+    /**
+     * Opens a connection to the domain, which the networking client keeps in its connection pool for the next
+     * Code Exchange request. Any response will do, so a HEAD request is made to the token endpoint.
+     *
+     * @throws IOException if the domain can't be reached.
+     */
+    void preconnect() throws IOException {
+        Request request = new Request.Builder()
+                .url(tokenUrl)
+                .head()
+                .build();
+        Response response = httpClient.newCall(request).execute();
+        response.close();
+    }
+
+    private static HttpUrl createBaseUrl(String domain) {
+        String url = domain;
+        if (!domain.startsWith("https://") && !domain.startsWith("http://")) {
+            url = "https://" + domain;
+        }
+        HttpUrl baseUrl = HttpUrl.parse(url);
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("The domain had an invalid format and couldn't be parsed as an URL.");
+        }
+        return baseUrl;
+    }
+}
@@ -0,0 +1,186 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.Header;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The claims of an ID Token decoded by {@link IdTokenClaimsDecoder}. Only the claims checked during the verification
+ * are extracted from the payload. Any other claim, like the ones read by a {@link ClaimValidator}, is obtained by
+ * decoding the whole token with java-jwt the first time it's requested.
+ */
+final class IdTokenClaims implements DecodedJWT {
+
+    private static final String NONCE_CLAIM = "nonce";
+    private static final String AZP_CLAIM = "azp";
+    private static final String AUTH_TIME_CLAIM = "auth_time";
+
+    private final String token;
+    private final Header header;
+    private final int headerEnd;
+    private final int payloadEnd;
+    String issuer;
+    String subject;
+    List<String> audience;
+    Date expiresAt;
+    Date notBefore;
+    Date issuedAt;
+    String id;
+    String nonce;
+    String authorizedParty;
+    Date authTime;
+    private volatile DecodedJWT decoded;
+
+    IdTokenClaims(String token, Header header, int headerEnd, int payloadEnd) {
+        this.token = token;
+        this.header = header;
+        this.headerEnd = headerEnd;
+        this.payloadEnd = payloadEnd;
+    }
+
+    /**
+     * Reads the "nonce" claim of the given token, without decoding the whole token when it was decoded by
+     * {@link IdTokenClaimsDecoder}.
+     *
+     * @param decoded the decoded token.
+     * @return the nonce, or null if missing or not a string.
+     */
+    static String getNonce(DecodedJWT decoded) {
+        if (decoded instanceof IdTokenClaims) {
+            return ((IdTokenClaims) decoded).nonce;
+        }
+        return decoded.getClaim(NONCE_CLAIM).asString();
+    }
+
+    /**
+     * Reads the "azp" claim of the given token, without decoding the whole token when it was decoded by
+     * {@link IdTokenClaimsDecoder}.
+     *
+     * @param decoded the decoded token.
+     * @return the authorized party, or null if missing or not a string.
+     */
+    static String getAuthorizedParty(DecodedJWT decoded) {
+        if (decoded instanceof IdTokenClaims) {
+            return ((IdTokenClaims) decoded).authorizedParty;
+        }
+        return decoded.getClaim(AZP_CLAIM).asString();
+    }
+
+    /**
+     * Reads the "auth_time" claim of the given token, without decoding the whole token when it was decoded by
+     * {@link IdTokenClaimsDecoder}.
+     *
+     * @param decoded the decoded token.
+     * @return the authentication time, or null if missing or not a number.
+     */
+    static Date getAuthTime(DecodedJWT decoded) {
+        if (decoded instanceof IdTokenClaims) {
+            return ((IdTokenClaims) decoded).authTime;
+        }
+        return decoded.getClaim(AUTH_TIME_CLAIM).asDate();
+    }
+
+    private DecodedJWT getDecoded() {
+        DecodedJWT jwt = decoded;
+        if (jwt == null) {
+            jwt = JWT.decode(token);
+            decoded = jwt;
+        }
+        return jwt;
+    }
+
+    @Override
+    public String getToken() {
+        return token;
+    }
+
+    @Override
+    public String getHeader() {
+        return token.substring(0, headerEnd);
+    }
+
+    @Override
+    public String getPayload() {
+        return token.substring(headerEnd + 1, payloadEnd);
+    }
+
+    @Override
+    public String getSignature() {
+        return token.substring(payloadEnd + 1);
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return header.getAlgorithm();
+    }
+
+    @Override
+    public String getType() {
+        return header.getType();
+    }
+
+    @Override
+    public String getContentType() {
+        return header.getContentType();
+    }
+
+    @Override
+    public String getKeyId() {
+        return header.getKeyId();
+    }
+
+    @Override
+    public Claim getHeaderClaim(String name) {
+        return header.getHeaderClaim(name);
+    }
+
+    @Override
+    public String getIssuer() {
+        return issuer;
+    }
+
+    @Override
+    public String getSubject() {
+        return subject;
+    }
+
+    @Override
+    public List<String> getAudience() {
+        return audience;
+    }
+
+    @Override
+    public Date getExpiresAt() {
+        return expiresAt;
+    }
+
+    @Override
+    public Date getNotBefore() {
+        return notBefore;
+    }
+
+    @Override
+    public Date getIssuedAt() {
+        return issuedAt;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public Claim getClaim(String name) {
+        return getDecoded().getClaim(name);
+    }
+
+    @Override
+    public Map<String, Claim> getClaims() {
+        return getDecoded().getClaims();
+    }
+}
@@ -0,0 +1,243 @@
+package com.auth0;
+
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.Header;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decodes the payload of an ID Token into {@link IdTokenClaims}, as a lighter alternative to {@link com.auth0.jwt.JWT#decode(String)}.
+ * The payload is base64url decoded into a buffer reused by each thread and read with a streaming JSON parser, so that
+ * no tree is built: the claims checked during the verification are kept and every other value is skipped.
+ * <p>
+ * The claims are converted the same way java-jwt does, so both decoders accept and reject the same tokens.
+ */
+final class IdTokenClaimsDecoder {
+
+    private static final int MAX_REUSED_BUFFER_SIZE = 16 * 1024;
+    private static final byte[] BASE64_VALUES = new byte[128];
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[2048];
+        }
+    };
+
+    static {
+        Arrays.fill(BASE64_VALUES, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64_VALUES[alphabet.charAt(i)] = (byte) i;
+        }
+        // Both the base64 and the base64url alphabets are accepted, like the decoder used by java-jwt
+        BASE64_VALUES['+'] = 62;
+        BASE64_VALUES['-'] = 62;
+        BASE64_VALUES['/'] = 63;
+        BASE64_VALUES['_'] = 63;
+    }
+
+    private IdTokenClaimsDecoder() {
+    }
+
+    /**
+     * Decodes the payload of the given token.
+     *
+     * @param token  the token, made of three parts.
+     * @param header the already decoded header of the token.
+     * @return the decoded claims.
+     * @throws JWTDecodeException if the payload is not a valid JSON object, or one of the known claims has an invalid value.
+     */
+    static IdTokenClaims decode(String token, Header header) throws JWTDecodeException {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd == -1 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd == -1 || token.indexOf('.', payloadEnd + 1) != -1) {
+            throw new JWTDecodeException("The token was expected to have 3 parts.");
+        }
+
+        int maxLength = (payloadEnd - headerEnd) / 4 * 3 + 3;
+        byte[] buffer = BUFFER.get();
+        if (buffer.length < maxLength) {
+            buffer = new byte[maxLength];
+            if (maxLength <= MAX_REUSED_BUFFER_SIZE) {
+                BUFFER.set(buffer);
+            }
+        }
+        int length = decodeBase64(token, headerEnd + 1, payloadEnd, buffer);
+
+        IdTokenClaims claims = new IdTokenClaims(token, header, headerEnd, payloadEnd);
+        try {
+            readClaims(JSON_FACTORY.createParser(buffer, 0, length), claims);
+        } catch (IOException e) {
+            throw new JWTDecodeException("The token's payload doesn't have a valid JSON format.", e);
+        }
+        return claims;
+    }
+
+    /**
+     * Decodes base64 characters, skipping the ones out of the alphabet and stopping at the first padding character.
+     */
+    static int decodeBase64(String value, int start, int end, byte[] out) {
+        int length = 0;
+        int bits = 0;
+        int accumulator = 0;
+        for (int i = start; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '=') {
+                break;
+            }
+            if (c >= BASE64_VALUES.length || BASE64_VALUES[c] < 0) {
+                continue;
+            }
+            accumulator = (accumulator << 6) | BASE64_VALUES[c];
+            bits += 6;
+            if (bits >= 8) {
+                bits -= 8;
+                out[length++] = (byte) (accumulator >> bits);
+                accumulator &= (1 << bits) - 1;
+            }
+        }
+        return length;
+    }
+
+    private static void readClaims(JsonParser parser, IdTokenClaims claims) throws IOException {
+        try {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JWTDecodeException("The token's payload is not a JSON object.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                switch (name) {
+                    case "iss":
+                        claims.issuer = readText(parser, value);
+                        break;
+                    case "sub":
+                        claims.subject = readText(parser, value);
+                        break;
+                    case "aud":
+                        claims.audience = readAudience(parser, value);
+                        break;
+                    case "exp":
+                        claims.expiresAt = readDate(parser, value, name);
+                        break;
+                    case "nbf":
+                        claims.notBefore = readDate(parser, value, name);
+                        break;
+                    case "iat":
+                        claims.issuedAt = readDate(parser, value, name);
+                        break;
+                    case "jti":
+                        claims.id = readText(parser, value);
+                        break;
+                    case "nonce":
+                        claims.nonce = readString(parser, value);
+                        break;
+                    case "azp":
+                        claims.authorizedParty = readString(parser, value);
+                        break;
+                    case "auth_time":
+                        Long authTime = readSeconds(parser, value);
+                        claims.authTime = authTime == null ? null : new Date(authTime * 1000);
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * Reads a value as text, like the registered string claims of java-jwt.
+     */
+    private static String readText(JsonParser parser, JsonToken value) throws IOException {
+        switch (value) {
+            case VALUE_NULL:
+                return null;
+            case START_OBJECT:
+            case START_ARRAY:
+                parser.skipChildren();
+                return "";
+            default:
+                return readScalarText(parser, value);
+        }
+    }
+
+    /**
+     * Reads a value that must be a string, like {@link com.auth0.jwt.interfaces.Claim#asString()}.
+     */
+    private static String readString(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static String readScalarText(JsonParser parser, JsonToken value) throws IOException {
+        switch (value) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT:
+                return String.valueOf(parser.getDoubleValue());
+            default:
+                return parser.getText();
+        }
+    }
+
+    private static List<String> readAudience(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_STRING) {
+            String audience = parser.getText();
+            return audience.isEmpty() ? new ArrayList<String>(0) : Collections.singletonList(audience);
+        }
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> audience = new ArrayList<>(2);
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (element == JsonToken.START_OBJECT || element == JsonToken.START_ARRAY) {
+                throw new JWTDecodeException("Couldn't map the Claim's array contents to String");
+            }
+            audience.add(element == JsonToken.VALUE_NULL ? null : readScalarText(parser, element));
+        }
+        return audience;
+    }
+
+    private static Date readDate(JsonParser parser, JsonToken value, String name) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        Long seconds = readSeconds(parser, value);
+        if (seconds == null) {
+            throw new JWTDecodeException(String.format("The claim '%s' contained a non-numeric date value.", name));
+        }
+        return new Date(seconds * 1000);
+    }
+
+    /**
+     * Reads a number of seconds, or null if the value can't be converted to a long.
+     */
+    private static Long readSeconds(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? null : parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_NUMBER_FLOAT) {
+            double seconds = parser.getDoubleValue();
+            return seconds >= Long.MIN_VALUE && seconds <= Long.MAX_VALUE ? (long) seconds : null;
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
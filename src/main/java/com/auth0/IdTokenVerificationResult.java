@@ -0,0 +1,58 @@
+package com.auth0;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * Outcome of the verification of one of the ID Tokens given to
+ * {@link AuthenticationController#verifyIdTokens(Iterable, java.util.concurrent.Executor)}.
+ * Holds either the verified ID Token or the reason it was rejected.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class IdTokenVerificationResult {
+
+    private final String idToken;
+    private final DecodedJWT verifiedIdToken;
+    private final IdentityVerificationException exception;
+
+    IdTokenVerificationResult(String idToken, DecodedJWT verifiedIdToken, IdentityVerificationException exception) {
+        this.idToken = idToken;
+        this.verifiedIdToken = verifiedIdToken;
+        this.exception = exception;
+    }
+
+    /**
+     * Getter for the ID Token that was verified.
+     *
+     * @return the ID Token, as given.
+     */
+    public String getIdToken() {
+        return idToken;
+    }
+
+    /**
+     * Whether the ID Token passed verification.
+     *
+     * @return true if the ID Token is valid, false otherwise.
+     */
+    public boolean isValid() {
+        return exception == null;
+    }
+
+    /**
+     * Getter for the verified ID Token, to read its claims.
+     *
+     * @return the verified ID Token, or null if it was rejected.
+     */
+    public DecodedJWT getVerifiedIdToken() {
+        return verifiedIdToken;
+    }
+
+    /**
+     * Getter for the reason the ID Token was rejected.
+     *
+     * @return the exception that {@link AuthenticationController#verifyIdToken(String)} would have thrown, or null if the ID Token is valid.
+     */
+    public IdentityVerificationException getException() {
+        return exception;
+    }
+}
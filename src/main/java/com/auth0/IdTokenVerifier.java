@@ -3,21 +3,34 @@ package com.auth0;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import org.apache.commons.lang3.Validate;
 
-import java.util.Calendar;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
+import static com.auth0.IdentityVerificationException.JWT_VERIFICATION_ERROR;
+
 /**
  * Token verification utility class.
- * Supported signing algorithms: HS256 and RS256
+ * Supported signing algorithms: HS256, RS256, PS256 and ES256
  */
 class IdTokenVerifier {
 
-    private static final Integer DEFAULT_CLOCK_SKEW = 60; //1 min = 60 sec
+    static final Integer DEFAULT_CLOCK_SKEW = 60; //1 min = 60 sec
+
+
+    private final MetricsListener metricsListener;
+
+    IdTokenVerifier() {
+        this(null);
+    }
 
-    private static final String NONCE_CLAIM = "nonce";
-    private static final String AZP_CLAIM = "azp";
-    private static final String AUTH_TIME_CLAIM = "auth_time";
+    /**
+     * @param metricsListener the listener to report the signature verification and claims validation timings to, or null.
+     */
+    IdTokenVerifier(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
 
     /**
      * Verifies a provided ID Token follows the OIDC specification.
@@ -28,105 +41,127 @@ class IdTokenVerifier {
      * @throws TokenValidationException If the ID Token is null, its signing algorithm not supported, its signature invalid or one of its claim invalid.
      */
     void verify(String token, Options verifyOptions) throws TokenValidationException {
-        Validate.notNull(verifyOptions);
-
-        if (isEmpty(token)) {
-            throw new TokenValidationException("ID token is required but missing");
-        }
-
-        DecodedJWT decoded = verifyOptions.verifier.verifySignature(token);
-
-        if (isEmpty(decoded.getIssuer())) {
-            throw new TokenValidationException("Issuer (iss) claim must be a string present in the ID token");
-        }
-        if (!decoded.getIssuer().equals(verifyOptions.issuer)) {
-            throw new TokenValidationException(String.format("Issuer (iss) claim mismatch in the ID token, expected \"%s\", found \"%s\"", verifyOptions.issuer, decoded.getIssuer()));
-        }
-
-        if (isEmpty(decoded.getSubject())) {
-            throw new TokenValidationException("Subject (sub) claim must be a string present in the ID token");
-        }
+        verify(token, verifyOptions, null);
+    }
 
-        final List<String> audience = decoded.getAudience();
-        if (audience == null) {
-            throw new TokenValidationException("Audience (aud) claim must be a string or array of strings present in the ID token");
-        }
-        if (!audience.contains(verifyOptions.audience)) {
-            throw new TokenValidationException(String.format("Audience (aud) claim mismatch in the ID token; expected \"%s\" but found \"%s\"", verifyOptions.audience, decoded.getAudience()));
-        }
+    /**
+     * Verifies a provided ID Token follows the OIDC specification, checking the nonce claim against the given
+     * per-request value instead of the one set in the options. The options are only read, so the same instance
+     * can be shared by concurrent callers.
+     *
+     * @param token         the ID Token to verify.
+     * @param verifyOptions the verification options, like audience, issuer, algorithm.
+     * @param nonce         the nonce expected for this request, or null to skip the nonce check.
+     * @throws TokenValidationException If the ID Token is null, its signing algorithm not supported, its signature invalid or one of its claim invalid.
+     */
+    void verify(String token, Options verifyOptions, String nonce) throws TokenValidationException {
+        decodeAndVerify(token, verifyOptions, nonce);
+    }
 
-        final Calendar cal = Calendar.getInstance();
-        final Date now = verifyOptions.clock != null ? verifyOptions.clock : cal.getTime();
-        final int clockSkew = verifyOptions.clockSkew != null ? verifyOptions.clockSkew : DEFAULT_CLOCK_SKEW;
+    /**
+     * Same as {@link #verify(String, Options, String)}, but checks the time based claims against the given clock
+     * instead of the one set in the options.
+     *
+     * @param token         the ID Token to verify.
+     * @param verifyOptions the verification options, like audience, issuer, algorithm.
+     * @param nonce         the nonce expected for this request, or null to skip the nonce check.
+     * @param clock         the clock for this request, or null to use the one of the options.
+     * @throws TokenValidationException If the ID Token is null, its signing algorithm not supported, its signature invalid or one of its claim invalid.
+     */
+    void verify(String token, Options verifyOptions, String nonce, Clock clock) throws TokenValidationException {
+        decodeAndVerify(token, verifyOptions, nonce, clock, null);
+    }
 
-        if (decoded.getExpiresAt() == null) {
-            throw new TokenValidationException("Expiration Time (exp) claim must be a number present in the ID token");
-        }
+    /**
+     * Same as {@link #verify(String, Options, String)}, but also returns the verified ID Token.
+     *
+     * @param token         the ID Token to verify.
+     * @param verifyOptions the verification options, like audience, issuer, algorithm.
+     * @param nonce         the nonce expected for this request, or null to skip the nonce check.
+     * @return the decoded ID Token.
+     * @throws TokenValidationException If the ID Token is null, its signing algorithm not supported, its signature invalid or one of its claim invalid.
+     */
+    DecodedJWT decodeAndVerify(String token, Options verifyOptions, String nonce) throws TokenValidationException {
+        return decodeAndVerify(token, verifyOptions, nonce, null);
+    }
 
-        cal.setTime(decoded.getExpiresAt());
-        cal.add(Calendar.SECOND, clockSkew);
-        Date expDate = cal.getTime();
+    /**
+     * Same as {@link #decodeAndVerify(String, Options, String)}, for a token that is part of a batch.
+     *
+     * @param token         the ID Token to verify.
+     * @param verifyOptions the verification options, like audience, issuer, algorithm.
+     * @param nonce         the nonce expected for this request, or null to skip the nonce check.
+     * @param batch         the signature verifiers shared by the tokens of the batch, or null if the token is not part of a batch.
+     * @return the decoded ID Token.
+     * @throws TokenValidationException If the ID Token is null, its signing algorithm not supported, its signature invalid or one of its claim invalid.
+     */
+    DecodedJWT decodeAndVerify(String token, Options verifyOptions, String nonce, SignatureVerifier.BatchVerifiers batch) throws TokenValidationException {
+        return decodeAndVerify(token, verifyOptions, nonce, null, batch);
+    }
 
-        if (now.after(expDate)) {
-            throw new TokenValidationException(String.format("Expiration Time (exp) claim error in the ID token; current time (%d) is after expiration time (%d)", now.getTime() / 1000, expDate.getTime() / 1000));
-        }
+    private DecodedJWT decodeAndVerify(String token, Options verifyOptions, String nonce, Clock clock, SignatureVerifier.BatchVerifiers batch) throws TokenValidationException {
+        Validate.notNull(verifyOptions);
 
-        if (decoded.getIssuedAt() == null) {
-            throw new TokenValidationException("Issued At (iat) claim must be a number present in the ID token");
+        Object event = FlightRecorderEvents.beginIdTokenVerify();
+        String outcome = FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR;
+        try {
+            DecodedJWT decoded = verifyTokenAndClaims(token, verifyOptions, nonce, clock, batch);
+            outcome = FlightRecorderEvents.OUTCOME_SUCCESS;
+            return decoded;
+        } catch (TokenValidationException e) {
+            outcome = JWT_VERIFICATION_ERROR;
+            throw e;
+        } finally {
+            FlightRecorderEvents.end(event, outcome);
         }
+    }
 
-        cal.setTime(decoded.getIssuedAt());
-        cal.add(Calendar.SECOND, -1 * clockSkew);
+    private DecodedJWT verifyTokenAndClaims(String token, Options verifyOptions, String nonce, Clock clock, SignatureVerifier.BatchVerifiers batch) throws TokenValidationException {
 
-        if (verifyOptions.nonce != null) {
-            String nonceClaim = decoded.getClaim(NONCE_CLAIM).asString();
-            if (isEmpty(nonceClaim)) {
-                throw new TokenValidationException("Nonce (nonce) claim must be a string present in the ID token");
-            }
-            if (!verifyOptions.nonce.equals(nonceClaim)) {
-                throw new TokenValidationException(String.format("Nonce (nonce) claim mismatch in the ID token; expected \"%s\", found \"%s\"", verifyOptions.nonce, nonceClaim));
-            }
+        if (isEmpty(token)) {
+            throw new TokenValidationException("ID token is required but missing", null, verifyOptions.errorStackTraces);
         }
 
-        if (audience.size() > 1) {
-            String azpClaim = decoded.getClaim(AZP_CLAIM).asString();
-            if (isEmpty(azpClaim)) {
-                throw new TokenValidationException("Authorized Party (azp) claim must be a string present in the ID token when Audience (aud) claim has multiple values");
-            }
-            if (!verifyOptions.audience.equals(azpClaim)) {
-                throw new TokenValidationException(String.format("Authorized Party (azp) claim mismatch in the ID token; expected \"%s\", found \"%s\"", verifyOptions.audience, azpClaim));
-            }
+        DecodedJWT decoded;
+        long start = MetricsListener.start(metricsListener);
+        boolean success = false;
+        try {
+            decoded = verifyOptions.verifier.verifySignature(token, batch);
+            success = true;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.SIGNATURE_VERIFICATION, start, success);
         }
 
-        if (verifyOptions.maxAge != null) {
-            Date authTime = decoded.getClaim(AUTH_TIME_CLAIM).asDate();
-            if (authTime == null) {
-                throw new TokenValidationException("Authentication Time (auth_time) claim must be a number present in the ID token when Max Age (max_age) is specified");
-            }
-
-            cal.setTime(authTime);
-            cal.add(Calendar.SECOND, verifyOptions.maxAge);
-            cal.add(Calendar.SECOND, clockSkew);
-            Date authTimeDate = cal.getTime();
-
-            if (now.after(authTimeDate)) {
-                throw new TokenValidationException(String.format("Authentication Time (auth_time) claim in the ID token indicates that too much time has passed since the last end-user authentication. Current time (%d) is after last auth at (%d)", now.getTime() / 1000, authTimeDate.getTime() / 1000));
-            }
+        start = MetricsListener.start(metricsListener);
+        success = false;
+        try {
+            verifyOptions.getValidationPlan().validate(decoded, nonce, clock);
+            success = true;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.CLAIMS_VALIDATION, start, success);
         }
+        return decoded;
     }
 
     private boolean isEmpty(String value) {
         return value == null || value.isEmpty();
     }
 
+    /**
+     * The verification settings shared by every request. Values that change on each request, like the nonce or the
+     * clock, are given to {@link #verify(String, Options, String, Clock)} instead, so that a single instance can be
+     * safely used by concurrent callbacks.
+     */
     static class Options {
         final String issuer;
         final String audience;
         final SignatureVerifier verifier;
-        String nonce;
         private Integer maxAge;
         Integer clockSkew;
-        Date clock;
+        Clock clock;
+        List<ClaimValidator> claimValidators = Collections.emptyList();
+        boolean errorStackTraces = true;
+        private volatile ClaimValidationPlan validationPlan;
 
         public Options(String issuer, String audience, SignatureVerifier verifier) {
             Validate.notNull(issuer);
@@ -137,24 +172,58 @@ class IdTokenVerifier {
             this.verifier = verifier;
         }
 
-        void setNonce(String nonce) {
-            this.nonce = nonce;
-        }
-
         void setMaxAge(Integer maxAge) {
             this.maxAge = maxAge;
+            this.validationPlan = null;
         }
 
         void setClockSkew(Integer clockSkew) {
             this.clockSkew = clockSkew;
+            this.validationPlan = null;
         }
 
-        void setClock(Date now) {
-            this.clock = now;
+        void setClock(final Date now) {
+            setClock(now == null ? null : new Clock() {
+                @Override
+                public long currentTimeMillis() {
+                    return now.getTime();
+                }
+            });
+        }
+
+        void setClock(Clock clock) {
+            this.clock = clock;
+            this.validationPlan = null;
+        }
+
+        void setClaimValidators(List<ClaimValidator> claimValidators) {
+            Validate.notNull(claimValidators);
+            this.claimValidators = Collections.unmodifiableList(new ArrayList<>(claimValidators));
+            this.validationPlan = null;
+        }
+
+        void setErrorStackTraces(boolean errorStackTraces) {
+            this.errorStackTraces = errorStackTraces;
+            this.validationPlan = null;
         }
 
         Integer getMaxAge() {
             return maxAge;
         }
+
+        /**
+         * Getter for the claim checks compiled from these options. They are compiled on first use, or again after a
+         * setter was called.
+         *
+         * @return the compiled claim checks.
+         */
+        ClaimValidationPlan getValidationPlan() {
+            ClaimValidationPlan plan = validationPlan;
+            if (plan == null) {
+                plan = ClaimValidationPlan.compile(this, DEFAULT_CLOCK_SKEW);
+                validationPlan = plan;
+            }
+            return plan;
+        }
     }
 }
@@ -6,6 +6,9 @@ public class IdentityVerificationException extends Exception {
     static final String API_ERROR = "a0.api_error";
     static final String JWT_MISSING_PUBLIC_KEY_ERROR = "a0.missing_jwt_public_key_error";
     static final String JWT_VERIFICATION_ERROR = "a0.invalid_jwt_error";
+    static final String CIRCUIT_OPEN_ERROR = "a0.circuit_open";
+    static final String BULKHEAD_FULL_ERROR = "a0.bulkhead_full";
+    static final String UNEXPECTED_ERROR = "a0.unexpected_error";
     private final String code;
 
     IdentityVerificationException(String code, String message, Throwable cause) {
@@ -13,6 +16,14 @@ public class IdentityVerificationException extends Exception {
         this.code = code;
     }
 
+    /**
+     * @param writableStackTrace false to not capture the stack trace, which is the most expensive part of creating an exception.
+     */
+    IdentityVerificationException(String code, String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+        this.code = code;
+    }
+
     /**
      * Getter for the code of the error.
      *
@@ -29,4 +40,13 @@ public class IdentityVerificationException extends Exception {
     public boolean isJWTError() {
         return JWT_MISSING_PUBLIC_KEY_ERROR.equals(code) || JWT_VERIFICATION_ERROR.equals(code);
     }
+
+    /**
+     * Whether the Code Exchange request was not sent because the circuit breaker is open or too many requests were in flight.
+     *
+     * @return true if the request was rejected by the circuit breaker, false otherwise.
+     */
+    public boolean isCircuitBreakerError() {
+        return CIRCUIT_OPEN_ERROR.equals(code) || BULKHEAD_FULL_ERROR.equals(code);
+    }
 }
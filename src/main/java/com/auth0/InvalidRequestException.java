@@ -14,6 +14,10 @@ public class InvalidRequestException extends IdentityVerificationException {
         super(code, description != null ? description : DEFAULT_DESCRIPTION, null);
     }
 
+    InvalidRequestException(String code, String description, boolean writableStackTrace) {
+        super(code, description != null ? description : DEFAULT_DESCRIPTION, null, writableStackTrace);
+    }
+
     /**
      * Getter for the description of the error.
      *
@@ -0,0 +1,421 @@
+package com.auth0;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.NetworkException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.auth0.jwk.UrlJwkProvider;
+import org.apache.commons.lang3.Validate;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Refresh-ahead cache of the signing keys returned by a {@link JwkProvider}, like the one fetching the JWKS of the
+ * Auth0 domain. See {@link JwksCacheConfig} for when a key is fetched again.
+ * <p>
+ * The same {@link Jwk} instance is returned until it is replaced by a refresh. A refreshed key that the provider reports as not found anymore,
+ * like after a key rotation, stops being served, while a key that can't be refreshed because of a network failure is
+ * served until the end of its grace period. A {@link UrlJwkProvider} refreshes every key with a single fetch of the
+ * JWKS, which counts toward the minimum fetch interval like the fetches of missing keys.
+ * <p>
+ * Keys missing from the cache, like the ones of tokens with a made up key id, are fetched by a single caller at a time,
+ * and the ids that the JWKS doesn't hold are remembered for a while. A {@link UrlJwkProvider} fetches the whole JWKS
+ * at most once per minimum fetch interval, which also adds any new key, so the fetches caused by unknown key ids stay
+ * bounded whatever the rate of such tokens. Other providers can only fetch the requested key, so the interval applies
+ * to each key id instead: otherwise a made up key id would keep a newly rotated key from being fetched.
+ * <p>
+ * With a snapshot file, the whole JWKS is saved after each fetch, and the keys saved by a previous run are loaded when
+ * the cache is created, as long as they are still within their time to live and grace period. Only the JWKS of a
+ * {@link UrlJwkProvider} can be saved, as other providers can't list their keys.
+ */
+class JwksCache implements JwkProvider {
+
+    // ConcurrentHashMap doesn't accept null keys, used when the JWKS holds a single key without id
+    private static final String NO_KEY_ID = "";
+    // Bounds the memory used by the ids of absent or recently fetched keys, which are chosen by the sender of the token
+    private static final int MAX_ABSENT_KEYS = 1024;
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    private final JwkProvider provider;
+    private final long timeToLiveMillis;
+    private final long refreshAheadMillis;
+    private final long gracePeriodMillis;
+    private final long refreshRetryIntervalMillis;
+    private final long minimumFetchIntervalMillis;
+    private final long absentKeyTimeToLiveMillis;
+    private final Executor executor;
+    private final Clock clock;
+    private final MetricsListener metricsListener;
+    private final JwksSnapshot snapshot;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Long> absentKeys = new ConcurrentHashMap<>();
+    private final Object fetchLock = new Object();
+    private final AtomicBoolean refreshingAll = new AtomicBoolean();
+    // Guarded by fetchLock. When the whole JWKS is fetched
+    private long nextFetchAllMillis;
+    // Guarded by fetchLock. When each key can be fetched again, if the provider can't list its keys
+    private final Map<String, Long> nextFetchMillis = new HashMap<>();
+
+    JwksCache(JwkProvider provider, JwksCacheConfig config, Clock clock, MetricsListener metricsListener) {
+        Validate.notNull(provider);
+        Validate.notNull(config);
+        Validate.notNull(clock);
+        this.provider = provider;
+        this.timeToLiveMillis = config.getTimeToLiveMillis();
+        this.refreshAheadMillis = config.getRefreshAheadMillis();
+        this.gracePeriodMillis = config.getGracePeriodMillis();
+        this.refreshRetryIntervalMillis = config.getRefreshRetryIntervalMillis();
+        this.minimumFetchIntervalMillis = config.getMinimumFetchIntervalMillis();
+        this.absentKeyTimeToLiveMillis = config.getAbsentKeyTimeToLiveMillis();
+        this.executor = config.getExecutor() != null ? config.getExecutor() : RefreshThread.EXECUTOR;
+        this.clock = clock;
+        this.metricsListener = metricsListener;
+        this.snapshot = config.getSnapshotFile() != null && provider instanceof UrlJwkProvider ? new JwksSnapshot(config.getSnapshotFile()) : null;
+        loadSnapshot();
+    }
+
+    private void loadSnapshot() {
+        JwksSnapshot.Loaded loaded = snapshot != null ? snapshot.read() : null;
+        long now = clock.currentTimeMillis();
+        // A snapshot from the future can't be trusted to expire
+        if (loaded == null || loaded.fetchedAtMillis > now || now >= loaded.fetchedAtMillis + timeToLiveMillis + gracePeriodMillis) {
+            return;
+        }
+        for (Jwk jwk : loaded.jwks) {
+            if (jwk.getId() != null) {
+                entries.put(jwk.getId(), new Entry(jwk, loaded.fetchedAtMillis + timeToLiveMillis));
+            }
+        }
+        if (loaded.jwks.size() == 1) {
+            entries.put(NO_KEY_ID, new Entry(loaded.jwks.get(0), loaded.fetchedAtMillis + timeToLiveMillis));
+        }
+    }
+
+    @Override
+    public Jwk get(String keyId) throws JwkException {
+        Entry entry = entries.get(mapKey(keyId));
+        long now = clock.currentTimeMillis();
+        if (isUsable(entry, now)) {
+            if (now >= entry.expiresAtMillis - refreshAheadMillis && now >= entry.retryAtMillis) {
+                refreshInBackground(keyId, entry);
+            }
+            reportLookup(true);
+            return entry.jwk;
+        }
+        if (isAbsent(keyId, now)) {
+            reportLookup(true);
+            throw new SigningKeyNotFoundException("No key found for kid " + keyId + " in the JWKS", null);
+        }
+        return fetchMissing(keyId);
+    }
+
+    /**
+     * Fetches a key missing from the cache while the caller waits. Callers missing a key while a fetch is in progress
+     * wait for it and use its result instead of fetching again.
+     */
+    private Jwk fetchMissing(String keyId) throws JwkException {
+        synchronized (fetchLock) {
+            long now = clock.currentTimeMillis();
+            Entry entry = entries.get(mapKey(keyId));
+            if (isUsable(entry, now)) {
+                reportLookup(true);
+                return entry.jwk;
+            }
+            if (isAbsent(keyId, now)) {
+                reportLookup(true);
+                throw new SigningKeyNotFoundException("No key found for kid " + keyId + " in the JWKS", null);
+            }
+            boolean fetchesAll = provider instanceof UrlJwkProvider;
+            if (fetchesAll && now < nextFetchAllMillis) {
+                reportLookup(true);
+                throw new SigningKeyNotFoundException("No key found for kid " + keyId + ", the JWKS was fetched less than " + minimumFetchIntervalMillis + " ms ago", null);
+            }
+            Long nextKeyFetchMillis = fetchesAll ? null : nextFetchMillis.get(mapKey(keyId));
+            if (nextKeyFetchMillis != null && now < nextKeyFetchMillis) {
+                reportLookup(true);
+                throw new SigningKeyNotFoundException("No key found for kid " + keyId + ", it was fetched less than " + minimumFetchIntervalMillis + " ms ago", null);
+            }
+            // Failed fetches count too, so that an unreachable JWKS isn't fetched again on every callback
+            if (fetchesAll) {
+                nextFetchAllMillis = now + minimumFetchIntervalMillis;
+            } else {
+                if (nextFetchMillis.size() >= MAX_ABSENT_KEYS) {
+                    nextFetchMillis.clear();
+                }
+                nextFetchMillis.put(mapKey(keyId), now + minimumFetchIntervalMillis);
+            }
+            reportLookup(false);
+            try {
+                return fetchesAll ? fetchAll(keyId, (UrlJwkProvider) provider) : fetch(keyId);
+            } catch (JwkException e) {
+                // Only a JWKS fetched without the key tells it's absent, a network failure is retried after the interval
+                if (isKeyMissing(e)) {
+                    if (absentKeys.size() >= MAX_ABSENT_KEYS) {
+                        absentKeys.clear();
+                    }
+                    absentKeys.put(mapKey(keyId), now + absentKeyTimeToLiveMillis);
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Fetches the key, and keeps it.
+     */
+    Jwk fetch(String keyId) throws JwkException {
+        Jwk jwk = provider.get(keyId);
+        entries.put(mapKey(keyId), new Entry(jwk, clock.currentTimeMillis() + timeToLiveMillis));
+        absentKeys.remove(mapKey(keyId));
+        return jwk;
+    }
+
+    /**
+     * Fetches the JWKS once and keeps every key in it, so that a key added to the JWKS is found even when the fetch
+     * was caused by another, unknown, key id. Picks the key like {@link UrlJwkProvider#get(String)}.
+     */
+    private Jwk fetchAll(String keyId, UrlJwkProvider provider) throws JwkException {
+        List<Jwk> jwks = provider.getAll();
+        keepAll(jwks);
+        Jwk found = null;
+        for (Jwk jwk : jwks) {
+            if (keyId != null && keyId.equals(jwk.getId())) {
+                found = jwk;
+            }
+        }
+        if (keyId == null && jwks.size() == 1) {
+            found = jwks.get(0);
+        }
+        if (found == null) {
+            throw new SigningKeyNotFoundException("No key found for kid " + keyId + " in the JWKS", null);
+        }
+        entries.put(mapKey(keyId), new Entry(found, clock.currentTimeMillis() + timeToLiveMillis));
+        return found;
+    }
+
+    /**
+     * Fetches every key of the JWKS and keeps them, like when warming up.
+     *
+     * @return the keys, or null if the provider can't list its keys.
+     * @throws JwkException if the JWKS can't be fetched.
+     */
+    List<Jwk> fetchAll() throws JwkException {
+        if (!(provider instanceof UrlJwkProvider)) {
+            return null;
+        }
+        synchronized (fetchLock) {
+            nextFetchAllMillis = clock.currentTimeMillis() + minimumFetchIntervalMillis;
+            List<Jwk> jwks = ((UrlJwkProvider) provider).getAll();
+            keepAll(jwks);
+            return jwks;
+        }
+    }
+
+    /**
+     * Keeps every key of a JWKS just fetched, and stops serving the cached keys it doesn't hold anymore, like after a
+     * key rotation.
+     */
+    private void keepAll(final List<Jwk> jwks) {
+        final long fetchedAtMillis = clock.currentTimeMillis();
+        Set<String> keyIds = new HashSet<>();
+        for (Jwk jwk : jwks) {
+            if (jwk.getId() != null) {
+                entries.put(jwk.getId(), new Entry(jwk, fetchedAtMillis + timeToLiveMillis));
+                absentKeys.remove(jwk.getId());
+                keyIds.add(jwk.getId());
+            }
+        }
+        for (String keyId : entries.keySet()) {
+            if (!NO_KEY_ID.equals(keyId) && !keyIds.contains(keyId)) {
+                entries.remove(keyId);
+            }
+        }
+        if (jwks.size() == 1) {
+            entries.put(NO_KEY_ID, new Entry(jwks.get(0), fetchedAtMillis + timeToLiveMillis));
+        } else {
+            entries.remove(NO_KEY_ID);
+        }
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            // Written in the background, so that the caller doesn't wait for the disk
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        snapshot.write(fetchedAtMillis, jwks);
+                    } catch (IOException ignored) {
+                        // The previous snapshot is kept, and replaced after the next fetch
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // Saved after the next fetch instead
+        }
+    }
+
+    private void refreshInBackground(final String keyId, final Entry entry) {
+        // A single fetch of the JWKS refreshes every key, so the keys expiring together are refreshed at once
+        final AtomicBoolean refreshing = provider instanceof UrlJwkProvider ? refreshingAll : entry.refreshing;
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        refresh(keyId, entry);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    private void refresh(String keyId, Entry entry) {
+        try {
+            if (provider instanceof UrlJwkProvider) {
+                refreshAll((UrlJwkProvider) provider);
+            } else {
+                fetch(keyId);
+            }
+        } catch (JwkException e) {
+            if (isKeyMissing(e)) {
+                // The key was removed from the JWKS, so tokens signed with it must not be accepted anymore
+                entries.remove(mapKey(keyId), entry);
+            } else {
+                retryLater(entry);
+            }
+        } catch (RuntimeException e) {
+            retryLater(entry);
+        }
+    }
+
+    /**
+     * Fetches the JWKS again, unless it was fetched less than the minimum fetch interval ago, which already replaced
+     * the keys due for a refresh or stopped serving them.
+     */
+    private void refreshAll(UrlJwkProvider provider) throws JwkException {
+        synchronized (fetchLock) {
+            long now = clock.currentTimeMillis();
+            if (now < nextFetchAllMillis) {
+                // Fetched by a caller missing a key in the meantime. If that fetch failed, wait for the interval
+                retryAt(nextFetchAllMillis, null);
+                return;
+            }
+            nextFetchAllMillis = now + minimumFetchIntervalMillis;
+            keepAll(provider.getAll());
+        }
+    }
+
+    /**
+     * Keeps serving the current keys until the grace period ends, and tries again later.
+     */
+    private void retryLater(Entry entry) {
+        retryAt(clock.currentTimeMillis() + refreshRetryIntervalMillis, entry);
+    }
+
+    private void retryAt(long retryAtMillis, Entry entry) {
+        if (provider instanceof UrlJwkProvider) {
+            for (Entry cached : entries.values()) {
+                cached.retryAtMillis = Math.max(cached.retryAtMillis, retryAtMillis);
+            }
+        } else {
+            entry.retryAtMillis = retryAtMillis;
+        }
+    }
+
+    /**
+     * Whether the provider got the JWKS and the key isn't in it. {@link NetworkException} extends
+     * {@link SigningKeyNotFoundException}, and providers like the cached one of {@link com.auth0.jwk.JwkProviderBuilder}
+     * wrap any failure in a {@link SigningKeyNotFoundException}, so the innermost {@link JwkException} is checked.
+     */
+    static boolean isKeyMissing(JwkException exception) {
+        Throwable innermost = exception;
+        for (Throwable cause = exception.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof JwkException) {
+                innermost = cause;
+            }
+        }
+        return innermost instanceof SigningKeyNotFoundException && !(innermost instanceof NetworkException);
+    }
+
+    private boolean isUsable(Entry entry, long now) {
+        return entry != null && now < entry.expiresAtMillis + gracePeriodMillis;
+    }
+
+    private boolean isAbsent(String keyId, long now) {
+        Long absentUntilMillis = absentKeys.get(mapKey(keyId));
+        return absentUntilMillis != null && now < absentUntilMillis;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void reportLookup(boolean hit) {
+        if (metricsListener != null) {
+            metricsListener.onCacheLookup(MetricsListener.Cache.JWKS, hit);
+        }
+    }
+
+    private static String mapKey(String keyId) {
+        return keyId == null ? NO_KEY_ID : keyId;
+    }
+
+    private static final class Entry {
+        final Jwk jwk;
+        final long expiresAtMillis;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+        volatile long retryAtMillis;
+
+        Entry(Jwk jwk, long expiresAtMillis) {
+            this.jwk = jwk;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * The daemon thread that runs the refreshes of the caches configured without an executor, created on first use.
+     * It ends once idle for a while and doesn't keep the context class loader of the thread that started it, so that
+     * it doesn't keep a web application's class loader once the application is undeployed.
+     */
+    private static final class RefreshThread {
+        static final ExecutorService EXECUTOR = newExecutor();
+
+        private static ExecutorService newExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "auth0-jwks-refresh");
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(null);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.auth0;
+
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settings of the cache of the signing keys used to verify RS256, PS256 and ES256 ID Tokens.
+ * <p>
+ * A key is kept for its time to live once fetched. When it's looked up during the last part of that time, the refresh
+ * ahead window, the cached key is returned right away and a fresh copy is fetched in the background. When that fetch
+ * fails, like while Auth0 is unreachable, the last fetched key keeps being served up to the grace period after it
+ * expired, and the fetch is retried in the background. Only a key never fetched before, or expired for longer than the
+ * grace period, is fetched while the login callback waits.
+ * <p>
+ * Those fetches are made by one caller at a time, and at most once per minimum fetch interval, so that tokens with
+ * made up key ids can't cause a JWKS fetch on each callback. A key id that the JWKS doesn't hold is rejected without
+ * fetching again for the absent key time to live.
+ * <p>
+ * With a snapshot file, the keys fetched from the JWKS of the Auth0 domain are also saved to disk, and loaded on the
+ * next start, so that ID Tokens can be verified right away even while the JWKS can't be fetched. Saved keys are only
+ * used up to the end of their grace period, counted from the time they were fetched.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class JwksCacheConfig {
+
+    private final long timeToLiveMillis;
+    private final long refreshAheadMillis;
+    private final long gracePeriodMillis;
+    private final long refreshRetryIntervalMillis;
+    private final long minimumFetchIntervalMillis;
+    private final long absentKeyTimeToLiveMillis;
+    private final File snapshotFile;
+    private final Executor executor;
+
+    private JwksCacheConfig(Builder builder) {
+        this.timeToLiveMillis = builder.timeToLiveMillis;
+        this.refreshAheadMillis = builder.refreshAheadMillis;
+        this.gracePeriodMillis = builder.gracePeriodMillis;
+        this.refreshRetryIntervalMillis = builder.refreshRetryIntervalMillis;
+        this.minimumFetchIntervalMillis = builder.minimumFetchIntervalMillis;
+        this.absentKeyTimeToLiveMillis = builder.absentKeyTimeToLiveMillis;
+        this.snapshotFile = builder.snapshotFile;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Create a new {@link Builder} instance with the default settings: a 10 minutes time to live, a refresh ahead
+     * window of 2 minutes, a grace period of 1 hour, a failed refresh retried after 10 seconds, missing keys fetched at
+     * most once every 5 seconds, absent key ids remembered for 1 minute, and the refreshes run on a shared daemon thread.
+     *
+     * @return a new Builder instance ready to configure
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    long getRefreshAheadMillis() {
+        return refreshAheadMillis;
+    }
+
+    long getGracePeriodMillis() {
+        return gracePeriodMillis;
+    }
+
+    long getRefreshRetryIntervalMillis() {
+        return refreshRetryIntervalMillis;
+    }
+
+    long getMinimumFetchIntervalMillis() {
+        return minimumFetchIntervalMillis;
+    }
+
+    long getAbsentKeyTimeToLiveMillis() {
+        return absentKeyTimeToLiveMillis;
+    }
+
+    File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    Executor getExecutor() {
+        return executor;
+    }
+
+    public static class Builder {
+        private long timeToLiveMillis = TimeUnit.MINUTES.toMillis(10);
+        private long refreshAheadMillis = TimeUnit.MINUTES.toMillis(2);
+        private long gracePeriodMillis = TimeUnit.HOURS.toMillis(1);
+        private long refreshRetryIntervalMillis = TimeUnit.SECONDS.toMillis(10);
+        private long minimumFetchIntervalMillis = TimeUnit.SECONDS.toMillis(5);
+        private long absentKeyTimeToLiveMillis = TimeUnit.MINUTES.toMillis(1);
+        private File snapshotFile;
+        private Executor executor;
+
+        Builder() {
+        }
+
+        /**
+         * Sets how long a fetched key is used before it expires. Default value is 10 minutes.
+         *
+         * @param duration the time to live.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withTimeToLive(long duration, TimeUnit unit) {
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.timeToLiveMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets how long before a key expires it starts being refreshed in the background. Must be shorter than the
+         * time to live. Default value is 2 minutes.
+         *
+         * @param duration the refresh ahead window.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withRefreshAhead(long duration, TimeUnit unit) {
+            Validate.isTrue(duration >= 0, "duration must not be negative");
+            Validate.notNull(unit);
+            this.refreshAheadMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets how long after a key expired it is still used while it can't be fetched again. Default value is 1 hour.
+         *
+         * @param duration the grace period.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withGracePeriod(long duration, TimeUnit unit) {
+            Validate.isTrue(duration >= 0, "duration must not be negative");
+            Validate.notNull(unit);
+            this.gracePeriodMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets how long to wait before fetching a key again after a background refresh failed. Default value is 10 seconds.
+         *
+         * @param duration the retry interval.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withRefreshRetryInterval(long duration, TimeUnit unit) {
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.refreshRetryIntervalMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the minimum time between two fetches of a key missing from the cache, like the key of a token with an
+         * unknown key id. A key looked up before that time is rejected without fetching. Default value is 5 seconds.
+         *
+         * @param duration the minimum fetch interval.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withMinimumFetchInterval(long duration, TimeUnit unit) {
+            Validate.isTrue(duration >= 0, "duration must not be negative");
+            Validate.notNull(unit);
+            this.minimumFetchIntervalMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets how long a key id that the JWKS doesn't hold is rejected without fetching again. Default value is 1 minute.
+         *
+         * @param duration the absent key time to live.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withAbsentKeyTimeToLive(long duration, TimeUnit unit) {
+            Validate.isTrue(duration >= 0, "duration must not be negative");
+            Validate.notNull(unit);
+            this.absentKeyTimeToLiveMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the file to save the JWKS to after each fetch, and to load the keys from when the cache is created. The
+         * file is replaced atomically, by writing a new file in the same directory and renaming it. Only used when the
+         * keys are fetched from the JWKS of the Auth0 domain, not with a custom {@link com.auth0.jwk.JwkProvider}. By
+         * default no snapshot is saved.
+         *
+         * @param snapshotFile the file to save the JWKS to. Its directory must exist and be writable.
+         * @return this same builder instance.
+         */
+        public Builder withSnapshotFile(File snapshotFile) {
+            Validate.notNull(snapshotFile);
+            this.snapshotFile = snapshotFile;
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs the background refreshes. By default they run on a daemon thread shared by
+         * every cache, which ends after a minute without refresh and keeps no context class loader, so it doesn't
+         * hold on to a web application after it is undeployed. The cache never shuts down the given executor: it's up
+         * to the application, for example when its context is destroyed.
+         *
+         * @param executor the executor to use.
+         * @return this same builder instance.
+         */
+        public Builder withExecutor(Executor executor) {
+            Validate.notNull(executor);
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Create a new {@link JwksCacheConfig} instance with the configured values.
+         *
+         * @return a new instance of {@link JwksCacheConfig}.
+         * @throws IllegalArgumentException if the refresh ahead window is not shorter than the time to live.
+         */
+        public JwksCacheConfig build() {
+            Validate.isTrue(refreshAheadMillis < timeToLiveMillis, "the refresh ahead window must be shorter than the time to live");
+            return new JwksCacheConfig(this);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.auth0;
+
+import com.auth0.jwk.Jwk;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.Validate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local copy of the last fetched JWKS, so that the signing keys can be used right after a start, before the JWKS is
+ * fetched again. The file holds the keys in the JWKS format, along with the time they were fetched at. It's replaced
+ * with a rename once fully written, so that a reader never sees a partially written file.
+ * <p>
+ * The key operations ({@code key_ops}) are not kept, as they are not used to verify signatures.
+ */
+class JwksSnapshot {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String KEY_FETCHED_AT = "fetched_at";
+    private static final String KEY_KEYS = "keys";
+
+    private final File file;
+    // Guarded by this, so that a snapshot is never replaced by an older one written concurrently
+    private long writtenFetchedAtMillis = Long.MIN_VALUE;
+
+    JwksSnapshot(File file) {
+        Validate.notNull(file);
+        this.file = file;
+    }
+
+    /**
+     * Reads the snapshot.
+     *
+     * @return the snapshot, or null if the file doesn't exist or can't be read.
+     */
+    Loaded read() {
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            Map<?, ?> values = MAPPER.readValue(file, Map.class);
+            long fetchedAtMillis = ((Number) values.get(KEY_FETCHED_AT)).longValue();
+            List<Jwk> jwks = new ArrayList<>();
+            for (Object key : (List<?>) values.get(KEY_KEYS)) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> jwk = new LinkedHashMap<>((Map<String, Object>) key);
+                jwks.add(Jwk.fromValues(jwk));
+            }
+            return new Loaded(fetchedAtMillis, jwks);
+        } catch (IOException | RuntimeException e) {
+            // A corrupted or foreign file is ignored, and replaced after the next fetch
+            return null;
+        }
+    }
+
+    /**
+     * Replaces the snapshot with the given keys, unless it already holds keys fetched later.
+     *
+     * @param fetchedAtMillis the time the keys were fetched at.
+     * @param jwks            the keys.
+     * @throws IOException if the file can't be written.
+     */
+    synchronized void write(long fetchedAtMillis, List<Jwk> jwks) throws IOException {
+        if (fetchedAtMillis < writtenFetchedAtMillis) {
+            return;
+        }
+        List<Map<String, Object>> keys = new ArrayList<>();
+        for (Jwk jwk : jwks) {
+            keys.add(toValues(jwk));
+        }
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(KEY_FETCHED_AT, fetchedAtMillis);
+        values.put(KEY_KEYS, keys);
+        byte[] json = MAPPER.writeValueAsBytes(values);
+
+        // Written next to the file, as a rename is only atomic within the same file system
+        File temp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                out.write(json);
+                out.getFD().sync();
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp.toPath());
+        }
+        writtenFetchedAtMillis = fetchedAtMillis;
+    }
+
+    private static Map<String, Object> toValues(Jwk jwk) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        putIfNotNull(values, "kid", jwk.getId());
+        putIfNotNull(values, "kty", jwk.getType());
+        putIfNotNull(values, "alg", jwk.getAlgorithm());
+        putIfNotNull(values, "use", jwk.getUsage());
+        putIfNotNull(values, "x5u", jwk.getCertificateUrl());
+        putIfNotNull(values, "x5c", jwk.getCertificateChain());
+        putIfNotNull(values, "x5t", jwk.getCertificateThumbprint());
+        Map<String, Object> attributes = jwk.getAdditionalAttributes();
+        values.putAll(attributes != null ? attributes : Collections.<String, Object>emptyMap());
+        return values;
+    }
+
+    private static void putIfNotNull(Map<String, Object> values, String name, Object value) {
+        if (value != null) {
+            values.put(name, value);
+        }
+    }
+
+    static final class Loaded {
+        final long fetchedAtMillis;
+        final List<Jwk> jwks;
+
+        Loaded(long fetchedAtMillis, List<Jwk> jwks) {
+            this.fetchedAtMillis = fetchedAtMillis;
+            this.jwks = jwks;
+        }
+    }
+}
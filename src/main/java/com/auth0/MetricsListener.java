@@ -0,0 +1,114 @@
+package com.auth0;
+
+/**
+ * Listener notified with the duration and outcome of each stage of the login flow, to find out where the time of
+ * a callback goes. Calls are made synchronously on the thread that ran the stage, so implementations must be
+ * thread-safe and return quickly. When no listener is set, the stages are not timed at all.
+ * <p>
+ * This is an abstract class rather than an interface so that new callbacks can be added without breaking existing
+ * implementations. Override only the methods you need.
+ *
+ * @see HistogramMetricsListener
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public abstract class MetricsListener {
+
+    /**
+     * The timed stages of the login flow.
+     */
+    public enum Stage {
+        /**
+         * Checking the callback for an error returned by the authorization server.
+         */
+        ASSERT_NO_ERROR,
+        /**
+         * Checking the state received on the callback against the stored one.
+         */
+        ASSERT_VALID_STATE,
+        /**
+         * Looking up the nonce stored in a cookie or in the session.
+         */
+        NONCE_LOOKUP,
+        /**
+         * Exchanging the authorization code for tokens, including any retry.
+         */
+        CODE_EXCHANGE,
+        /**
+         * Decoding the ID Token and verifying its algorithm and signature.
+         */
+        SIGNATURE_VERIFICATION,
+        /**
+         * Validating the claims of the ID Token.
+         */
+        CLAIMS_VALIDATION,
+        /**
+         * Creating the Authorize URL builder, including the random state and nonce.
+         */
+        BUILD_AUTHORIZE_URL
+    }
+
+    /**
+     * The caches whose lookups are reported.
+     */
+    public enum Cache {
+        /**
+         * The ID Tokens that already passed verification, looked up when re-verifying a stored ID Token.
+         */
+        VERIFIED_ID_TOKEN,
+        /**
+         * The callbacks rejected recently, looked up before checking the state of a callback.
+         */
+        REJECTED_CALLBACK,
+        /**
+         * The ID Tokens rejected recently, looked up when verifying a stored ID Token.
+         */
+        REJECTED_ID_TOKEN,
+        /**
+         * The signing keys kept by the JWKS cache, looked up when verifying an ID Token signed with an asymmetric algorithm.
+         */
+        JWKS
+    }
+
+    /**
+     * Called after a stage completed, either successfully or by throwing an exception.
+     *
+     * @param stage         the stage that completed.
+     * @param durationNanos the duration of the stage in nanoseconds.
+     * @param success       whether the stage completed successfully.
+     */
+    public void onStageCompleted(Stage stage, long durationNanos, boolean success) {
+    }
+
+    /**
+     * Called after a cache was looked up.
+     *
+     * @param cache the cache that was looked up.
+     * @param hit   whether a valid entry was found.
+     */
+    public void onCacheLookup(Cache cache, boolean hit) {
+    }
+
+    /**
+     * Starts timing a stage.
+     *
+     * @param listener the listener to report to, or null if none is set.
+     * @return the start time to give to {@link #record(MetricsListener, Stage, long, boolean)}.
+     */
+    static long start(MetricsListener listener) {
+        return listener == null ? 0L : System.nanoTime();
+    }
+
+    /**
+     * Reports a completed stage to the given listener, if any.
+     *
+     * @param listener   the listener to report to, or null if none is set.
+     * @param stage      the stage that completed.
+     * @param startNanos the value returned by {@link #start(MetricsListener)}.
+     * @param success    whether the stage completed successfully.
+     */
+    static void record(MetricsListener listener, Stage stage, long startNanos, boolean success) {
+        if (listener != null) {
+            listener.onStageCompleted(stage, System.nanoTime() - startNanos, success);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.auth0;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.lang3.Validate;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * HS256 verification that keeps a pool of {@link Mac} instances, already initialized with the secret, instead of
+ * looking one up through the provider registry on every verification like {@link Algorithm#HMAC256(String)}. A
+ * {@link Mac} goes back to its initialized state once {@link Mac#doFinal()} returns, so it can be used again right
+ * away. Like {@link PooledSignatureAlgorithm}, the pool is not tied to the threads that use it. Only verifies
+ * signatures.
+ */
+class PooledHS256Algorithm extends Algorithm {
+
+    private static final byte JWT_PART_SEPARATOR = (byte) '.';
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final SecretKeySpec secretKey;
+    private final BlockingQueue<Mac> macs = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    PooledHS256Algorithm(String secret) {
+        super("HS256", MAC_ALGORITHM);
+        Validate.notNull(secret);
+        this.secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM);
+    }
+
+    @Override
+    public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+        String signature = jwt.getSignature();
+        byte[] signatureBytes = new byte[signature.length() / 4 * 3 + 3];
+        int signatureLength = IdTokenClaimsDecoder.decodeBase64(signature, 0, signature.length(), signatureBytes);
+        byte[] signed = Arrays.copyOf(signatureBytes, signatureLength);
+
+        byte[] expected;
+        try {
+            Mac mac = getMac();
+            mac.update(jwt.getHeader().getBytes(StandardCharsets.UTF_8));
+            mac.update(JWT_PART_SEPARATOR);
+            mac.update(jwt.getPayload().getBytes(StandardCharsets.UTF_8));
+            expected = mac.doFinal();
+            // Not returned on failure, as the instance may have been left half-way through a verification
+            macs.offer(mac);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+        if (!MessageDigest.isEqual(expected, signed)) {
+            throw new SignatureVerificationException(this);
+        }
+    }
+
+    private Mac getMac() throws GeneralSecurityException {
+        Mac mac = macs.poll();
+        if (mac == null) {
+            mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+        }
+        return mac;
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+        throw new SignatureGenerationException(this, new UnsupportedOperationException("Only verifies signatures"));
+    }
+}
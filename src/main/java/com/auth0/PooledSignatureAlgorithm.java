@@ -0,0 +1,151 @@
+package com.auth0;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.lang3.Validate;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Public key signature verification that keeps a pool of {@link Signature} instances, already initialized with the
+ * public key, instead of looking one up through the provider registry on every verification like java-jwt's
+ * {@link Algorithm} does. A {@link Signature} goes back to its initialized state once {@link Signature#verify(byte[])}
+ * returns, so it can be used again right away. Only verifies signatures.
+ * <p>
+ * The pool belongs to this instance, not to the threads that use it, so that the worker threads of a container don't
+ * keep the Bouncy Castle instances, and the class loader of the web application that loaded them, once it's
+ * undeployed. When the pool is empty a new instance is created, and one returned to a full pool is dropped.
+ * <p>
+ * Supports RS256, PS256 and ES256. PS256 is verified with the Bouncy Castle provider, as the JDK only supports
+ * RSASSA-PSS since Java 11. ES256 signatures are converted from the JWS format, the two 32 bytes integers R and S,
+ * to the DER format expected by the JDK.
+ */
+class PooledSignatureAlgorithm extends Algorithm {
+
+    private static final byte JWT_PART_SEPARATOR = (byte) '.';
+    private static final int ES256_SIGNATURE_LENGTH = 64;
+    private static final Provider BOUNCY_CASTLE = new BouncyCastleProvider();
+    // Enough for every thread verifying at once on most machines, the others create a new instance
+    private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private final String description;
+    private final PublicKey publicKey;
+    private final Provider provider;
+    private final int ecdsaSignatureLength;
+    private final BlockingQueue<Signature> signatures = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    private PooledSignatureAlgorithm(String name, String description, PublicKey publicKey, Provider provider, int ecdsaSignatureLength) {
+        super(name, description);
+        Validate.notNull(publicKey);
+        // Algorithm#getDescription() is package-private
+        this.description = description;
+        this.publicKey = publicKey;
+        this.provider = provider;
+        this.ecdsaSignatureLength = ecdsaSignatureLength;
+    }
+
+    static PooledSignatureAlgorithm rs256(RSAPublicKey publicKey) {
+        return new PooledSignatureAlgorithm("RS256", "SHA256withRSA", publicKey, null, 0);
+    }
+
+    static PooledSignatureAlgorithm ps256(RSAPublicKey publicKey) {
+        // MGF1 with SHA-256 and a 32 bytes salt, as required by RFC 7518
+        return new PooledSignatureAlgorithm("PS256", "SHA256withRSAandMGF1", publicKey, BOUNCY_CASTLE, 0);
+    }
+
+    static PooledSignatureAlgorithm es256(ECPublicKey publicKey) {
+        return new PooledSignatureAlgorithm("ES256", "SHA256withECDSA", publicKey, null, ES256_SIGNATURE_LENGTH);
+    }
+
+    @Override
+    public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+        String signature = jwt.getSignature();
+        byte[] signatureBytes = new byte[signature.length() / 4 * 3 + 3];
+        int signatureLength = IdTokenClaimsDecoder.decodeBase64(signature, 0, signature.length(), signatureBytes);
+        if (ecdsaSignatureLength != 0) {
+            if (signatureLength != ecdsaSignatureLength) {
+                throw new SignatureVerificationException(this);
+            }
+            signatureBytes = toDer(signatureBytes, signatureLength);
+            signatureLength = signatureBytes.length;
+        }
+
+        boolean valid;
+        try {
+            Signature verifier = getSignature();
+            verifier.update(jwt.getHeader().getBytes(StandardCharsets.UTF_8));
+            verifier.update(JWT_PART_SEPARATOR);
+            verifier.update(jwt.getPayload().getBytes(StandardCharsets.UTF_8));
+            valid = verifier.verify(signatureBytes, 0, signatureLength);
+            // Not returned on failure, as the instance may have been left half-way through a verification
+            signatures.offer(verifier);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            throw new SignatureVerificationException(this, e);
+        }
+        if (!valid) {
+            throw new SignatureVerificationException(this);
+        }
+    }
+
+    private Signature getSignature() throws GeneralSecurityException {
+        Signature signature = signatures.poll();
+        if (signature == null) {
+            signature = provider == null ? Signature.getInstance(description) : Signature.getInstance(description, provider);
+            signature.initVerify(publicKey);
+        }
+        return signature;
+    }
+
+    /**
+     * Converts an ECDSA signature from the JWS format, R and S as unsigned integers of the same length, to the DER
+     * sequence of two integers. Only supports signatures short enough for single byte DER lengths, like ES256 ones.
+     */
+    static byte[] toDer(byte[] jwsSignature, int length) {
+        int half = length / 2;
+        int rStart = firstSignificantByte(jwsSignature, 0, half);
+        int sStart = firstSignificantByte(jwsSignature, half, length);
+        int rLength = half - rStart + ((jwsSignature[rStart] & 0x80) != 0 ? 1 : 0);
+        int sLength = length - sStart + ((jwsSignature[sStart] & 0x80) != 0 ? 1 : 0);
+
+        byte[] der = new byte[6 + rLength + sLength];
+        int offset = 0;
+        der[offset++] = 0x30;
+        der[offset++] = (byte) (4 + rLength + sLength);
+        der[offset++] = 0x02;
+        der[offset++] = (byte) rLength;
+        // A leading zero keeps the integer positive
+        offset += rLength - (half - rStart);
+        System.arraycopy(jwsSignature, rStart, der, offset, half - rStart);
+        offset += half - rStart;
+        der[offset++] = 0x02;
+        der[offset++] = (byte) sLength;
+        offset += sLength - (length - sStart);
+        System.arraycopy(jwsSignature, sStart, der, offset, length - sStart);
+        return der;
+    }
+
+    private static int firstSignificantByte(byte[] bytes, int start, int end) {
+        int i = start;
+        // Keep at least one byte, for a zero integer
+        while (i < end - 1 && bytes[i] == 0) {
+            i++;
+        }
+        return i;
+    }
+
+    @Override
+    public byte[] sign(byte[] contentBytes) throws SignatureGenerationException {
+        throw new SignatureGenerationException(this, new UnsupportedOperationException("Only verifies signatures"));
+    }
+}
@@ -0,0 +1,131 @@
+package com.auth0;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Random values for the State and Nonce generated ahead of time, so that building an Authorize URL doesn't wait for
+ * the random generator. The random bytes are generated in the background, a buffer at a time, once half of the
+ * current buffer is used. Each value is encoded straight from the buffer, whose bytes are then cleared. When the
+ * buffer runs out before it's refilled, values are generated like without a pool.
+ */
+class RandomPool {
+
+    private static final long IDLE_TIMEOUT_SECONDS = 60;
+
+    private final int size;
+    private final Executor executor;
+    // Guarded by this
+    private byte[] buffer = new byte[0];
+    private int position;
+    private boolean refilling;
+
+    /**
+     * @param size     the number of values to keep ready.
+     * @param executor the executor that generates the random bytes, or null to use a shared daemon thread.
+     */
+    RandomPool(int size, Executor executor) {
+        Validate.isTrue(size > 0, "size must be greater than 0");
+        this.size = size;
+        this.executor = executor != null ? executor : RefillThread.EXECUTOR;
+        // Filled in the background too, so that building the controller doesn't wait for the random generator
+        scheduleRefill();
+    }
+
+    /**
+     * Getter for a new random string, like {@link StorageUtils#secureRandomString()}.
+     *
+     * @return a new random string.
+     */
+    String nextString() {
+        byte[] bytes;
+        int offset;
+        synchronized (this) {
+            if ((buffer.length - position) / StorageUtils.RANDOM_BYTES < size / 2 + 1) {
+                scheduleRefill();
+            }
+            if (position == buffer.length) {
+                bytes = null;
+                offset = 0;
+            } else {
+                bytes = buffer;
+                offset = position;
+                position += StorageUtils.RANDOM_BYTES;
+            }
+        }
+        if (bytes == null) {
+            return StorageUtils.secureRandomString();
+        }
+        // Only this caller reads this part of the buffer, even if it was replaced meanwhile
+        String value = StorageUtils.encodeBase64Url(bytes, offset, StorageUtils.RANDOM_BYTES);
+        Arrays.fill(bytes, offset, offset + StorageUtils.RANDOM_BYTES, (byte) 0);
+        return value;
+    }
+
+    private synchronized void scheduleRefill() {
+        if (refilling) {
+            return;
+        }
+        refilling = true;
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    refill();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refilling = false;
+        }
+    }
+
+    private void refill() {
+        byte[] refilled = new byte[size * StorageUtils.RANDOM_BYTES];
+        try {
+            StorageUtils.secureRandom().nextBytes(refilled);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                refilling = false;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            // The values left in the previous buffer are dropped, as the refilled buffer holds enough of them
+            Arrays.fill(buffer, position, buffer.length, (byte) 0);
+            buffer = refilled;
+            position = 0;
+            refilling = false;
+        }
+    }
+
+    /**
+     * The daemon thread that generates the random bytes of the pools created without an executor, created on first use.
+     * Like the JWKS refresh thread, it ends once idle for a while and doesn't keep the context class loader of the
+     * thread that started it, so that it doesn't keep a web application's class loader once it's undeployed.
+     */
+    static final class RefillThread {
+        static final ExecutorService EXECUTOR = newExecutor();
+
+        private static ExecutorService newExecutor() {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, IDLE_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "auth0-random-pool");
+                    thread.setDaemon(true);
+                    thread.setContextClassLoader(null);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.auth0;
+
+import com.auth0.jwk.JwkException;
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.InvalidRequestException.*;
+
+/**
+ * Bounded cache of the recent rejections, so that a callback or an ID Token replayed after being rejected, like a bad
+ * callback URL replayed by a bot, is rejected again with the same error without repeating the token decoding.
+ * <p>
+ * Entries are keyed by a 128 bit prefix of the SHA-256 hash of the rejected values and kept for a fixed time. The
+ * memory is allocated upfront: the slots are split in segments, each guarded by its own lock, and a key can only be
+ * stored in the two slots of its bucket. When both are taken, the entry closest to expiring is replaced, so an entry
+ * can be evicted before its time when the cache is full.
+ * <p>
+ * Only the rejections that would happen again for the same values are kept: a missing token or an invalid ID Token.
+ * An invalid state or nonce is not kept, as it depends on the values stored for the login request, not only on the
+ * callback parameters, and the same callback could be valid for the browser that started the login. An ID Token
+ * rejected because the signing key could not be obtained is not kept either, as the key lookup may succeed on a
+ * later attempt.
+ */
+class RejectionCache {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final int WAYS = 2;
+
+    private final Segment[] segments;
+    private final int bucketsPerSegment;
+    private final long ttlMillis;
+    private final MetricsListener.Cache cache;
+    private final Clock clock;
+    private final MetricsListener metricsListener;
+
+    RejectionCache(int maxSize, long ttl, TimeUnit unit, MetricsListener.Cache cache, Clock clock, MetricsListener metricsListener) {
+        Validate.isTrue(maxSize > 0, "maxSize must be greater than 0");
+        Validate.isTrue(ttl > 0, "ttl must be greater than 0");
+        Validate.notNull(unit);
+        Validate.notNull(cache);
+        Validate.notNull(clock);
+        this.bucketsPerSegment = Math.max(1, (maxSize + SEGMENT_COUNT * WAYS - 1) / (SEGMENT_COUNT * WAYS));
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(bucketsPerSegment * WAYS);
+        }
+        this.ttlMillis = Math.max(1, unit.toMillis(ttl));
+        this.cache = cache;
+        this.clock = clock;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Looks up a recent rejection of the given key.
+     *
+     * @param key the hash of the rejected values.
+     * @return the rejection, or null if the key was not rejected recently.
+     */
+    Rejection get(TokenHash key) {
+        long high = key.high();
+        long low = key.low();
+        Segment segment = segmentFor(high);
+        int first = slotFor(low);
+        long now = clock.currentTimeMillis();
+        Rejection rejection = null;
+        synchronized (segment) {
+            for (int slot = first; slot < first + WAYS; slot++) {
+                if (segment.rejections[slot] != null && segment.highs[slot] == high && segment.lows[slot] == low) {
+                    if (now < segment.expiresAtMillis[slot]) {
+                        rejection = segment.rejections[slot];
+                    } else {
+                        segment.rejections[slot] = null;
+                    }
+                    break;
+                }
+            }
+        }
+        if (metricsListener != null) {
+            metricsListener.onCacheLookup(cache, rejection != null);
+        }
+        return rejection;
+    }
+
+    /**
+     * Keeps the given rejection, if it would happen again for the same key.
+     *
+     * @param key       the hash of the rejected values.
+     * @param exception the exception thrown for the rejection.
+     */
+    void put(TokenHash key, IdentityVerificationException exception) {
+        Rejection rejection = Rejection.of(exception);
+        if (rejection == null) {
+            return;
+        }
+        long high = key.high();
+        long low = key.low();
+        Segment segment = segmentFor(high);
+        int first = slotFor(low);
+        long now = clock.currentTimeMillis();
+        synchronized (segment) {
+            int target = -1;
+            for (int slot = first; slot < first + WAYS && target == -1; slot++) {
+                if (segment.rejections[slot] != null && segment.highs[slot] == high && segment.lows[slot] == low) {
+                    target = slot;
+                }
+            }
+            for (int slot = first; slot < first + WAYS && target == -1; slot++) {
+                if (segment.rejections[slot] == null) {
+                    target = slot;
+                }
+            }
+            if (target == -1) {
+                // Replace the entry closest to expiring, which is any already expired one
+                target = first;
+                for (int slot = first + 1; slot < first + WAYS; slot++) {
+                    if (segment.expiresAtMillis[slot] < segment.expiresAtMillis[target]) {
+                        target = slot;
+                    }
+                }
+            }
+            segment.highs[target] = high;
+            segment.lows[target] = low;
+            segment.expiresAtMillis[target] = now + ttlMillis;
+            segment.rejections[target] = rejection;
+        }
+    }
+
+    /**
+     * @return the number of kept rejections, including the expired ones not replaced yet.
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (Rejection rejection : segment.rejections) {
+                    if (rejection != null) {
+                        size++;
+                    }
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the maximum number of rejections that can be kept.
+     */
+    int capacity() {
+        return SEGMENT_COUNT * bucketsPerSegment * WAYS;
+    }
+
+    private Segment segmentFor(long high) {
+        return segments[(int) (high >>> 60) & (SEGMENT_COUNT - 1)];
+    }
+
+    private int slotFor(long low) {
+        return (int) ((low & Long.MAX_VALUE) % bucketsPerSegment) * WAYS;
+    }
+
+    private static final class Segment {
+        final long[] highs;
+        final long[] lows;
+        final long[] expiresAtMillis;
+        final Rejection[] rejections;
+
+        Segment(int slots) {
+            this.highs = new long[slots];
+            this.lows = new long[slots];
+            this.expiresAtMillis = new long[slots];
+            this.rejections = new Rejection[slots];
+        }
+    }
+
+    /**
+     * The error of a rejection, from which an equivalent exception is created each time the rejection is served.
+     */
+    static final class Rejection {
+        private final String code;
+        private final String message;
+        private final String causeMessage;
+        private final boolean invalidRequest;
+
+        private Rejection(String code, String message, String causeMessage, boolean invalidRequest) {
+            this.code = code;
+            this.message = message;
+            this.causeMessage = causeMessage;
+            this.invalidRequest = invalidRequest;
+        }
+
+        /**
+         * @param exception the exception thrown for a rejection.
+         * @return the rejection, or null if it may not happen again for the same values.
+         */
+        static Rejection of(IdentityVerificationException exception) {
+            String code = exception.getCode();
+            if (MISSING_ID_TOKEN.equals(code) || MISSING_ACCESS_TOKEN.equals(code)) {
+                return new Rejection(code, exception.getMessage(), null, exception instanceof InvalidRequestException);
+            }
+            Throwable cause = exception.getCause();
+            if (JWT_VERIFICATION_ERROR.equals(code) && cause instanceof TokenValidationException
+                    && !(cause instanceof ClaimValidationPlan.NonceMismatchException) && !(cause.getCause() instanceof JwkException)) {
+                return new Rejection(code, exception.getMessage(), cause.getMessage(), false);
+            }
+            return null;
+        }
+
+        String getCode() {
+            return code;
+        }
+
+        /**
+         * Creates an exception with the same code and message as the one originally thrown. The cause of an invalid
+         * ID Token is recreated with the original message only.
+         *
+         * @param stackTraces whether the exception captures its stack trace.
+         * @return the exception to throw.
+         */
+        IdentityVerificationException toException(boolean stackTraces) {
+            if (invalidRequest) {
+                return new InvalidRequestException(code, message, stackTraces);
+            }
+            TokenValidationException cause = causeMessage == null ? null : new TokenValidationException(causeMessage, null, stackTraces);
+            return new IdentityVerificationException(code, message, cause, stackTraces);
+        }
+    }
+}
@@ -1,15 +1,25 @@
 package com.auth0;
 
 import com.auth0.client.auth.AuthAPI;
+import com.auth0.exception.APIException;
 import com.auth0.exception.Auth0Exception;
 import com.auth0.json.auth.TokenHolder;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.lang3.Validate;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.auth0.InvalidRequestException.*;
 
@@ -31,6 +41,7 @@ class RequestProcessor {
     private static final String KEY_RESPONSE_MODE = "response_mode";
     private static final String KEY_FORM_POST = "form_post";
     private static final String KEY_MAX_AGE = "max_age";
+    private static final int BATCH_CHUNK_SIZE = 32;
 
     // Visible for testing
     final IdTokenVerifier.Options verifyOptions;
@@ -38,6 +49,16 @@ class RequestProcessor {
     private final AuthAPI client;
     private final IdTokenVerifier tokenVerifier;
     private final boolean useLegacySameSiteCookie;
+    private CircuitBreaker circuitBreaker;
+    private RetryPolicy retryPolicy;
+    private CodeExchangeSingleFlight singleFlight;
+    private Executor codeExchangeExecutor;
+    private MetricsListener metricsListener;
+    private VerifiedIdTokenCache verifiedIdTokenCache;
+    private RejectionCache rejectedCallbackCache;
+    private RejectionCache rejectedIdTokenCache;
+    private boolean errorStackTraces = true;
+    private RandomPool randomPool;
 
     @VisibleForTesting
     RequestProcessor(AuthAPI client, String responseType, IdTokenVerifier.Options verifyOptions, IdTokenVerifier tokenVerifier, boolean useLegacySameSiteCookie) {
@@ -60,6 +81,241 @@ class RequestProcessor {
         this(client, responseType, verifyOptions, new IdTokenVerifier(), useLegacySameSiteCookie);
     }
 
+    /**
+     * Sets the circuit breaker that guards the Code Exchange request. Must be called before the instance is shared.
+     *
+     * @param circuitBreaker the circuit breaker to use, or null to always send the request.
+     */
+    void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Sets the policy used to retry the Code Exchange request on transient failures. Must be called before the instance is shared.
+     *
+     * @param retryPolicy the retry policy to use, or null to never retry the request.
+     */
+    void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+
+    /**
+     * Sets the single-flight that de-duplicates concurrent Code Exchange requests for the same authorization code. Must be called before the instance is shared.
+     *
+     * @param singleFlight the single-flight to use, or null to send a request on every callback.
+     */
+    void setSingleFlight(CodeExchangeSingleFlight singleFlight) {
+        this.singleFlight = singleFlight;
+    }
+
+    /**
+     * Sets the executor used to run the Code Exchange of the Hybrid flow while the front-channel ID Token is verified. Must be called before the instance is shared.
+     *
+     * @param codeExchangeExecutor the executor to use, or null to verify the ID Token before exchanging the code.
+     */
+    void setCodeExchangeExecutor(Executor codeExchangeExecutor) {
+        this.codeExchangeExecutor = codeExchangeExecutor;
+    }
+
+    /**
+     * Sets the listener to report the timings of each stage to. Must be called before the instance is shared.
+     *
+     * @param metricsListener the listener to use, or null to not time the stages.
+     */
+    void setMetricsListener(MetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the cache of the ID Tokens that already passed {@link #verifyIdToken(String)}. Must be called before the instance is shared.
+     *
+     * @param verifiedIdTokenCache the cache to use, or null to fully verify the ID Token every time.
+     */
+    void setVerifiedIdTokenCache(VerifiedIdTokenCache verifiedIdTokenCache) {
+        this.verifiedIdTokenCache = verifiedIdTokenCache;
+    }
+
+    /**
+     * Sets the caches of the recently rejected callbacks and ID Tokens, used to reject them again without repeating
+     * the checks. Must be called before the instance is shared.
+     *
+     * @param rejectedCallbackCache the cache of the rejected callbacks, or null to check every callback.
+     * @param rejectedIdTokenCache  the cache of the ID Tokens rejected by {@link #verifyIdToken(String)}, or null to verify every ID Token.
+     */
+    void setRejectionCaches(RejectionCache rejectedCallbackCache, RejectionCache rejectedIdTokenCache) {
+        this.rejectedCallbackCache = rejectedCallbackCache;
+        this.rejectedIdTokenCache = rejectedIdTokenCache;
+    }
+
+    /**
+     * Sets whether the exceptions thrown when a callback is rejected capture their stack trace. Must be called before the instance is shared.
+     *
+     * @param errorStackTraces false to skip the stack traces.
+     */
+    void setErrorStackTraces(boolean errorStackTraces) {
+        this.errorStackTraces = errorStackTraces;
+    }
+
+    /**
+     * Sets the pool of random values to create the State and Nonce from. Must be called before the instance is shared.
+     *
+     * @param randomPool the pool to use, or null to generate each value when needed.
+     */
+    void setRandomPool(RandomPool randomPool) {
+        this.randomPool = randomPool;
+    }
+
+    RandomPool getRandomPool() {
+        return randomPool;
+    }
+
+    /**
+     * Verifies an ID Token obtained on a previous login, without checking its nonce. A token found in the
+     * verified tokens cache is not verified again, and a token found in the rejected tokens cache is rejected again
+     * with the same error.
+     *
+     * @param idToken the ID Token to verify.
+     * @return the verified ID Token.
+     * @throws IdentityVerificationException if the ID Token is not valid anymore, or never was.
+     * @throws IllegalStateException         if the ID Token signature can't be verified with the current configuration.
+     */
+    DecodedJWT verifyIdToken(String idToken) throws IdentityVerificationException {
+        checkSignatureVerifier();
+        if (verifiedIdTokenCache != null) {
+            DecodedJWT cached = verifiedIdTokenCache.get(idToken);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        TokenHash rejectionKey = null;
+        if (rejectedIdTokenCache != null) {
+            rejectionKey = TokenHash.of(idToken);
+            RejectionCache.Rejection rejection = rejectedIdTokenCache.get(rejectionKey);
+            if (rejection != null) {
+                throw rejection.toException(errorStackTraces);
+            }
+        }
+        DecodedJWT decoded;
+        try {
+            decoded = tokenVerifier.decodeAndVerify(idToken, verifyOptions, null);
+        } catch (TokenValidationException e) {
+            IdentityVerificationException exception = new IdentityVerificationException(JWT_VERIFICATION_ERROR, "An error occurred while trying to verify the ID Token.", e, errorStackTraces);
+            if (rejectionKey != null) {
+                rejectedIdTokenCache.put(rejectionKey, exception);
+            }
+            throw exception;
+        }
+        if (verifiedIdTokenCache != null) {
+            verifiedIdTokenCache.put(idToken, decoded);
+        }
+        return decoded;
+    }
+
+    /**
+     * An ID Token read back from the session or the client was not received straight from the token endpoint, so its
+     * signature must be checked before trusting its claims. The verifier used for the Code Exchange without a
+     * JwkProvider only checks the algorithm name, which is not enough here.
+     */
+    private void checkSignatureVerifier() {
+        if (verifyOptions.verifier instanceof AlgorithmNameVerifier) {
+            throw new IllegalStateException("The ID Token signature can't be verified: set a JwkProvider with withJwkProvider or withJwksCache to verify stored ID Tokens.");
+        }
+    }
+
+    /**
+     * Warms up the ID Token verification and the connection used by the Code Exchange request.
+     *
+     * @param timeoutMillis how long to wait for the warm-up to end.
+     * @return the outcome and duration of each step.
+     * @throws InterruptedException if interrupted while waiting for the warm-up.
+     */
+    WarmUpReport warmUp(long timeoutMillis) throws InterruptedException {
+        return new WarmUp(client, verifyOptions).run(timeoutMillis);
+    }
+
+    /**
+     * Verifies a batch of ID Tokens obtained on previous logins, like {@link #verifyIdToken(String)} does for each one,
+     * but without using the verified and rejected tokens caches, so that a large batch does not evict the entries of
+     * the tokens in use. The tokens are split in chunks verified on the given executor, and the signing key of the
+     * tokens sharing the same key id is only looked up once. The calling thread verifies the chunks the executor has not
+     * started yet, including the ones it rejects, so it never waits on a chunk queued behind it in the same executor.
+     *
+     * @param idTokens the ID Tokens to verify.
+     * @param executor the executor that runs the verification of the chunks.
+     * @return the result of each ID Token, in the same order.
+     * @throws InterruptedException if interrupted while waiting for the chunks to be verified.
+     * @throws IllegalStateException if the ID Token signature can't be verified with the current configuration.
+     */
+    List<IdTokenVerificationResult> verifyIdTokens(Iterable<String> idTokens, Executor executor) throws InterruptedException {
+        checkSignatureVerifier();
+        final List<String> tokens = new ArrayList<>();
+        for (String idToken : idTokens) {
+            tokens.add(idToken);
+        }
+        final IdTokenVerificationResult[] results = new IdTokenVerificationResult[tokens.size()];
+        final SignatureVerifier.BatchVerifiers batch = new SignatureVerifier.BatchVerifiers();
+
+        List<FutureTask<Void>> chunks = new ArrayList<>();
+        for (int from = 0; from < tokens.size(); from += BATCH_CHUNK_SIZE) {
+            final int chunkFrom = from;
+            final int chunkTo = Math.min(from + BATCH_CHUNK_SIZE, tokens.size());
+            FutureTask<Void> chunk = new FutureTask<>(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = chunkFrom; i < chunkTo; i++) {
+                        results[i] = verifyBatchedIdToken(tokens.get(i), batch);
+                    }
+                }
+            }, null);
+            chunks.add(chunk);
+            try {
+                executor.execute(chunk);
+            } catch (RejectedExecutionException e) {
+                chunk.run();
+            }
+        }
+        // A chunk already started or done is not run again. When called from a worker of the executor, this also
+        // verifies the chunks that would otherwise wait for this thread to be free.
+        for (FutureTask<Void> chunk : chunks) {
+            chunk.run();
+        }
+        try {
+            for (FutureTask<Void> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            for (FutureTask<Void> chunk : chunks) {
+                chunk.cancel(false);
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    private IdTokenVerificationResult verifyBatchedIdToken(String idToken, SignatureVerifier.BatchVerifiers batch) {
+        try {
+            return new IdTokenVerificationResult(idToken, tokenVerifier.decodeAndVerify(idToken, verifyOptions, null, batch), null);
+        } catch (TokenValidationException e) {
+            return new IdTokenVerificationResult(idToken, null, new IdentityVerificationException(JWT_VERIFICATION_ERROR, "An error occurred while trying to verify the ID Token.", e, errorStackTraces));
+        } catch (RuntimeException e) {
+            // Only this token is rejected, instead of failing its whole chunk and the batch with it
+            return new IdTokenVerificationResult(idToken, null, new IdentityVerificationException(UNEXPECTED_ERROR, "An unexpected error occurred while trying to verify the ID Token.", e, errorStackTraces));
+        }
+    }
+
     /**
      * Getter for the AuthAPI client instance.
      * Used to customize options such as Telemetry and Logging.
@@ -83,15 +339,23 @@ class RequestProcessor {
     AuthorizeUrl buildAuthorizeUrl(HttpServletRequest request, HttpServletResponse response, String redirectUri,
                                    String state, String nonce) {
 
-        AuthorizeUrl creator = new AuthorizeUrl(client, request, response, redirectUri, responseType)
-                .withState(state);
+        Object event = FlightRecorderEvents.beginAuthorizeUrlBuild(responseType);
+        String outcome = FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR;
+        try {
+            AuthorizeUrl creator = new AuthorizeUrl(client, request, response, redirectUri, responseType)
+                    .withState(state);
 
-        // null response means state and nonce will be stored in session, so legacy cookie flag does not apply
-        if (response != null) {
-            creator.withLegacySameSiteCookie(useLegacySameSiteCookie);
-        }
+            // null response means state and nonce will be stored in session, so legacy cookie flag does not apply
+            if (response != null) {
+                creator.withLegacySameSiteCookie(useLegacySameSiteCookie);
+            }
 
-        return getAuthorizeUrl(nonce, creator);
+            AuthorizeUrl authorizeUrl = getAuthorizeUrl(nonce, creator);
+            outcome = FlightRecorderEvents.OUTCOME_SUCCESS;
+            return authorizeUrl;
+        } finally {
+            FlightRecorderEvents.end(event, outcome);
+        }
     }
 
     /**
@@ -106,35 +370,210 @@ class RequestProcessor {
      * @throws IdentityVerificationException if an error occurred while processing the request
      */
     Tokens process(HttpServletRequest request, HttpServletResponse response) throws IdentityVerificationException {
-        assertNoError(request);
-        assertValidState(request, response);
+        Object event = FlightRecorderEvents.beginCallbackProcess(responseType);
+        return complete(validate(request, response, event), event);
+    }
+
+    /**
+     * Asynchronous version of {@link #process(HttpServletRequest, HttpServletResponse)}.
+     * The request is validated on the calling thread, while the Code Exchange and the ID Token verification run on
+     * the given executor. The request and response are not used after this method returns.
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response, or null if the state and nonce were stored in the Session.
+     * @param executor the executor that will run the Code Exchange and the ID Token verification.
+     * @param callback the callback to notify once the tokens are obtained or an error occurs. Can be null.
+     * @return a future that completes with the verified tokens, or fails with an {@link IdentityVerificationException},
+     * with the {@code a0.unexpected_error} code when the request can't be parsed or the executor rejects the task.
+     */
+    Future<Tokens> processAsync(HttpServletRequest request, HttpServletResponse response, Executor executor, AuthenticationCallback callback) {
+        final Object event = FlightRecorderEvents.beginCallbackProcess(responseType);
+        final ValidatedRequest validatedRequest;
+        try {
+            validatedRequest = validate(request, response, event);
+        } catch (final IdentityVerificationException | RuntimeException e) {
+            // RuntimeExceptions, like for an invalid expires_in parameter, are wrapped by the future
+            CallbackFuture failed = new CallbackFuture(new Callable<Tokens>() {
+                @Override
+                public Tokens call() throws Exception {
+                    throw e;
+                }
+            }, callback);
+            failed.run();
+            return failed;
+        }
+
+        CallbackFuture future = new CallbackFuture(new Callable<Tokens>() {
+            @Override
+            public Tokens call() throws IdentityVerificationException {
+                return complete(validatedRequest, event);
+            }
+        }, callback);
+        try {
+            executor.execute(future);
+        } catch (RuntimeException e) {
+            // Like a RejectedExecutionException from a saturated or shut down executor
+            FlightRecorderEvents.end(event, FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR);
+            future.fail(e);
+        }
+        return future;
+    }
+
+    /**
+     * Runs {@link #validate(HttpServletRequest, HttpServletResponse)}, ending the callback event if the request is not valid.
+     */
+    private ValidatedRequest validate(HttpServletRequest request, HttpServletResponse response, Object event) throws IdentityVerificationException {
+        String outcome = FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR;
+        boolean valid = false;
+        try {
+            ValidatedRequest validatedRequest = validate(request, response);
+            valid = true;
+            return validatedRequest;
+        } catch (IdentityVerificationException e) {
+            outcome = e.getCode();
+            throw e;
+        } finally {
+            if (!valid) {
+                FlightRecorderEvents.end(event, outcome);
+            }
+        }
+    }
+
+    /**
+     * Runs {@link #complete(ValidatedRequest)}, ending the callback event with its outcome.
+     */
+    private Tokens complete(ValidatedRequest validatedRequest, Object event) throws IdentityVerificationException {
+        String outcome = FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR;
+        try {
+            Tokens tokens = complete(validatedRequest);
+            outcome = FlightRecorderEvents.OUTCOME_SUCCESS;
+            return tokens;
+        } catch (IdentityVerificationException e) {
+            outcome = e.getCode();
+            throw e;
+        } finally {
+            FlightRecorderEvents.end(event, outcome);
+        }
+    }
+
+    /**
+     * Runs every check that needs access to the HTTP request: errors, state, front-channel tokens and the stored nonce.
+     * A callback found in the rejected callbacks cache is rejected again with the same error, right after the error check.
+     *
+     * @param request  the HTTP request
+     * @param response the HTTP response, or null if the state and nonce were stored in the Session.
+     * @return the values required to finish processing the request.
+     * @throws IdentityVerificationException if the request is not valid
+     */
+    private ValidatedRequest validate(HttpServletRequest request, HttpServletResponse response) throws IdentityVerificationException {
+        long start = MetricsListener.start(metricsListener);
+        boolean success = false;
+        try {
+            assertNoError(request);
+            success = true;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.ASSERT_NO_ERROR, start, success);
+        }
+
+        TokenHash rejectionKey = null;
+        if (rejectedCallbackCache != null) {
+            rejectionKey = TokenHash.of(request.getParameter(KEY_STATE), request.getParameter(KEY_CODE),
+                    request.getParameter(KEY_ID_TOKEN), request.getParameter(KEY_ACCESS_TOKEN));
+            RejectionCache.Rejection rejection = rejectedCallbackCache.get(rejectionKey);
+            if (rejection != null) {
+                throw rejection.toException(errorStackTraces);
+            }
+        }
+        try {
+            return validateParameters(request, response, rejectionKey);
+        } catch (IdentityVerificationException e) {
+            if (rejectionKey != null) {
+                rejectedCallbackCache.put(rejectionKey, e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the checks of {@link #validate(HttpServletRequest, HttpServletResponse)} that follow the error check.
+     *
+     * @param request      the HTTP request
+     * @param response     the HTTP response, or null if the state and nonce were stored in the Session.
+     * @param rejectionKey the key of the callback in the rejected callbacks cache, or null if there is no such cache.
+     * @return the values required to finish processing the request.
+     * @throws IdentityVerificationException if the request is not valid
+     */
+    private ValidatedRequest validateParameters(HttpServletRequest request, HttpServletResponse response, TokenHash rejectionKey) throws IdentityVerificationException {
+        long start = MetricsListener.start(metricsListener);
+        boolean success = false;
+        try {
+            assertValidState(request, response);
+            success = true;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.ASSERT_VALID_STATE, start, success);
+        }
 
         Tokens frontChannelTokens = getFrontChannelTokens(request);
         List<String> responseTypeList = getResponseType();
 
         if (responseTypeList.contains(KEY_ID_TOKEN) && frontChannelTokens.getIdToken() == null) {
-            throw new InvalidRequestException(MISSING_ID_TOKEN, "ID Token is missing from the response.");
+            throw new InvalidRequestException(MISSING_ID_TOKEN, "ID Token is missing from the response.", errorStackTraces);
         }
         if (responseTypeList.contains(KEY_TOKEN) && frontChannelTokens.getAccessToken() == null) {
-            throw new InvalidRequestException(MISSING_ACCESS_TOKEN, "Access Token is missing from the response.");
+            throw new InvalidRequestException(MISSING_ACCESS_TOKEN, "Access Token is missing from the response.", errorStackTraces);
         }
 
         String nonce;
-        if (response != null) {
-            // Nonce dynamically set and changes on every request.
-            nonce = TransientCookieStore.getNonce(request, response, useLegacySameSiteCookie);
+        start = MetricsListener.start(metricsListener);
+        success = false;
+        try {
+            if (response != null) {
+                // Nonce dynamically set and changes on every request.
+                nonce = TransientCookieStore.getNonce(request, response, useLegacySameSiteCookie);
 
-            // Just in case the developer created the authorizeUrl that stores state/nonce in the session
-            if (nonce == null) {
+                // Just in case the developer created the authorizeUrl that stores state/nonce in the session
+                if (nonce == null) {
+                    nonce = RandomStorage.removeSessionNonce(request);
+                }
+            } else {
                 nonce = RandomStorage.removeSessionNonce(request);
             }
-        } else {
-            nonce = RandomStorage.removeSessionNonce(request);
+            success = true;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.NONCE_LOOKUP, start, success);
+        }
+
+        String authorizationCode = null;
+        String redirectUri = null;
+        String state = null;
+        if (responseTypeList.contains(KEY_CODE)) {
+            state = request.getParameter(KEY_STATE);
+            authorizationCode = request.getParameter(KEY_CODE);
+            redirectUri = request.getRequestURL().toString();
         }
 
-        verifyOptions.setNonce(nonce);
+        // The nonce is kept with the request instead of set on the shared options, as those are used by concurrent requests.
+        return new ValidatedRequest(frontChannelTokens, responseTypeList, nonce, authorizationCode, redirectUri, state, rejectionKey);
+    }
 
-        return getVerifiedTokens(request, frontChannelTokens, responseTypeList);
+    /**
+     * Obtains code request tokens (if using Code flow) and validates the ID token.
+     *
+     * @param validatedRequest the values obtained from the request
+     * @return a Tokens object that wraps the values obtained from the front-channel and/or the code request response.
+     * @throws IdentityVerificationException if the code exchange or the ID token verification failed
+     */
+    private Tokens complete(ValidatedRequest validatedRequest) throws IdentityVerificationException {
+        try {
+            return getVerifiedTokens(validatedRequest.frontChannelTokens, validatedRequest.responseTypeList,
+                    validatedRequest.nonce, validatedRequest.authorizationCode, validatedRequest.redirectUri, validatedRequest.state);
+        } catch (IdentityVerificationException e) {
+            if (validatedRequest.rejectionKey != null) {
+                // Only an invalid ID Token is kept, the Code Exchange failures are not
+                rejectedCallbackCache.put(validatedRequest.rejectionKey, e);
+            }
+            throw e;
+        }
     }
 
     static boolean requiresFormPostResponseMode(List<String> responseType) {
@@ -144,39 +583,52 @@ class RequestProcessor {
 
     /**
      * Obtains code request tokens (if using Code flow) and validates the ID token.
-     * @param request the HTTP request
      * @param frontChannelTokens the tokens obtained from the front channel
      * @param responseTypeList the reponse types
+     * @param nonce the nonce expected in the ID token for this request, or null if none was stored
+     * @param authorizationCode the code received in the request, if using Code flow
+     * @param redirectUri the redirect uri used on login request, if using Code flow
+     * @param state the state received in the request, if using Code flow
      * @return a Tokens object that wraps the values obtained from the front-channel and/or the code request response.
      * @throws IdentityVerificationException
      */
-    private Tokens getVerifiedTokens(HttpServletRequest request, Tokens frontChannelTokens, List<String> responseTypeList)
-            throws IdentityVerificationException {
+    private Tokens getVerifiedTokens(Tokens frontChannelTokens, List<String> responseTypeList, String nonce,
+                                     String authorizationCode, String redirectUri, String state) throws IdentityVerificationException {
 
-        String authorizationCode = request.getParameter(KEY_CODE);
         Tokens codeExchangeTokens = null;
+        Future<Tokens> codeExchange = null;
 
         try {
             if (responseTypeList.contains(KEY_ID_TOKEN)) {
-                // Implicit/Hybrid flow: must verify front-channel ID Token first
-                tokenVerifier.verify(frontChannelTokens.getIdToken(), verifyOptions);
+                if (responseTypeList.contains(KEY_CODE)) {
+                    // Hybrid flow: exchange the code while verifying the front-channel ID Token, if an executor is set
+                    codeExchange = startCodeExchange(authorizationCode, redirectUri, state);
+                }
+                // Implicit/Hybrid flow: the front-channel ID Token must be valid before using the code exchange result
+                tokenVerifier.verify(frontChannelTokens.getIdToken(), verifyOptions, nonce);
             }
             if (responseTypeList.contains(KEY_CODE)) {
                 // Code/Hybrid flow
-                String redirectUri = request.getRequestURL().toString();
-                codeExchangeTokens = exchangeCodeForTokens(authorizationCode, redirectUri);
+                codeExchangeTokens = codeExchange != null ? awaitCodeExchange(codeExchange) : exchangeCodeForTokens(authorizationCode, redirectUri, state);
                 if (!responseTypeList.contains(KEY_ID_TOKEN)) {
                     // If we already verified the front-channel token, don't verify it again.
                     String idTokenFromCodeExchange = codeExchangeTokens.getIdToken();
                     if (idTokenFromCodeExchange != null) {
-                        tokenVerifier.verify(idTokenFromCodeExchange, verifyOptions);
+                        tokenVerifier.verify(idTokenFromCodeExchange, verifyOptions, nonce);
                     }
                 }
             }
         } catch (TokenValidationException e) {
-            throw new IdentityVerificationException(JWT_VERIFICATION_ERROR, "An error occurred while trying to verify the ID Token.", e);
+            throw new IdentityVerificationException(JWT_VERIFICATION_ERROR, "An error occurred while trying to verify the ID Token.", e, errorStackTraces);
         } catch (Auth0Exception e) {
-            throw new IdentityVerificationException(API_ERROR, "An error occurred while exchanging the authorization code.", e);
+            throw new IdentityVerificationException(API_ERROR, "An error occurred while exchanging the authorization code.", e, errorStackTraces);
+        } finally {
+            if (codeExchange != null) {
+                // Discard the exchange if the front-channel ID Token was rejected. No-op once completed. Not
+                // interrupted, as the interrupted request would count as a failure in the circuit breaker and be
+                // shared as the outcome of the code with the retries of this callback.
+                codeExchange.cancel(false);
+            }
         }
         // Keep the front-channel ID Token and the code-exchange Access Token.
         return mergeTokens(frontChannelTokens, codeExchangeTokens);
@@ -221,7 +673,7 @@ class RequestProcessor {
         String error = request.getParameter(KEY_ERROR);
         if (error != null) {
             String errorDescription = request.getParameter(KEY_ERROR_DESCRIPTION);
-            throw new InvalidRequestException(error, errorDescription);
+            throw new InvalidRequestException(error, errorDescription, errorStackTraces);
         }
     }
 
@@ -252,14 +704,14 @@ class RequestProcessor {
         }
 
         if (!cookieState.equals(stateFromRequest)) {
-            throw new InvalidRequestException(INVALID_STATE_ERROR, "The received state doesn't match the expected one.");
+            throw new InvalidRequestException(INVALID_STATE_ERROR, "The received state doesn't match the expected one.", errorStackTraces);
         }
     }
 
     private void checkSessionState(HttpServletRequest request, String stateFromRequest) throws InvalidRequestException {
         boolean valid = RandomStorage.checkSessionState(request, stateFromRequest);
         if (!valid) {
-            throw new InvalidRequestException(INVALID_STATE_ERROR, "The received state doesn't match the expected one.");
+            throw new InvalidRequestException(INVALID_STATE_ERROR, "The received state doesn't match the expected one.", errorStackTraces);
         }
     }
 
@@ -268,11 +720,174 @@ class RequestProcessor {
      *
      * @param authorizationCode the code received on the login response.
      * @param redirectUri       the redirect uri used on login request.
+     * @param state             the state received with the code, which binds a shared exchange to the same login request.
      * @return a new instance of {@link Tokens} with the received credentials.
      * @throws Auth0Exception if the request to the Auth0 server failed.
+     * @throws IdentityVerificationException if the request was not sent because the circuit breaker rejected it.
      * @see AuthAPI#exchangeCode(String, String)
      */
-    private Tokens exchangeCodeForTokens(String authorizationCode, String redirectUri) throws Auth0Exception {
+    private Tokens exchangeCodeForTokens(String authorizationCode, String redirectUri, String state) throws Auth0Exception, IdentityVerificationException {
+        Object event = FlightRecorderEvents.beginCodeExchange();
+        String outcome = FlightRecorderEvents.OUTCOME_UNEXPECTED_ERROR;
+        int statusCode = 0;
+        long start = MetricsListener.start(metricsListener);
+        boolean success = false;
+        try {
+            Tokens tokens = exchangeOnce(authorizationCode, redirectUri, state);
+            success = true;
+            outcome = FlightRecorderEvents.OUTCOME_SUCCESS;
+            return tokens;
+        } catch (APIException e) {
+            outcome = API_ERROR;
+            statusCode = e.getStatusCode();
+            throw e;
+        } catch (Auth0Exception e) {
+            outcome = API_ERROR;
+            throw e;
+        } catch (IdentityVerificationException e) {
+            outcome = e.getCode();
+            throw e;
+        } finally {
+            MetricsListener.record(metricsListener, MetricsListener.Stage.CODE_EXCHANGE, start, success);
+            FlightRecorderEvents.endCodeExchange(event, outcome, statusCode);
+        }
+    }
+
+    /**
+     * Performs the Code Exchange, sharing it with the duplicate callbacks carrying the same code, state and redirect
+     * uri, if enabled.
+     */
+    private Tokens exchangeOnce(final String authorizationCode, final String redirectUri, String state) throws Auth0Exception, IdentityVerificationException {
+        if (singleFlight == null) {
+            return exchangeWithRetries(authorizationCode, redirectUri);
+        }
+        return singleFlight.execute(authorizationCode, state, redirectUri, new CodeExchangeSingleFlight.Exchange() {
+            @Override
+            public Tokens execute() throws Auth0Exception, IdentityVerificationException {
+                return exchangeWithRetries(authorizationCode, redirectUri);
+            }
+        });
+    }
+
+    /**
+     * Starts the Code Exchange on the code exchange executor.
+     *
+     * @return the pending exchange, or null if no executor is set or it rejected the exchange.
+     */
+    private Future<Tokens> startCodeExchange(final String authorizationCode, final String redirectUri, final String state) {
+        if (codeExchangeExecutor == null) {
+            return null;
+        }
+        FutureTask<Tokens> codeExchange = new FutureTask<>(new Callable<Tokens>() {
+            @Override
+            public Tokens call() throws Exception {
+                return exchangeCodeForTokens(authorizationCode, redirectUri, state);
+            }
+        });
+        try {
+            codeExchangeExecutor.execute(codeExchange);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+        return codeExchange;
+    }
+
+    /**
+     * Waits for a Code Exchange started with {@link #startCodeExchange(String, String, String)}.
+     */
+    private Tokens awaitCodeExchange(Future<Tokens> codeExchange) throws Auth0Exception, IdentityVerificationException {
+        try {
+            return codeExchange.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new Auth0Exception("Interrupted while waiting for the code exchange", e);
+        } catch (ExecutionException e) {
+            throw rethrowCodeExchangeFailure(e);
+        }
+    }
+
+    /**
+     * Rethrows the cause of a failed Code Exchange that ran as a {@link Future}.
+     *
+     * @param e the failure of the exchange.
+     * @return never returns, declared to allow {@code throw rethrowCodeExchangeFailure(e)}.
+     */
+    static RuntimeException rethrowCodeExchangeFailure(ExecutionException e) throws Auth0Exception, IdentityVerificationException {
+        Throwable cause = e.getCause();
+        if (cause instanceof Auth0Exception) {
+            throw (Auth0Exception) cause;
+        }
+        if (cause instanceof IdentityVerificationException) {
+            throw (IdentityVerificationException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+    }
+
+    /**
+     * Performs the Code Exchange, retrying it according to the retry policy, if any.
+     */
+    private Tokens exchangeWithRetries(String authorizationCode, String redirectUri) throws Auth0Exception, IdentityVerificationException {
+        if (retryPolicy == null) {
+            return attemptCodeExchange(authorizationCode, redirectUri);
+        }
+
+        long startNanos = retryPolicy.nanoTime();
+        long firstFailureNanos = -1;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                retryPolicy.onAttempt(attempt);
+                try {
+                    return attemptCodeExchange(authorizationCode, redirectUri);
+                } catch (Auth0Exception e) {
+                    if (firstFailureNanos == -1) {
+                        firstFailureNanos = retryPolicy.nanoTime();
+                    }
+                    long delayNanos = retryPolicy.getRetryDelayNanos(e, attempt, startNanos);
+                    if (delayNanos < 0 || !retryPolicy.sleep(delayNanos)) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            retryPolicy.onCompleted(firstFailureNanos);
+        }
+    }
+
+    /**
+     * Sends a single Code Exchange request through the circuit breaker, if any.
+     */
+    private Tokens attemptCodeExchange(String authorizationCode, String redirectUri) throws Auth0Exception, IdentityVerificationException {
+        if (circuitBreaker == null) {
+            return executeCodeExchange(authorizationCode, redirectUri);
+        }
+
+        long permit = circuitBreaker.acquirePermission();
+        long start = System.nanoTime();
+        // Unexpected errors count as failures, and are recorded in the finally block to release the bulkhead
+        boolean failed = true;
+        try {
+            Tokens tokens = executeCodeExchange(authorizationCode, redirectUri);
+            failed = false;
+            return tokens;
+        } catch (Auth0Exception e) {
+            failed = CircuitBreaker.isFailure(e);
+            throw e;
+        } finally {
+            if (failed) {
+                circuitBreaker.onError(permit, System.nanoTime() - start);
+            } else {
+                circuitBreaker.onSuccess(permit, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private Tokens executeCodeExchange(String authorizationCode, String redirectUri) throws Auth0Exception {
         TokenHolder holder = client
                 .exchangeCode(authorizationCode, redirectUri)
                 .execute();
@@ -316,4 +931,29 @@ class RequestProcessor {
         return new Tokens(accessToken, idToken, refreshToken, type, expiresIn);
     }
 
+    /**
+     * Holds the values taken from a callback request once it passed validation, so the rest of the processing
+     * doesn't need access to the HTTP request anymore.
+     */
+    private static final class ValidatedRequest {
+        private final Tokens frontChannelTokens;
+        private final List<String> responseTypeList;
+        private final String nonce;
+        private final String authorizationCode;
+        private final String redirectUri;
+        private final String state;
+        private final TokenHash rejectionKey;
+
+        private ValidatedRequest(Tokens frontChannelTokens, List<String> responseTypeList, String nonce,
+                                 String authorizationCode, String redirectUri, String state, TokenHash rejectionKey) {
+            this.frontChannelTokens = frontChannelTokens;
+            this.responseTypeList = responseTypeList;
+            this.nonce = nonce;
+            this.authorizationCode = authorizationCode;
+            this.redirectUri = redirectUri;
+            this.state = state;
+            this.rejectionKey = rejectionKey;
+        }
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,249 @@
+package com.auth0;
+
+import com.auth0.exception.APIException;
+import com.auth0.exception.Auth0Exception;
+import com.auth0.exception.RateLimitException;
+import org.apache.commons.lang3.Validate;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Retry policy for the Code Exchange request made on the login callback.
+ * <p>
+ * An authorization code can only be exchanged once, so only the failures where the request provably didn't reach
+ * the token endpoint or was rejected before the code was consumed are retried: errors while resolving the host or
+ * establishing the connection, and 429 or 503 responses. Timeouts and any other error responses are not retried.
+ * <p>
+ * Retries wait for an exponentially increasing delay with full jitter, or until the rate limit resets on a 429
+ * response if that is later. No retry is made once the deadline, counted from the first attempt, would be exceeded.
+ * <p>
+ * The same instance can be shared by several controllers, in which case its counters are aggregated.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class RetryPolicy {
+
+    private static final int STATUS_CODE_TOO_MANY_REQUESTS = 429;
+    private static final int STATUS_CODE_SERVICE_UNAVAILABLE = 503;
+
+    private final int maxAttempts;
+    private final long deadlineNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final AtomicLong attemptCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong retryTimeNanos = new AtomicLong();
+
+    RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(builder.deadlineMillis);
+        this.initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(builder.initialBackoffMillis);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(builder.maxBackoffMillis);
+    }
+
+    /**
+     * Create a new {@link Builder} instance with the default settings: up to 3 attempts within a 5 seconds deadline,
+     * and a backoff starting at 100 milliseconds capped at 2 seconds.
+     *
+     * @return a new Builder instance ready to configure
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Getter for the number of Code Exchange requests sent, including the first attempts.
+     *
+     * @return the number of attempts.
+     */
+    public long getAttemptCount() {
+        return attemptCount.get();
+    }
+
+    /**
+     * Getter for the number of Code Exchange requests sent after a failed attempt.
+     *
+     * @return the number of retries.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Getter for the accumulated time spent retrying, from the first failed attempt of an exchange until its last
+     * attempt completed. Exchanges that succeeded at the first attempt don't add to it.
+     *
+     * @param unit the unit to convert the time to.
+     * @return the time spent retrying.
+     */
+    public long getRetryTime(TimeUnit unit) {
+        Validate.notNull(unit);
+        return unit.convert(retryTimeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records that a new attempt is about to be made.
+     *
+     * @param attempt the number of the attempt, starting at 1.
+     */
+    void onAttempt(int attempt) {
+        attemptCount.incrementAndGet();
+        if (attempt > 1) {
+            retryCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Records the time spent retrying an exchange that is done.
+     *
+     * @param firstFailureNanos the value of {@link #nanoTime()} when the first attempt failed, or -1 if it didn't.
+     */
+    void onCompleted(long firstFailureNanos) {
+        if (firstFailureNanos != -1) {
+            retryTimeNanos.addAndGet(nanoTime() - firstFailureNanos);
+        }
+    }
+
+    /**
+     * Computes how long to wait before retrying a failed attempt.
+     *
+     * @param e          the error of the failed attempt.
+     * @param attempt    the number of the failed attempt, starting at 1.
+     * @param startNanos the value of {@link #nanoTime()} when the first attempt started.
+     * @return the delay in nanoseconds, or -1 if the attempt must not be retried.
+     */
+    long getRetryDelayNanos(Auth0Exception e, int attempt, long startNanos) {
+        if (attempt >= maxAttempts || !isRetryable(e)) {
+            return -1;
+        }
+        long backoffCap = initialBackoffNanos << Math.min(attempt - 1, 30);
+        if (backoffCap <= 0 || backoffCap > maxBackoffNanos) {
+            backoffCap = maxBackoffNanos;
+        }
+        long delay = (long) (random() * backoffCap);
+        if (e instanceof RateLimitException && ((RateLimitException) e).getReset() > 0) {
+            long resetDelayMillis = TimeUnit.SECONDS.toMillis(((RateLimitException) e).getReset()) - currentTimeMillis();
+            delay = Math.max(delay, TimeUnit.MILLISECONDS.toNanos(resetDelayMillis));
+        }
+        if (nanoTime() + delay - startNanos >= deadlineNanos) {
+            return -1;
+        }
+        return delay;
+    }
+
+    /**
+     * Whether the given error proves that the authorization code was not consumed by the failed request.
+     *
+     * @param e the error of the failed attempt.
+     * @return true if the request can be safely sent again, false otherwise.
+     */
+    static boolean isRetryable(Auth0Exception e) {
+        if (e instanceof APIException) {
+            int statusCode = ((APIException) e).getStatusCode();
+            return statusCode == STATUS_CODE_TOO_MANY_REQUESTS || statusCode == STATUS_CODE_SERVICE_UNAVAILABLE;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof NoRouteToHostException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Waits before the next attempt.
+     *
+     * @param nanos the time to wait in nanoseconds.
+     * @return true if the wait completed, false if the thread was interrupted.
+     */
+    boolean sleep(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    long nanoTime() {
+        return System.nanoTime();
+    }
+
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    double random() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+    public static class Builder {
+        private int maxAttempts = 3;
+        private long deadlineMillis = TimeUnit.SECONDS.toMillis(5);
+        private long initialBackoffMillis = 100;
+        private long maxBackoffMillis = TimeUnit.SECONDS.toMillis(2);
+
+        Builder() {
+        }
+
+        /**
+         * Sets the maximum number of attempts, including the first one. Default value is 3.
+         *
+         * @param maxAttempts the maximum number of attempts.
+         * @return this same builder instance.
+         */
+        public Builder withMaxAttempts(int maxAttempts) {
+            Validate.isTrue(maxAttempts > 0, "maxAttempts must be greater than 0");
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the overall time budget of an exchange, counted from its first attempt. No retry is made if waiting
+         * for it would exceed the deadline. Default value is 5 seconds.
+         *
+         * @param duration the deadline.
+         * @param unit     the unit of the duration.
+         * @return this same builder instance.
+         */
+        public Builder withDeadline(long duration, TimeUnit unit) {
+            Validate.isTrue(duration > 0, "duration must be greater than 0");
+            Validate.notNull(unit);
+            this.deadlineMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /**
+         * Sets the backoff between attempts. The n-th retry waits for a random delay between zero and
+         * {@code initial * 2^(n-1)}, capped at {@code max}. Default values are 100 milliseconds and 2 seconds.
+         *
+         * @param initial the backoff cap of the first retry.
+         * @param max     the maximum backoff.
+         * @param unit    the unit of the durations.
+         * @return this same builder instance.
+         */
+        public Builder withBackoff(long initial, long max, TimeUnit unit) {
+            Validate.isTrue(initial > 0, "initial must be greater than 0");
+            Validate.isTrue(max >= initial, "max must be greater than or equal to initial");
+            Validate.notNull(unit);
+            this.initialBackoffMillis = unit.toMillis(initial);
+            this.maxBackoffMillis = unit.toMillis(max);
+            return this;
+        }
+
+        /**
+         * Create a new {@link RetryPolicy} instance with the configured values.
+         *
+         * @return a new instance of {@link RetryPolicy}.
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
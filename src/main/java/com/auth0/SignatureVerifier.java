@@ -5,16 +5,31 @@ import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.exceptions.JWTDecodeException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.impl.JWTParser;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.Header;
 import org.apache.commons.lang3.Validate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 abstract class SignatureVerifier {
 
+    static final int DEFAULT_MAX_TOKEN_LENGTH = 16 * 1024;
+
+    private static final JWTParser HEADER_PARSER = new JWTParser();
+
     private final JWTVerifier verifier;
     private final List<String> acceptedAlgorithms;
+    private int maxTokenLength = DEFAULT_MAX_TOKEN_LENGTH;
+    private boolean lightweightDecoding;
+    private boolean errorStackTraces = true;
 
     /**
      * Creates a new JWT Signature Verifier.
@@ -30,24 +45,115 @@ abstract class SignatureVerifier {
         this.acceptedAlgorithms = Arrays.asList(algorithm);
     }
 
-    private DecodedJWT decodeToken(String token) throws TokenValidationException {
+    /**
+     * Sets the maximum length of the tokens to decode. Longer tokens are rejected before any decoding. Must be called before the instance is shared.
+     *
+     * @param maxTokenLength the maximum number of characters of a token.
+     */
+    void setMaxTokenLength(int maxTokenLength) {
+        Validate.isTrue(maxTokenLength > 0, "maxTokenLength must be greater than 0");
+        this.maxTokenLength = maxTokenLength;
+    }
+
+    int getMaxTokenLength() {
+        return maxTokenLength;
+    }
+
+    /**
+     * Sets whether to decode the payload with {@link IdTokenClaimsDecoder} instead of java-jwt. Must be called before the instance is shared.
+     *
+     * @param lightweightDecoding true to only extract the claims checked during the verification.
+     */
+    void setLightweightDecoding(boolean lightweightDecoding) {
+        this.lightweightDecoding = lightweightDecoding;
+    }
+
+    boolean isLightweightDecoding() {
+        return lightweightDecoding;
+    }
+
+    /**
+     * Sets whether the exceptions thrown when a token is rejected capture their stack trace. Must be called before the instance is shared.
+     *
+     * @param errorStackTraces false to skip the stack traces.
+     */
+    void setErrorStackTraces(boolean errorStackTraces) {
+        this.errorStackTraces = errorStackTraces;
+    }
+
+    List<String> getAcceptedAlgorithms() {
+        return acceptedAlgorithms;
+    }
+
+    TokenValidationException error(String message, Throwable cause) {
+        return new TokenValidationException(message, cause, errorStackTraces);
+    }
+
+    /**
+     * Getter for the instance that verifies the signature of a token with the given header. Called once the
+     * algorithm was accepted, and before the payload is decoded, so that a token can be rejected early.
+     *
+     * @param header the decoded header of the token.
+     * @return the instance that verifies the signature, or null if the signature must not be checked.
+     * @throws TokenValidationException if the token must be rejected, like when its signing key cannot be found.
+     */
+    JWTVerifier getVerifier(Header header) throws TokenValidationException {
+        return verifier;
+    }
+
+    private Header decodeHeader(String token) throws TokenValidationException {
+        // Only the header is decoded here, so that unsupported tokens are rejected without parsing their payload
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = headerEnd == -1 ? -1 : token.indexOf('.', headerEnd + 1);
+        if (payloadEnd == -1 || token.indexOf('.', payloadEnd + 1) != -1) {
+            throw error("ID token could not be decoded", new JWTDecodeException("The token was expected to have 3 parts."));
+        }
         try {
-            return JWT.decode(token);
+            byte[] json = new byte[headerEnd / 4 * 3 + 3];
+            int length = IdTokenClaimsDecoder.decodeBase64(token, 0, headerEnd, json);
+            return HEADER_PARSER.parseHeader(new String(json, 0, length, StandardCharsets.UTF_8));
         } catch (JWTDecodeException e) {
-            throw new TokenValidationException("ID token could not be decoded", e);
+            throw error("ID token could not be decoded", e);
+        }
+    }
+
+    private DecodedJWT decodeToken(String token, Header header) throws TokenValidationException {
+        try {
+            return lightweightDecoding ? IdTokenClaimsDecoder.decode(token, header) : JWT.decode(token);
+        } catch (JWTDecodeException e) {
+            throw error("ID token could not be decoded", e);
         }
     }
 
     DecodedJWT verifySignature(String token) throws TokenValidationException {
-        DecodedJWT decoded = decodeToken(token);
-        if (!this.acceptedAlgorithms.contains(decoded.getAlgorithm())) {
-            throw new TokenValidationException(String.format("Signature algorithm of \"%s\" is not supported. Expected the ID token to be signed with \"%s\".", decoded.getAlgorithm(), this.acceptedAlgorithms));
+        return verifySignature(token, null);
+    }
+
+    /**
+     * Same as {@link #verifySignature(String)}, but obtains the instance that verifies the signature through the given
+     * batch, so that the tokens of a batch signed with the same key only look the key up once.
+     *
+     * @param token the token to verify.
+     * @param batch the instances obtained for the other tokens of the batch, or null to obtain one for this token only.
+     * @return the decoded token.
+     * @throws TokenValidationException if the token is not valid.
+     */
+    DecodedJWT verifySignature(String token, BatchVerifiers batch) throws TokenValidationException {
+        if (token.length() > maxTokenLength) {
+            throw error("ID token is too long. Expected at most " + maxTokenLength + " characters, but found " + token.length() + ".", null);
         }
+        Header header = decodeHeader(token);
+        if (!this.acceptedAlgorithms.contains(header.getAlgorithm())) {
+            throw error("Signature algorithm of \"" + header.getAlgorithm() + "\" is not supported. Expected the ID token to be signed with \"" + this.acceptedAlgorithms + "\".", null);
+        }
+        JWTVerifier verifier = batch == null ? getVerifier(header) : batch.getVerifier(this, header);
+
+        DecodedJWT decoded = decodeToken(token, header);
         if (verifier != null) {
             try {
                 verifier.verify(decoded);
             } catch (SignatureVerificationException e) {
-                throw new TokenValidationException("Invalid token signature", e);
+                throw error("Invalid token signature", e);
             } catch (JWTVerificationException ignored) {
                 //NO-OP. Will be catch on a different step
                 //Would only trigger for "expired tokens" (invalid exp)
@@ -56,4 +162,49 @@ abstract class SignatureVerifier {
 
         return decoded;
     }
+
+    /**
+     * The instances that verify the signature of the tokens of a batch, obtained once per algorithm and key id and
+     * shared by the threads verifying the batch. A failure to obtain one, like an unknown key id, is also shared.
+     */
+    static final class BatchVerifiers {
+        private final ConcurrentMap<List<String>, FutureTask<JWTVerifier>> verifiers = new ConcurrentHashMap<>();
+
+        JWTVerifier getVerifier(final SignatureVerifier signatureVerifier, final Header header) throws TokenValidationException {
+            List<String> key = Arrays.asList(header.getAlgorithm(), header.getKeyId());
+            FutureTask<JWTVerifier> verifier = verifiers.get(key);
+            if (verifier == null) {
+                FutureTask<JWTVerifier> created = new FutureTask<>(new Callable<JWTVerifier>() {
+                    @Override
+                    public JWTVerifier call() throws TokenValidationException {
+                        return signatureVerifier.getVerifier(header);
+                    }
+                });
+                verifier = verifiers.putIfAbsent(key, created);
+                if (verifier == null) {
+                    verifier = created;
+                    created.run();
+                }
+            }
+            try {
+                return verifier.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw signatureVerifier.error("Interrupted while obtaining the signing key", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof TokenValidationException) {
+                    // Each token gets its own exception, with the message and the cause of the shared failure
+                    throw signatureVerifier.error(cause.getMessage(), cause.getCause());
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException(cause);
+            }
+        }
+    }
 }
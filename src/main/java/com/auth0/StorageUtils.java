@@ -1,7 +1,5 @@
 package com.auth0;
 
-import org.apache.commons.codec.binary.Base64;
-
 import java.security.SecureRandom;
 
 class StorageUtils {
@@ -11,16 +9,62 @@ class StorageUtils {
     static final String STATE_KEY = "com.auth0.state";
     static final String NONCE_KEY = "com.auth0.nonce";
 
+    static final int RANDOM_BYTES = 32;
+
+    private static final char[] BASE64_URL = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+
+    // Creating and seeding a SecureRandom is costly, and using a single one from every thread contends on its lock
+    private static final ThreadLocal<SecureRandom> SECURE_RANDOM = new ThreadLocal<SecureRandom>() {
+        @Override
+        protected SecureRandom initialValue() {
+            return new SecureRandom();
+        }
+    };
+
     /**
-     * Generates a new random string using {@link SecureRandom}.
+     * Generates a new random string using {@link SecureRandom}, with an instance kept per thread.
      * The output can be used as State or Nonce values for API requests.
      *
      * @return a new random string.
      */
     static String secureRandomString() {
-        final SecureRandom sr = new SecureRandom();
-        final byte[] randomBytes = new byte[32];
-        sr.nextBytes(randomBytes);
-        return Base64.encodeBase64URLSafeString(randomBytes);
+        final byte[] randomBytes = new byte[RANDOM_BYTES];
+        SECURE_RANDOM.get().nextBytes(randomBytes);
+        return encodeBase64Url(randomBytes, 0, RANDOM_BYTES);
+    }
+
+    static SecureRandom secureRandom() {
+        return SECURE_RANDOM.get();
+    }
+
+    /**
+     * Encodes the given bytes to URL safe base64, without padding.
+     *
+     * @param bytes  the bytes to encode.
+     * @param offset the index of the first byte to encode.
+     * @param length the number of bytes to encode.
+     * @return the encoded bytes.
+     */
+    static String encodeBase64Url(byte[] bytes, int offset, int length) {
+        char[] out = new char[(length * 4 + 2) / 3];
+        int end = offset + length;
+        int i = offset;
+        int o = 0;
+        while (end - i >= 3) {
+            int bits = (bytes[i++] & 0xff) << 16 | (bytes[i++] & 0xff) << 8 | (bytes[i++] & 0xff);
+            out[o++] = BASE64_URL[bits >>> 18];
+            out[o++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            out[o++] = BASE64_URL[(bits >>> 6) & 0x3f];
+            out[o++] = BASE64_URL[bits & 0x3f];
+        }
+        if (end - i > 0) {
+            int bits = (bytes[i] & 0xff) << 16 | (end - i == 2 ? (bytes[i + 1] & 0xff) << 8 : 0);
+            out[o++] = BASE64_URL[bits >>> 18];
+            out[o++] = BASE64_URL[(bits >>> 12) & 0x3f];
+            if (end - i == 2) {
+                out[o] = BASE64_URL[(bits >>> 6) & 0x3f];
+            }
+        }
+        return new String(out);
     }
 }
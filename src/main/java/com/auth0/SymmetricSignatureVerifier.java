@@ -12,7 +12,8 @@ class SymmetricSignatureVerifier extends SignatureVerifier {
     }
 
     private static JWTVerifier createJWTVerifier(String secret) {
-        Algorithm alg = Algorithm.HMAC256(secret);
+        // Keeps a pool of initialized Macs instead of looking one up on each verification
+        Algorithm alg = new PooledHS256Algorithm(secret);
         return JWT.require(alg)
                 .ignoreIssuedAt()
                 .build();
@@ -0,0 +1,89 @@
+package com.auth0;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * SHA-256 hash of one or more values, like a token or the parameters of a callback, used as a cache key so that the
+ * caches never hold the raw values.
+ */
+final class TokenHash {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+    };
+
+    private final byte[] hash;
+    private final int hashCode;
+
+    private TokenHash(byte[] hash) {
+        this.hash = hash;
+        this.hashCode = Arrays.hashCode(hash);
+    }
+
+    /**
+     * Hashes the given values. Each value is prefixed with its length, so that different sequences of values never
+     * produce the same input.
+     *
+     * @param values the values to hash, each one can be null.
+     * @return the hash of the values.
+     */
+    static TokenHash of(String... values) {
+        MessageDigest digest = SHA_256.get();
+        for (String value : values) {
+            if (value == null) {
+                digest.update((byte) 0);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 1);
+            digest.update((byte) (bytes.length >>> 24));
+            digest.update((byte) (bytes.length >>> 16));
+            digest.update((byte) (bytes.length >>> 8));
+            digest.update((byte) bytes.length);
+            digest.update(bytes);
+        }
+        return new TokenHash(digest.digest());
+    }
+
+    /**
+     * @return the first 8 bytes of the hash.
+     */
+    long high() {
+        return readLong(0);
+    }
+
+    /**
+     * @return the next 8 bytes of the hash.
+     */
+    long low() {
+        return readLong(8);
+    }
+
+    private long readLong(int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (hash[i] & 0xFF);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TokenHash && Arrays.equals(hash, ((TokenHash) o).hash);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
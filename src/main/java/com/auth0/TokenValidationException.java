@@ -9,4 +9,11 @@ class TokenValidationException extends RuntimeException {
     TokenValidationException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * @param writableStackTrace false to not capture the stack trace, which is the most expensive part of creating an exception.
+     */
+    TokenValidationException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
 }
@@ -0,0 +1,117 @@
+package com.auth0;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of the ID Tokens that already passed verification, so that re-verifying a token kept in the session
+ * only costs a hash and a map lookup. Entries are keyed by the SHA-256 hash of the token, so the cache never holds
+ * the raw tokens, and are evicted in least recently used order once the maximum size is reached.
+ * <p>
+ * An entry is only served while the token would still pass verification: until its "exp" claim minus the clock skew
+ * and, when a max age is configured, until its "auth_time" claim plus the max age minus the clock skew.
+ */
+class VerifiedIdTokenCache {
+
+    private final Map<TokenHash, CachedToken> entries;
+    private final long clockSkewMillis;
+    private final Long maxAgeMillis;
+    private final Clock clock;
+    private final MetricsListener metricsListener;
+
+    VerifiedIdTokenCache(final int maxSize, int clockSkewSeconds, Integer maxAgeSeconds, Clock clock, MetricsListener metricsListener) {
+        Validate.isTrue(maxSize > 0, "maxSize must be greater than 0");
+        Validate.notNull(clock);
+        this.entries = new LinkedHashMap<TokenHash, CachedToken>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TokenHash, CachedToken> eldest) {
+                return size() > maxSize;
+            }
+        };
+        this.clockSkewMillis = TimeUnit.SECONDS.toMillis(clockSkewSeconds);
+        this.maxAgeMillis = maxAgeSeconds == null ? null : TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+        this.clock = clock;
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Looks up a token that was verified before and is not expired yet.
+     *
+     * @param idToken the ID Token to look up.
+     * @return the decoded token, or null if it was not verified before or its entry expired.
+     */
+    DecodedJWT get(String idToken) {
+        TokenHash key = TokenHash.of(idToken);
+        long now = clock.currentTimeMillis();
+        DecodedJWT decoded = null;
+        synchronized (entries) {
+            CachedToken entry = entries.get(key);
+            if (entry != null) {
+                if (now < entry.expiresAtMillis) {
+                    decoded = entry.decoded;
+                } else {
+                    entries.remove(key);
+                }
+            }
+        }
+        if (metricsListener != null) {
+            metricsListener.onCacheLookup(MetricsListener.Cache.VERIFIED_ID_TOKEN, decoded != null);
+        }
+        return decoded;
+    }
+
+    /**
+     * Adds a token that just passed verification. Tokens that would already be expired are not added.
+     *
+     * @param idToken the verified ID Token.
+     * @param decoded the decoded ID Token.
+     */
+    void put(String idToken, DecodedJWT decoded) {
+        long expiresAtMillis = expiresAtMillis(decoded);
+        if (expiresAtMillis <= clock.currentTimeMillis()) {
+            return;
+        }
+        TokenHash key = TokenHash.of(idToken);
+        CachedToken entry = new CachedToken(decoded, expiresAtMillis);
+        synchronized (entries) {
+            entries.put(key, entry);
+        }
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long expiresAtMillis(DecodedJWT decoded) {
+        Date exp = decoded.getExpiresAt();
+        if (exp == null) {
+            return Long.MIN_VALUE;
+        }
+        long expiresAt = exp.getTime();
+        if (maxAgeMillis != null) {
+            Date authTime = IdTokenClaims.getAuthTime(decoded);
+            if (authTime == null) {
+                return Long.MIN_VALUE;
+            }
+            expiresAt = Math.min(expiresAt, authTime.getTime() + maxAgeMillis);
+        }
+        return expiresAt - clockSkewMillis;
+    }
+
+    private static final class CachedToken {
+        final DecodedJWT decoded;
+        final long expiresAtMillis;
+
+        CachedToken(DecodedJWT decoded, long expiresAtMillis) {
+            this.decoded = decoded;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.auth0;
+
+import com.auth0.client.auth.AuthAPI;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.lang3.Validate;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the steps of {@link AuthenticationController#warmUp(long, TimeUnit)} on a daemon thread, so that the caller
+ * stops waiting once the timeout is reached, even while a step is blocked on the network.
+ */
+class WarmUp {
+
+    private static final String NONCE = "warm-up";
+    private static final String SUBJECT = "warm-up";
+    private static final long TOKEN_LIFETIME_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final AuthAPI client;
+    private final IdTokenVerifier.Options verifyOptions;
+
+    WarmUp(AuthAPI client, IdTokenVerifier.Options verifyOptions) {
+        Validate.notNull(client);
+        Validate.notNull(verifyOptions);
+        this.client = client;
+        this.verifyOptions = verifyOptions;
+    }
+
+    WarmUpReport run(long timeoutMillis) throws InterruptedException {
+        final WarmUpReport report = new WarmUpReport();
+        FutureTask<Void> task = new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+                runSteps(report);
+            }
+        }, null);
+        Thread thread = new Thread(task, "auth0-warm-up");
+        thread.setDaemon(true);
+        long start = System.nanoTime();
+        thread.start();
+        try {
+            task.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Recorded before interrupting the steps, which would otherwise report the interruption as a failure
+            report.timeOut(System.nanoTime() - start);
+            task.cancel(true);
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            // Each step records its own failure, so only an Error can end up here
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return report;
+    }
+
+    void runSteps(WarmUpReport report) {
+        SignatureVerifier verifier = verifyOptions.verifier;
+
+        List<String> signingKey = null;
+        long start = System.nanoTime();
+        try {
+            if (verifier instanceof AsymmetricSignatureVerifier) {
+                signingKey = ((AsymmetricSignatureVerifier) verifier).warmUp();
+            }
+            report.record(WarmUpReport.Step.JWKS, signingKey != null ? WarmUpReport.Outcome.SUCCEEDED : WarmUpReport.Outcome.SKIPPED, System.nanoTime() - start, null);
+        } catch (Exception e) {
+            report.record(WarmUpReport.Step.JWKS, WarmUpReport.Outcome.FAILED, System.nanoTime() - start, e);
+        }
+
+        start = System.nanoTime();
+        try {
+            WarmUpReport.Outcome outcome = WarmUpReport.Outcome.SKIPPED;
+            // The default client doesn't expose its networking client, so only a configured one can be warmed up
+            if (client instanceof HttpClientAuthAPI) {
+                ((HttpClientAuthAPI) client).preconnect();
+                outcome = WarmUpReport.Outcome.SUCCEEDED;
+            }
+            report.record(WarmUpReport.Step.CONNECTION, outcome, System.nanoTime() - start, null);
+        } catch (Exception e) {
+            report.record(WarmUpReport.Step.CONNECTION, WarmUpReport.Outcome.FAILED, System.nanoTime() - start, e);
+        }
+
+        start = System.nanoTime();
+        try {
+            WarmUpReport.Outcome outcome = WarmUpReport.Outcome.SKIPPED;
+            if (!(verifier instanceof AsymmetricSignatureVerifier)) {
+                verify(createToken(verifier.getAcceptedAlgorithms().get(0), null));
+                outcome = WarmUpReport.Outcome.SUCCEEDED;
+            } else if (signingKey != null) {
+                verify(createToken(signingKey.get(0), signingKey.get(1)));
+                outcome = WarmUpReport.Outcome.SUCCEEDED;
+            }
+            report.record(WarmUpReport.Step.VERIFICATION, outcome, System.nanoTime() - start, null);
+        } catch (Exception e) {
+            report.record(WarmUpReport.Step.VERIFICATION, WarmUpReport.Outcome.FAILED, System.nanoTime() - start, e);
+        }
+    }
+
+    private void verify(String token) throws TokenValidationException {
+        try {
+            // Without a metrics listener, so that the made up token doesn't show up in the metrics
+            new IdTokenVerifier().decodeAndVerify(token, verifyOptions, NONCE);
+        } catch (TokenValidationException e) {
+            if (!(e.getCause() instanceof SignatureVerificationException)) {
+                throw e;
+            }
+            // Expected, as the signature of the token is invalid. The claims are validated on their own instead
+            DecodedJWT decoded = JWT.decode(token);
+            verifyOptions.getValidationPlan().validate(decoded, NONCE);
+        }
+    }
+
+    private String createToken(String algorithm, String keyId) {
+        long now = (verifyOptions.clock != null ? verifyOptions.clock : Clock.SYSTEM).currentTimeMillis();
+        JWTCreator.Builder builder = JWT.create()
+                .withIssuer(verifyOptions.issuer)
+                .withAudience(verifyOptions.audience)
+                .withSubject(SUBJECT)
+                .withIssuedAt(new Date(now))
+                .withExpiresAt(new Date(now + TOKEN_LIFETIME_MILLIS))
+                .withClaim("auth_time", new Date(now))
+                .withClaim("nonce", NONCE);
+        if (keyId != null) {
+            builder.withKeyId(keyId);
+        }
+        return builder.sign(new InvalidSignature(algorithm));
+    }
+
+    /**
+     * Signs the made up token with a signature of the expected length that never verifies.
+     */
+    private static final class InvalidSignature extends Algorithm {
+        private static final int ES256_SIGNATURE_LENGTH = 64;
+        private static final int SIGNATURE_LENGTH = 256;
+
+        InvalidSignature(String name) {
+            super(name, "Invalid signature");
+        }
+
+        @Override
+        public void verify(DecodedJWT jwt) throws SignatureVerificationException {
+            throw new SignatureVerificationException(this);
+        }
+
+        @Override
+        public byte[] sign(byte[] contentBytes) {
+            return new byte[AsymmetricSignatureVerifier.ES256.equals(getName()) ? ES256_SIGNATURE_LENGTH : SIGNATURE_LENGTH];
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.auth0;
+
+import org.apache.commons.lang3.Validate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Outcome and duration of each step of {@link AuthenticationController#warmUp(long, TimeUnit)}. This class is thread-safe.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class WarmUpReport {
+
+    /**
+     * The steps of the warm-up, in the order they run.
+     */
+    public enum Step {
+        /**
+         * Fetches the signing keys and parses them into the instances that verify the signatures.
+         */
+        JWKS,
+        /**
+         * Opens a connection to the Auth0 domain, kept by the networking client for the first Code Exchange request.
+         */
+        CONNECTION,
+        /**
+         * Verifies a made up ID Token, signed with an invalid signature, like on the login callback.
+         */
+        VERIFICATION
+    }
+
+    /**
+     * The outcome of a step.
+     */
+    public enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        /**
+         * The step doesn't apply to the configuration, like the JWKS fetch when the ID Tokens are signed with HS256.
+         */
+        SKIPPED,
+        /**
+         * The step was still running, or not started yet, when the timeout was reached.
+         */
+        TIMED_OUT
+    }
+
+    private final AtomicReferenceArray<Result> results = new AtomicReferenceArray<>(Step.values().length);
+
+    WarmUpReport() {
+    }
+
+    /**
+     * Records the outcome of a step, unless one was already recorded.
+     */
+    void record(Step step, Outcome outcome, long durationNanos, Exception exception) {
+        results.compareAndSet(step.ordinal(), null, new Result(outcome, durationNanos, exception));
+    }
+
+    /**
+     * Records the steps without an outcome as timed out, once the timeout was reached.
+     */
+    void timeOut(long elapsedNanos) {
+        for (Step step : Step.values()) {
+            record(step, Outcome.TIMED_OUT, elapsedNanos, null);
+        }
+    }
+
+    /**
+     * Getter for the outcome of the given step.
+     *
+     * @param step the step.
+     * @return the outcome of the step.
+     */
+    public Outcome getOutcome(Step step) {
+        return getResult(step).outcome;
+    }
+
+    /**
+     * Getter for the time spent on the given step. For a step that timed out, the time spent on the whole warm-up.
+     *
+     * @param step the step.
+     * @param unit the unit of the returned duration.
+     * @return the time spent on the step.
+     */
+    public long getDuration(Step step, TimeUnit unit) {
+        Validate.notNull(unit);
+        return unit.convert(getResult(step).durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Getter for the exception that made the given step fail.
+     *
+     * @param step the step.
+     * @return the exception, or null if the step didn't fail.
+     */
+    public Exception getException(Step step) {
+        return getResult(step).exception;
+    }
+
+    /**
+     * Whether every step succeeded or was skipped.
+     *
+     * @return true if nothing failed or timed out.
+     */
+    public boolean isSuccessful() {
+        for (Step step : Step.values()) {
+            Outcome outcome = getOutcome(step);
+            if (outcome != Outcome.SUCCEEDED && outcome != Outcome.SKIPPED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Result getResult(Step step) {
+        Validate.notNull(step);
+        Result result = results.get(step.ordinal());
+        return result != null ? result : Result.PENDING;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("WarmUpReport{");
+        for (Step step : Step.values()) {
+            if (step.ordinal() > 0) {
+                sb.append(", ");
+            }
+            sb.append(step).append('=').append(getOutcome(step))
+                    .append(" in ").append(getDuration(step, TimeUnit.MILLISECONDS)).append(" ms");
+        }
+        return sb.append('}').toString();
+    }
+
+    private static final class Result {
+        // Only returned before the warm-up returned the report
+        static final Result PENDING = new Result(Outcome.TIMED_OUT, 0, null);
+
+        final Outcome outcome;
+        final long durationNanos;
+        final Exception exception;
+
+        Result(Outcome outcome, long durationNanos, Exception exception) {
+            this.outcome = outcome;
+            this.durationNanos = durationNanos;
+            this.exception = exception;
+        }
+    }
+}
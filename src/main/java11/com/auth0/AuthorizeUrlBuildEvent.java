@@ -0,0 +1,14 @@
+package com.auth0;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.auth0.AuthorizeUrlBuild")
+@Label("Authorize URL Build")
+@Description("Creation of the Authorize URL builder that starts a login")
+class AuthorizeUrlBuildEvent extends LoginFlowEvent {
+
+    @Label("Response Type")
+    String responseType;
+}
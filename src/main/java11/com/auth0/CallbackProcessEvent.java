@@ -0,0 +1,14 @@
+package com.auth0;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.auth0.CallbackProcess")
+@Label("Callback Process")
+@Description("Processing of a login callback, from the state check to the verified tokens")
+class CallbackProcessEvent extends LoginFlowEvent {
+
+    @Label("Response Type")
+    String responseType;
+}
@@ -0,0 +1,15 @@
+package com.auth0;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.auth0.CodeExchange")
+@Label("Code Exchange")
+@Description("Exchange of the authorization code for tokens, including any retry")
+class CodeExchangeEvent extends LoginFlowEvent {
+
+    @Label("Status Code")
+    @Description("HTTP status code of the error response, or 0")
+    int statusCode;
+}
@@ -0,0 +1,77 @@
+package com.auth0;
+
+/**
+ * Hooks that emit JDK Flight Recorder events for the stages of the login flow.
+ * <p>
+ * This is the Java 11 version, packaged in the Multi-Release jar. It must declare the same methods as the Java 7
+ * version in {@code src/main/java}. Events are only allocated while a recording has them enabled.
+ */
+final class FlightRecorderEvents {
+
+    static final String OUTCOME_SUCCESS = "success";
+    static final String OUTCOME_UNEXPECTED_ERROR = "unexpected_error";
+
+    private FlightRecorderEvents() {
+    }
+
+    static Object beginAuthorizeUrlBuild(String responseType) {
+        AuthorizeUrlBuildEvent event = new AuthorizeUrlBuildEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.responseType = responseType;
+        event.begin();
+        return event;
+    }
+
+    static Object beginCallbackProcess(String responseType) {
+        CallbackProcessEvent event = new CallbackProcessEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.responseType = responseType;
+        event.begin();
+        return event;
+    }
+
+    static Object beginCodeExchange() {
+        return begin(new CodeExchangeEvent());
+    }
+
+    static Object beginIdTokenVerify() {
+        return begin(new IdTokenVerifyEvent());
+    }
+
+    static Object beginJwkLookup(String keyId) {
+        JwkLookupEvent event = new JwkLookupEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.keyId = keyId;
+        event.begin();
+        return event;
+    }
+
+    static void end(Object event, String outcome) {
+        if (event != null) {
+            LoginFlowEvent loginFlowEvent = (LoginFlowEvent) event;
+            loginFlowEvent.outcome = outcome;
+            loginFlowEvent.commit();
+        }
+    }
+
+    static void endCodeExchange(Object event, String outcome, int statusCode) {
+        if (event != null) {
+            ((CodeExchangeEvent) event).statusCode = statusCode;
+            end(event, outcome);
+        }
+    }
+
+    private static Object begin(LoginFlowEvent event) {
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+}
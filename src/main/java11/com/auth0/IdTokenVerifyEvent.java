@@ -0,0 +1,11 @@
+package com.auth0;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.auth0.IdTokenVerify")
+@Label("ID Token Verify")
+@Description("Verification of the signature and claims of an ID Token")
+class IdTokenVerifyEvent extends LoginFlowEvent {
+}
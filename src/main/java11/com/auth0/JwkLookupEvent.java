@@ -0,0 +1,14 @@
+package com.auth0;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.auth0.JwkLookup")
+@Label("JWK Lookup")
+@Description("Lookup of the public key used to verify an ID Token signature")
+class JwkLookupEvent extends LoginFlowEvent {
+
+    @Label("Key ID")
+    String keyId;
+}
@@ -0,0 +1,19 @@
+package com.auth0;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base class of the Flight Recorder events of the login flow.
+ */
+@Category({"Auth0", "Login"})
+@StackTrace(false)
+abstract class LoginFlowEvent extends Event {
+
+    @Label("Outcome")
+    @Description("\"success\", or the error code of the failure")
+    String outcome;
+}
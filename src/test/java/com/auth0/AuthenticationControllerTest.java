@@ -3,25 +3,41 @@ package com.auth0;
 import com.auth0.client.auth.AuthAPI;
 import com.auth0.client.auth.AuthorizeUrlBuilder;
 import com.auth0.json.auth.TokenHolder;
+import com.auth0.jwk.InvalidPublicKeyException;
+import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkProvider;
 import com.auth0.net.AuthRequest;
 import com.auth0.net.Telemetry;
+import okhttp3.OkHttpClient;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
@@ -268,7 +284,6 @@ public class AuthenticationControllerTest {
 
         assertThat(requestProcessor.verifyOptions.clockSkew, is(nullValue()));
         assertThat(requestProcessor.verifyOptions.clock, is(nullValue()));
-        assertThat(requestProcessor.verifyOptions.nonce, is(nullValue()));
         assertThat(requestProcessor.verifyOptions.getMaxAge(), is(nullValue()));
     }
 
@@ -286,7 +301,6 @@ public class AuthenticationControllerTest {
 
         assertThat(requestProcessor.verifyOptions.clockSkew, is(nullValue()));
         assertThat(requestProcessor.verifyOptions.clock, is(nullValue()));
-        assertThat(requestProcessor.verifyOptions.nonce, is(nullValue()));
         assertThat(requestProcessor.verifyOptions.getMaxAge(), is(nullValue()));
     }
 
@@ -304,7 +318,6 @@ public class AuthenticationControllerTest {
 
         assertThat(requestProcessor.verifyOptions.clockSkew, is(nullValue()));
         assertThat(requestProcessor.verifyOptions.clock, is(nullValue()));
-        assertThat(requestProcessor.verifyOptions.nonce, is(nullValue()));
         assertThat(requestProcessor.verifyOptions.getMaxAge(), is(nullValue()));
     }
 
@@ -346,6 +359,267 @@ public class AuthenticationControllerTest {
         assertThat(requestProcessor.verifyOptions.getMaxAge(), is(12345));
     }
 
+    @Test
+    public void shouldCreateAPIClientWithCustomHttpClient() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withHttpClient(new OkHttpClient())
+                .build();
+
+        assertThat(controller.getRequestProcessor().getClient(), is(instanceOf(HttpClientAuthAPI.class)));
+    }
+
+    @Test
+    public void shouldThrowOnMissingHttpClient() {
+        exception.expect(NullPointerException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withHttpClient(null);
+    }
+
+    @Test
+    public void shouldThrowOnMissingRetryPolicy() {
+        exception.expect(NullPointerException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withRetryPolicy(null);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidCodeExchangeDeduplicationDuration() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withCodeExchangeDeduplication(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldThrowOnMissingCodeExchangeExecutor() {
+        exception.expect(NullPointerException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withCodeExchangeExecutor(null);
+    }
+
+    @Test
+    public void shouldSetClaimValidatorsInOrder() {
+        ClaimValidator first = mock(ClaimValidator.class);
+        ClaimValidator second = mock(ClaimValidator.class);
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withClaimValidator(first)
+                .withClaimValidator(second)
+                .build();
+
+        assertThat(controller.getRequestProcessor().verifyOptions.claimValidators, contains(first, second));
+    }
+
+    @Test
+    public void shouldThrowOnMissingClaimValidator() {
+        exception.expect(NullPointerException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withClaimValidator(null);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeVerifiedIdTokenCacheSize() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withVerifiedIdTokenCacheSize(-1);
+    }
+
+    @Test
+    public void shouldSetMaxIdTokenLength() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withMaxIdTokenLength(4096)
+                .build();
+
+        assertThat(controller.getRequestProcessor().verifyOptions.verifier.getMaxTokenLength(), is(4096));
+    }
+
+    @Test
+    public void shouldUseDefaultMaxIdTokenLength() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .build();
+
+        assertThat(controller.getRequestProcessor().verifyOptions.verifier.getMaxTokenLength(), is(16384));
+    }
+
+    @Test
+    public void shouldEnableLightweightIdTokenDecoding() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withLightweightIdTokenDecoding(true)
+                .build();
+
+        assertThat(controller.getRequestProcessor().verifyOptions.verifier.isLightweightDecoding(), is(true));
+    }
+
+    @Test
+    public void shouldNotUseLightweightIdTokenDecodingByDefault() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .build();
+
+        assertThat(controller.getRequestProcessor().verifyOptions.verifier.isLightweightDecoding(), is(false));
+    }
+
+    @Test
+    public void shouldThrowOnUnsupportedJwkAlgorithm() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("Unsupported algorithm HS256. Expected any of [RS256, PS256, ES256].");
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withJwkProvider(mock(JwkProvider.class), "ES256", "HS256");
+    }
+
+    @Test
+    public void shouldThrowOnMissingJwkAlgorithms() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withJwkProvider(mock(JwkProvider.class), new String[0]);
+    }
+
+    @Test
+    public void shouldAcceptConfiguredJwkAlgorithms() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withJwkProvider(mock(JwkProvider.class), "ES256", "PS256")
+                .build();
+
+        SignatureVerifier verifier = controller.getRequestProcessor().verifyOptions.verifier;
+        assertThat(verifier, instanceOf(AsymmetricSignatureVerifier.class));
+        try {
+            verifier.verifySignature("eyJhbGciOiJSUzI1NiIsInR5cCI6IkpXVCJ9.e30.c2ln");
+            fail("Expected a TokenValidationException");
+        } catch (TokenValidationException e) {
+            assertThat(e.getMessage(), is("Signature algorithm of \"RS256\" is not supported. Expected the ID token to be signed with \"[ES256, PS256]\"."));
+        }
+    }
+
+    @Test
+    public void shouldCacheSigningKeysWhenJwksCacheIsSet() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(jwk.getAlgorithm()).thenReturn("RS256");
+        when(jwk.getPublicKey()).thenThrow(new InvalidPublicKeyException("Invalid key", null));
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("k1")).thenReturn(jwk);
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withJwkProvider(jwkProvider)
+                .withJwksCache(JwksCacheConfig.newBuilder().build())
+                .build();
+
+        SignatureVerifier verifier = controller.getRequestProcessor().verifyOptions.verifier;
+        for (int i = 0; i < 2; i++) {
+            try {
+                verifier.verifySignature("eyJhbGciOiJSUzI1NiIsImtpZCI6ImsxIn0.e30.c2ln");
+                fail("Expected a TokenValidationException");
+            } catch (TokenValidationException e) {
+                assertThat(e.getCause(), instanceOf(InvalidPublicKeyException.class));
+            }
+        }
+        verify(jwkProvider, times(1)).get("k1");
+    }
+
+    @Test
+    public void shouldCreateWithAsymmetricSignatureVerifierForDomainJwksWhenJwksCacheIsSet() {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        doReturn(jwkProvider).when(builderSpy).createJwkProvider("domain");
+        builderSpy
+                .withJwksCache(JwksCacheConfig.newBuilder().build())
+                .build();
+
+        verify(builderSpy).createJwkProvider("domain");
+        assertThat(signatureVerifierCaptor.getValue(), instanceOf(AsymmetricSignatureVerifier.class));
+    }
+
+    @Test
+    public void shouldWarmUpSymmetricVerification() throws Exception {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withResponseType("id_token")
+                .build();
+
+        WarmUpReport report = controller.warmUp(10, TimeUnit.SECONDS);
+
+        assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.SUCCEEDED));
+        assertThat(report.isSuccessful(), is(true));
+    }
+
+    @Test
+    public void shouldThrowOnInvalidWarmUpTimeout() throws Exception {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .build()
+                .warmUp(0, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldThrowOnMissingJwksCacheConfig() {
+        exception.expect(NullPointerException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withJwksCache(null);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidRejectionCacheSize() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withRejectionCache(0, 1, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldThrowOnInvalidRejectionCacheDuration() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withRejectionCache(1000, 0, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldDisableErrorStackTraces() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withErrorStackTraces(false)
+                .build();
+
+        assertThat(controller.getRequestProcessor().verifyOptions.errorStackTraces, is(false));
+    }
+
+    @Test
+    public void shouldThrowOnInvalidMaxIdTokenLength() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withMaxIdTokenLength(0);
+    }
+
+    @Test
+    public void shouldVerifyIdToken() throws IdentityVerificationException {
+        RequestProcessor requestProcessor = mock(RequestProcessor.class);
+        AuthenticationController controller = new AuthenticationController(requestProcessor);
+
+        controller.verifyIdToken("idToken");
+
+        verify(requestProcessor).verifyIdToken("idToken");
+    }
+
+    @Test
+    public void shouldVerifyIdTokens() throws Exception {
+        RequestProcessor requestProcessor = mock(RequestProcessor.class);
+        AuthenticationController controller = new AuthenticationController(requestProcessor);
+        List<String> idTokens = Arrays.asList("idToken1", "idToken2");
+        Executor executor = mock(Executor.class);
+
+        controller.verifyIdTokens(idTokens, executor);
+
+        verify(requestProcessor).verifyIdTokens(idTokens, executor);
+    }
+
+    @Test
+    public void shouldThrowOnVerifyIdTokensWithoutExecutor() throws Exception {
+        exception.expect(NullPointerException.class);
+        exception.expectMessage("executor must not be null");
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret").build();
+
+        controller.verifyIdTokens(Collections.singletonList("idToken"), null);
+    }
+
+    @Test
+    public void shouldThrowOnVerifyMissingIdToken() throws IdentityVerificationException {
+        exception.expect(NullPointerException.class);
+        exception.expectMessage("idToken must not be null");
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret").build();
+
+        controller.verifyIdToken(null);
+    }
+
     @Test
     public void shouldProcessRequest() throws IdentityVerificationException {
         RequestProcessor requestProcessor = mock(RequestProcessor.class);
@@ -359,6 +633,148 @@ public class AuthenticationControllerTest {
         verify(requestProcessor).process(req, response);
     }
 
+    @Test
+    public void shouldProcessRequestAsync() {
+        RequestProcessor requestProcessor = mock(RequestProcessor.class);
+        AuthenticationController controller = new AuthenticationController(requestProcessor);
+
+        HttpServletRequest req = new MockHttpServletRequest();
+        HttpServletResponse response = new MockHttpServletResponse();
+        Executor executor = mock(Executor.class);
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+
+        controller.handleAsync(req, response, executor, callback);
+
+        verify(requestProcessor).processAsync(req, response, executor, callback);
+    }
+
+    @Test
+    public void shouldThrowOnProcessRequestAsyncWithoutExecutor() {
+        exception.expect(NullPointerException.class);
+        exception.expectMessage("executor must not be null");
+
+        AuthenticationController controller = new AuthenticationController(mock(RequestProcessor.class));
+        controller.handleAsync(new MockHttpServletRequest(), new MockHttpServletResponse(), null);
+    }
+
+    @Test
+    public void shouldCompleteAsyncContextAfterNotifyingSuccess() throws Exception {
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getAccessToken()).thenReturn("accessToken");
+        when(codeExchangeRequest.execute()).thenReturn(tokenHolder);
+        when(client.exchangeCode(eq("abc123"), anyString())).thenReturn(codeExchangeRequest);
+        AuthenticationController controller = new AuthenticationController(new RequestProcessor(client, "code", verificationOptions));
+
+        MockHttpServletRequest request = spy(new MockHttpServletRequest());
+        request.setParameter("code", "abc123");
+        request.setParameter("state", "1234");
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        doReturn(asyncContext).when(request).startAsync(request, response);
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        AsyncContext startedContext = controller.handleWithAsyncContext(request, response, executor, callback);
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+
+        assertThat(startedContext, is(asyncContext));
+        ArgumentCaptor<Tokens> tokensCaptor = ArgumentCaptor.forClass(Tokens.class);
+        InOrder inOrder = inOrder(callback, asyncContext);
+        inOrder.verify(callback).onSuccess(tokensCaptor.capture());
+        inOrder.verify(asyncContext).complete();
+        assertThat(tokensCaptor.getValue().getAccessToken(), is("accessToken"));
+    }
+
+    @Test
+    public void shouldCompleteAsyncContextAfterNotifyingInvalidRequest() {
+        AuthenticationController controller = new AuthenticationController(new RequestProcessor(client, "code", verificationOptions));
+
+        MockHttpServletRequest request = spy(new MockHttpServletRequest());
+        request.setParameter("state", "1234");
+        request.setCookies(new Cookie("com.auth0.state", "9999"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        doReturn(asyncContext).when(request).startAsync(request, response);
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        Executor executor = mock(Executor.class);
+
+        controller.handleWithAsyncContext(request, response, executor, callback);
+
+        verifyZeroInteractions(executor);
+        ArgumentCaptor<IdentityVerificationException> exceptionCaptor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        InOrder inOrder = inOrder(callback, asyncContext);
+        inOrder.verify(callback).onFailure(exceptionCaptor.capture());
+        inOrder.verify(asyncContext).complete();
+        assertThat(exceptionCaptor.getValue().getCode(), is("a0.invalid_state"));
+    }
+
+    @Test
+    public void shouldCompleteAsyncContextWhenExecutorRejectsTheCodeExchange() {
+        AuthenticationController controller = new AuthenticationController(new RequestProcessor(client, "code", verificationOptions));
+
+        MockHttpServletRequest request = spy(new MockHttpServletRequest());
+        request.setParameter("code", "abc123");
+        request.setParameter("state", "1234");
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        doReturn(asyncContext).when(request).startAsync(request, response);
+        Executor executor = mock(Executor.class);
+        doThrow(RejectedExecutionException.class).when(executor).execute(Mockito.any(Runnable.class));
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+
+        controller.handleWithAsyncContext(request, response, executor, callback);
+
+        ArgumentCaptor<IdentityVerificationException> exceptionCaptor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        InOrder inOrder = inOrder(callback, asyncContext);
+        inOrder.verify(callback).onFailure(exceptionCaptor.capture());
+        inOrder.verify(asyncContext).complete();
+        assertThat(exceptionCaptor.getValue().getCode(), is("a0.unexpected_error"));
+    }
+
+    @Test
+    public void shouldApplyAsyncContextTimeoutAndListenerBeforeDispatchingTheCodeExchange() {
+        AuthenticationController controller = new AuthenticationController(new RequestProcessor(client, "code", verificationOptions));
+
+        MockHttpServletRequest request = spy(new MockHttpServletRequest());
+        request.setParameter("code", "abc123");
+        request.setParameter("state", "1234");
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        doReturn(asyncContext).when(request).startAsync(request, response);
+        AsyncListener listener = mock(AsyncListener.class);
+        Executor executor = mock(Executor.class);
+
+        controller.handleWithAsyncContext(request, response, executor, mock(AuthenticationCallback.class), 30000, listener);
+
+        InOrder inOrder = inOrder(asyncContext, executor);
+        inOrder.verify(asyncContext).setTimeout(30000);
+        inOrder.verify(asyncContext).addListener(listener);
+        inOrder.verify(executor).execute(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    public void shouldKeepAsyncContextTimeoutWhenNotGiven() {
+        AuthenticationController controller = new AuthenticationController(new RequestProcessor(client, "code", verificationOptions));
+
+        MockHttpServletRequest request = spy(new MockHttpServletRequest());
+        request.setParameter("code", "abc123");
+        request.setParameter("state", "1234");
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AsyncContext asyncContext = mock(AsyncContext.class);
+        doReturn(asyncContext).when(request).startAsync(request, response);
+
+        controller.handleWithAsyncContext(request, response, mock(Executor.class), mock(AuthenticationCallback.class));
+
+        verify(asyncContext, never()).setTimeout(anyLong());
+        verify(asyncContext, never()).addListener(Mockito.any(AsyncListener.class));
+    }
+
     @Test
     public void shouldBuildAuthorizeUriWithRandomStateAndNonce() {
         RequestProcessor requestProcessor = mock(RequestProcessor.class);
@@ -372,6 +788,55 @@ public class AuthenticationControllerTest {
         verify(requestProcessor).buildAuthorizeUrl(eq(request), eq(response), eq("https://redirect.uri/here"), anyString(), anyString());
     }
 
+    @Test
+    public void shouldBuildAuthorizeUrlWithRandomPool() {
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withRandomPool(10)
+                .build();
+
+        assertThat(controller.getRequestProcessor().getRandomPool(), is(notNullValue()));
+        String authUrl = controller.buildAuthorizeUrl(new MockHttpServletRequest(), new MockHttpServletResponse(), "https://redirect.uri/here")
+                .build();
+        assertThat(authUrl, containsString("state="));
+    }
+
+    @Test
+    public void shouldFillRandomPoolOnGivenExecutor() {
+        Executor executor = mock(Executor.class);
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withRandomPool(10, executor)
+                .build();
+
+        assertThat(controller.getRequestProcessor().getRandomPool(), is(notNullValue()));
+        verify(executor).execute(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    public void shouldThrowOnInvalidRandomPoolSize() {
+        exception.expect(IllegalArgumentException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withRandomPool(0);
+    }
+
+    @Test
+    public void shouldReportBuildAuthorizeUrlTimingToMetricsListener() {
+        HistogramMetricsListener metricsListener = new HistogramMetricsListener();
+        AuthenticationController controller = AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withMetricsListener(metricsListener)
+                .build();
+
+        controller.buildAuthorizeUrl(new MockHttpServletRequest(), new MockHttpServletResponse(), "https://redirect.uri/here");
+
+        assertThat(metricsListener.getSuccessCount(MetricsListener.Stage.BUILD_AUTHORIZE_URL), is(1L));
+    }
+
+    @Test
+    public void shouldThrowOnMissingMetricsListener() {
+        exception.expect(NullPointerException.class);
+        AuthenticationController.newBuilder("domain", "clientId", "clientSecret")
+                .withMetricsListener(null);
+    }
+
     @Test
     public void shouldSetLaxCookiesAndNoLegacyCookieWhenCodeFlow() {
         MockHttpServletResponse response = new MockHttpServletResponse();
@@ -0,0 +1,276 @@
+package com.auth0;
+
+import com.auth0.exception.APIException;
+import com.auth0.exception.Auth0Exception;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.*;
+
+public class CircuitBreakerTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private CircuitBreakerListener listener;
+    private long now;
+
+    @Before
+    public void setUp() {
+        listener = mock(CircuitBreakerListener.class);
+        now = 0;
+    }
+
+    @Test
+    public void shouldStayClosedBelowMinimumNumberOfCalls() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(10, 5));
+
+        for (int i = 0; i < 4; i++) {
+            breaker.onError(breaker.acquirePermission(), 0);
+        }
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.CLOSED));
+        verifyZeroInteractions(listener);
+    }
+
+    @Test
+    public void shouldOpenWhenFailureRateReachesThreshold() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withFailureRateThreshold(50)
+                .withSlidingWindow(10, 4));
+
+        recordCalls(breaker, true, false, true, false);
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+        verify(listener).onStateTransition(CircuitBreakerState.CLOSED, CircuitBreakerState.OPEN);
+    }
+
+    @Test
+    public void shouldOpenWhenSlowCallRateReachesThreshold() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlowCallThreshold(75, 1, TimeUnit.SECONDS)
+                .withSlidingWindow(4, 4));
+
+        long slow = TimeUnit.SECONDS.toNanos(2);
+        for (long duration : new long[]{slow, slow, 0, slow}) {
+            breaker.onSuccess(breaker.acquirePermission(), duration);
+        }
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+    }
+
+    @Test
+    public void shouldOnlyConsiderTheSlidingWindow() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withFailureRateThreshold(50)
+                .withSlidingWindow(4, 4));
+
+        recordCalls(breaker, false, false, false, false, true);
+        assertThat(breaker.getState(), is(CircuitBreakerState.CLOSED));
+
+        recordCalls(breaker, true);
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+    }
+
+    @Test
+    public void shouldFailFastWhileOpen() throws Exception {
+        CircuitBreaker breaker = createOpenBreaker();
+
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.circuit_open"));
+        breaker.acquirePermission();
+    }
+
+    @Test
+    public void shouldCloseAfterSuccessfulProbesInHalfOpenState() throws Exception {
+        CircuitBreaker breaker = createOpenBreaker();
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        long permit = breaker.acquirePermission();
+        assertThat(breaker.getState(), is(CircuitBreakerState.HALF_OPEN));
+        breaker.onSuccess(permit, 0);
+        breaker.onSuccess(breaker.acquirePermission(), 0);
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.CLOSED));
+        verify(listener).onStateTransition(CircuitBreakerState.OPEN, CircuitBreakerState.HALF_OPEN);
+        verify(listener).onStateTransition(CircuitBreakerState.HALF_OPEN, CircuitBreakerState.CLOSED);
+    }
+
+    @Test
+    public void shouldOpenAgainAfterFailedProbesInHalfOpenState() throws Exception {
+        CircuitBreaker breaker = createOpenBreaker();
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        breaker.onError(breaker.acquirePermission(), 0);
+        breaker.onError(breaker.acquirePermission(), 0);
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+        verify(listener).onStateTransition(CircuitBreakerState.HALF_OPEN, CircuitBreakerState.OPEN);
+    }
+
+    @Test
+    public void shouldOnlyLetPermittedCallsThroughInHalfOpenState() throws Exception {
+        CircuitBreaker breaker = createOpenBreaker();
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.circuit_open"));
+        breaker.acquirePermission();
+    }
+
+    @Test
+    public void shouldCloseAfterProbesWhenPermittedCallsExceedSlidingWindow() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(3, 1)
+                .withWaitDurationInOpenState(30, TimeUnit.SECONDS));
+        recordCalls(breaker, true);
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        // The 5 default probes are more than the sliding window holds
+        recordCalls(breaker, false, false, false, false);
+        assertThat(breaker.getState(), is(CircuitBreakerState.HALF_OPEN));
+        recordCalls(breaker, false);
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.CLOSED));
+        breaker.acquirePermission();
+    }
+
+    @Test
+    public void shouldOpenAgainAfterProbesWhenPermittedCallsExceedSlidingWindow() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withFailureRateThreshold(50)
+                .withSlidingWindow(3, 1)
+                .withWaitDurationInOpenState(30, TimeUnit.SECONDS));
+        recordCalls(breaker, true);
+        now += TimeUnit.SECONDS.toNanos(30);
+
+        recordCalls(breaker, true, true, false, true, false);
+
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+        verify(listener).onStateTransition(CircuitBreakerState.HALF_OPEN, CircuitBreakerState.OPEN);
+    }
+
+    @Test
+    public void shouldNotCountCallStartedBeforeOpeningAsProbe() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(2, 2)
+                .withPermittedCallsInHalfOpenState(1)
+                .withWaitDurationInOpenState(30, TimeUnit.SECONDS));
+        long slowCall = breaker.acquirePermission();
+        recordCalls(breaker, true, true);
+        now += TimeUnit.SECONDS.toNanos(30);
+        long probe = breaker.acquirePermission();
+        assertThat(breaker.getState(), is(CircuitBreakerState.HALF_OPEN));
+
+        // Completes after the circuit moved to half open
+        breaker.onSuccess(slowCall, 0);
+        assertThat(breaker.getState(), is(CircuitBreakerState.HALF_OPEN));
+
+        breaker.onError(probe, 0);
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+    }
+
+    @Test
+    public void shouldNotRecordCallStartedBeforeClosingAgain() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(1, 1)
+                .withPermittedCallsInHalfOpenState(1)
+                .withWaitDurationInOpenState(30, TimeUnit.SECONDS));
+        long slowCall = breaker.acquirePermission();
+        recordCalls(breaker, true);
+        now += TimeUnit.SECONDS.toNanos(30);
+        recordCalls(breaker, false);
+        assertThat(breaker.getState(), is(CircuitBreakerState.CLOSED));
+
+        breaker.onError(slowCall, 0);
+        assertThat(breaker.getState(), is(CircuitBreakerState.CLOSED));
+    }
+
+    @Test
+    public void shouldReleaseConcurrentCallOfStaleResult() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(1, 1)
+                .withMaxConcurrentCalls(2));
+        long slowCall = breaker.acquirePermission();
+        recordCalls(breaker, true);
+        breaker.onSuccess(slowCall, 0);
+
+        now += TimeUnit.SECONDS.toNanos(60);
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+    }
+
+    @Test
+    public void shouldRejectCallsOverMaxConcurrentCalls() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withMaxConcurrentCalls(2));
+
+        breaker.acquirePermission();
+        breaker.acquirePermission();
+
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.bulkhead_full"));
+        breaker.acquirePermission();
+    }
+
+    @Test
+    public void shouldReleaseConcurrentCallsOnCompletion() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withMaxConcurrentCalls(1));
+
+        breaker.onSuccess(breaker.acquirePermission(), 0);
+        breaker.onError(breaker.acquirePermission(), 0);
+        breaker.acquirePermission();
+    }
+
+    @Test
+    public void shouldConsiderNetworkAndServerErrorsAsFailures() {
+        assertThat(CircuitBreaker.isFailure(new Auth0Exception("Failed to execute request")), is(true));
+        assertThat(CircuitBreaker.isFailure(new APIException("Internal error", 500, null)), is(true));
+        assertThat(CircuitBreaker.isFailure(new APIException("Service unavailable", 503, null)), is(true));
+        assertThat(CircuitBreaker.isFailure(new APIException("Too many requests", 429, null)), is(true));
+        assertThat(CircuitBreaker.isFailure(new APIException(Collections.<String, Object>singletonMap("error", "invalid_grant"), 403)), is(false));
+    }
+
+    private CircuitBreaker createOpenBreaker() throws Exception {
+        CircuitBreaker breaker = createBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(2, 2)
+                .withPermittedCallsInHalfOpenState(2)
+                .withWaitDurationInOpenState(30, TimeUnit.SECONDS));
+        recordCalls(breaker, true, true);
+        assertThat(breaker.getState(), is(CircuitBreakerState.OPEN));
+        return breaker;
+    }
+
+    private CircuitBreaker createBreaker(CircuitBreakerConfig.Builder builder) {
+        return new CircuitBreaker(builder.withListener(listener).build()) {
+            @Override
+            long nanoTime() {
+                return now;
+            }
+        };
+    }
+
+    private void recordCalls(CircuitBreaker breaker, boolean... failures) throws Exception {
+        for (boolean failed : failures) {
+            long permit = breaker.acquirePermission();
+            if (failed) {
+                breaker.onError(permit, 0);
+            } else {
+                breaker.onSuccess(permit, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.auth0;
+
+import com.auth0.exception.APIException;
+import com.auth0.exception.Auth0Exception;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class CodeExchangeSingleFlightTest {
+
+    private static final String STATE = "1234";
+    private static final String REDIRECT_URI = "https://me.auth0.com:80/callback";
+
+    private ExecutorService executor;
+    private long now;
+    private CodeExchangeSingleFlight singleFlight;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(8);
+        now = 0;
+        singleFlight = new CodeExchangeSingleFlight(10, TimeUnit.SECONDS) {
+            @Override
+            long nanoTime() {
+                return now;
+            }
+        };
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldShareInFlightExchangeWithConcurrentDuplicates() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executions = new AtomicInteger();
+        final Tokens tokens = new Tokens("accessToken", "idToken", null, "Bearer", 86400L);
+        final CodeExchangeSingleFlight.Exchange exchange = new CodeExchangeSingleFlight.Exchange() {
+            @Override
+            public Tokens execute() throws Auth0Exception {
+                executions.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new Auth0Exception("interrupted", e);
+                }
+                return tokens;
+            }
+        };
+
+        List<Future<Tokens>> results = new ArrayList<>();
+        results.add(submit("abc123", exchange));
+        assertThat(started.await(5, TimeUnit.SECONDS), is(true));
+        for (int i = 0; i < 7; i++) {
+            results.add(submit("abc123", exchange));
+        }
+        release.countDown();
+
+        for (Future<Tokens> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS), is(sameInstance(tokens)));
+        }
+        assertThat(executions.get(), is(1));
+    }
+
+    @Test
+    public void shouldShareFailuresWithDuplicates() throws Exception {
+        final AtomicInteger executions = new AtomicInteger();
+        CodeExchangeSingleFlight.Exchange exchange = new CodeExchangeSingleFlight.Exchange() {
+            @Override
+            public Tokens execute() throws Auth0Exception {
+                executions.incrementAndGet();
+                throw new APIException("Service unavailable", 503, null);
+            }
+        };
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+            } catch (APIException e) {
+                assertThat(e.getStatusCode(), is(503));
+            }
+        }
+        assertThat(executions.get(), is(1));
+    }
+
+    @Test
+    public void shouldShareRejectionsWithDuplicates() throws Exception {
+        CodeExchangeSingleFlight.Exchange exchange = new CodeExchangeSingleFlight.Exchange() {
+            @Override
+            public Tokens execute() throws IdentityVerificationException {
+                throw new IdentityVerificationException("a0.circuit_open", "The circuit is open", null);
+            }
+        };
+
+        try {
+            singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        } catch (IdentityVerificationException ignored) {
+        }
+        try {
+            singleFlight.execute("abc123", STATE, REDIRECT_URI, countingExchange(new AtomicInteger()));
+        } catch (IdentityVerificationException e) {
+            assertThat(e.getCode(), is("a0.circuit_open"));
+        }
+    }
+
+    @Test
+    public void shouldNotShareExchangesOfDifferentCodes() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CodeExchangeSingleFlight.Exchange exchange = countingExchange(executions);
+
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        singleFlight.execute("def456", STATE, REDIRECT_URI, exchange);
+
+        assertThat(executions.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotShareExchangesOfDifferentStates() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CodeExchangeSingleFlight.Exchange exchange = countingExchange(executions);
+
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        singleFlight.execute("abc123", "5678", REDIRECT_URI, exchange);
+
+        assertThat(executions.get(), is(2));
+    }
+
+    @Test
+    public void shouldNotShareExchangesOfDifferentRedirectUris() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CodeExchangeSingleFlight.Exchange exchange = countingExchange(executions);
+
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        singleFlight.execute("abc123", STATE, "https://attacker.example/callback", exchange);
+
+        assertThat(executions.get(), is(2));
+    }
+
+    @Test
+    public void shouldExchangeAgainOnceCompletedExchangeExpired() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CodeExchangeSingleFlight.Exchange exchange = countingExchange(executions);
+
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        now += TimeUnit.SECONDS.toNanos(9);
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        assertThat(executions.get(), is(1));
+
+        now += TimeUnit.SECONDS.toNanos(1);
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        assertThat(executions.get(), is(2));
+    }
+
+    @Test
+    public void shouldEvictExpiredExchanges() throws Exception {
+        CodeExchangeSingleFlight.Exchange exchange = countingExchange(new AtomicInteger());
+
+        singleFlight.execute("abc123", STATE, REDIRECT_URI, exchange);
+        singleFlight.execute("def456", STATE, REDIRECT_URI, exchange);
+        assertThat(singleFlight.size(), is(2));
+
+        now += TimeUnit.SECONDS.toNanos(10);
+        singleFlight.execute("ghi789", STATE, REDIRECT_URI, exchange);
+        assertThat(singleFlight.size(), is(1));
+    }
+
+    private CodeExchangeSingleFlight.Exchange countingExchange(final AtomicInteger executions) {
+        return new CodeExchangeSingleFlight.Exchange() {
+            @Override
+            public Tokens execute() {
+                executions.incrementAndGet();
+                return new Tokens("accessToken", "idToken", null, "Bearer", 86400L);
+            }
+        };
+    }
+
+    private Future<Tokens> submit(final String code, final CodeExchangeSingleFlight.Exchange exchange) {
+        return executor.submit(new Callable<Tokens>() {
+            @Override
+            public Tokens call() throws Exception {
+                return singleFlight.execute(code, STATE, REDIRECT_URI, exchange);
+            }
+        });
+    }
+}
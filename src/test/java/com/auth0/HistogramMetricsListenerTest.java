@@ -0,0 +1,119 @@
+package com.auth0;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.auth0.MetricsListener.Stage.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class HistogramMetricsListenerTest {
+
+    @Test
+    public void shouldCountSuccessesAndFailuresPerStage() {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+
+        listener.onStageCompleted(CODE_EXCHANGE, TimeUnit.MILLISECONDS.toNanos(120), true);
+        listener.onStageCompleted(CODE_EXCHANGE, TimeUnit.MILLISECONDS.toNanos(80), false);
+        listener.onStageCompleted(ASSERT_VALID_STATE, 500, true);
+
+        assertThat(listener.getSuccessCount(CODE_EXCHANGE), is(1L));
+        assertThat(listener.getFailureCount(CODE_EXCHANGE), is(1L));
+        assertThat(listener.getTotalTime(CODE_EXCHANGE, TimeUnit.MILLISECONDS), is(200L));
+        assertThat(listener.getSuccessCount(ASSERT_VALID_STATE), is(1L));
+        assertThat(listener.getSuccessCount(SIGNATURE_VERIFICATION), is(0L));
+    }
+
+    @Test
+    public void shouldComputeHitRatePerCache() {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+
+        assertThat(listener.getHitRate(MetricsListener.Cache.REJECTED_CALLBACK), is(0.0));
+        listener.onCacheLookup(MetricsListener.Cache.REJECTED_CALLBACK, true);
+        listener.onCacheLookup(MetricsListener.Cache.REJECTED_CALLBACK, true);
+        listener.onCacheLookup(MetricsListener.Cache.REJECTED_CALLBACK, true);
+        listener.onCacheLookup(MetricsListener.Cache.REJECTED_CALLBACK, false);
+
+        assertThat(listener.getHitRate(MetricsListener.Cache.REJECTED_CALLBACK), is(0.75));
+        assertThat(listener.getHitRate(MetricsListener.Cache.VERIFIED_ID_TOKEN), is(0.0));
+    }
+
+    @Test
+    public void shouldRecordDurationsInPowerOfTwoMicrosecondBuckets() {
+        assertThat(HistogramMetricsListener.bucketOf(0), is(0));
+        assertThat(HistogramMetricsListener.bucketOf(999), is(0));
+        assertThat(HistogramMetricsListener.bucketOf(1000), is(1));
+        assertThat(HistogramMetricsListener.bucketOf(1999), is(1));
+        assertThat(HistogramMetricsListener.bucketOf(2000), is(2));
+        assertThat(HistogramMetricsListener.bucketOf(TimeUnit.MILLISECONDS.toNanos(1)), is(10));
+        assertThat(HistogramMetricsListener.bucketOf(TimeUnit.MINUTES.toNanos(5)), is(HistogramMetricsListener.BUCKET_COUNT - 1));
+        assertThat(HistogramMetricsListener.bucketOf(-1), is(0));
+    }
+
+    @Test
+    public void shouldExposeBucketUpperBounds() {
+        assertThat(HistogramMetricsListener.getBucketUpperBound(0, TimeUnit.NANOSECONDS), is(1000L));
+        assertThat(HistogramMetricsListener.getBucketUpperBound(10, TimeUnit.MICROSECONDS), is(1024L));
+        assertThat(HistogramMetricsListener.getBucketUpperBound(HistogramMetricsListener.BUCKET_COUNT - 1, TimeUnit.SECONDS), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldReturnCopyOfHistogram() {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        listener.onStageCompleted(CLAIMS_VALIDATION, 1500, true);
+
+        long[] histogram = listener.getHistogram(CLAIMS_VALIDATION);
+        assertThat(histogram.length, is(HistogramMetricsListener.BUCKET_COUNT));
+        assertThat(histogram[1], is(1L));
+        histogram[1] = 0;
+        assertThat(listener.getHistogram(CLAIMS_VALIDATION)[1], is(1L));
+    }
+
+    @Test
+    public void shouldEstimatePercentiles() {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        for (int i = 0; i < 99; i++) {
+            listener.onStageCompleted(SIGNATURE_VERIFICATION, TimeUnit.MICROSECONDS.toNanos(100), true);
+        }
+        listener.onStageCompleted(SIGNATURE_VERIFICATION, TimeUnit.MILLISECONDS.toNanos(50), true);
+
+        assertThat(listener.getPercentile(SIGNATURE_VERIFICATION, 50, TimeUnit.MICROSECONDS), is(128L));
+        assertThat(listener.getPercentile(SIGNATURE_VERIFICATION, 99, TimeUnit.MICROSECONDS), is(128L));
+        assertThat(listener.getPercentile(SIGNATURE_VERIFICATION, 100, TimeUnit.MICROSECONDS), is(65536L));
+        assertThat(listener.getPercentile(NONCE_LOOKUP, 99, TimeUnit.MICROSECONDS), is(0L));
+    }
+
+    @Test
+    public void shouldNotLoseConcurrentRecords() throws Exception {
+        final HistogramMetricsListener listener = new HistogramMetricsListener();
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < 10000; i++) {
+                        listener.onStageCompleted(CODE_EXCHANGE, 1000, i % 2 == 0);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS), is(true));
+
+        assertThat(listener.getSuccessCount(CODE_EXCHANGE), is(40000L));
+        assertThat(listener.getFailureCount(CODE_EXCHANGE), is(40000L));
+        assertThat(listener.getHistogram(CODE_EXCHANGE)[1], is(80000L));
+        assertThat(listener.getTotalTime(CODE_EXCHANGE, TimeUnit.MICROSECONDS), is(80000L));
+    }
+}
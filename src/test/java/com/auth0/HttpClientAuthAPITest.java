@@ -0,0 +1,175 @@
+package com.auth0;
+
+import com.auth0.exception.Auth0Exception;
+import com.auth0.json.auth.TokenHolder;
+import com.auth0.net.Telemetry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import okhttp3.logging.HttpLoggingInterceptor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class HttpClientAuthAPITest {
+
+    private static final String TOKEN_RESPONSE = "{\"access_token\":\"accessToken\",\"id_token\":\"idToken\",\"token_type\":\"Bearer\",\"expires_in\":86400}";
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private HttpServer server;
+    private volatile String receivedMethod;
+    private volatile String receivedPath;
+    private volatile String receivedBody;
+    private volatile String receivedTelemetry;
+    private volatile long responseDelayMillis;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                receivedMethod = exchange.getRequestMethod();
+                receivedPath = exchange.getRequestURI().getPath();
+                if ("HEAD".equals(receivedMethod)) {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                    return;
+                }
+                receivedBody = readBody(exchange.getRequestBody());
+                receivedTelemetry = exchange.getRequestHeaders().getFirst("Auth0-Client");
+                try {
+                    Thread.sleep(responseDelayMillis);
+                } catch (InterruptedException ignored) {
+                }
+                byte[] response = TOKEN_RESPONSE.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, response.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(response);
+                os.close();
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldExchangeCodeUsingTheGivenHttpClient() throws Exception {
+        HttpClientAuthAPI client = new HttpClientAuthAPI(getDomain(), "clientId", "clientSecret", new OkHttpClient());
+        client.setTelemetry(new Telemetry("auth0-java-mvc-common", "1.2.3"));
+
+        TokenHolder holder = client.exchangeCode("abc123", "https://me.auth0.com/callback").execute();
+
+        assertThat(holder.getAccessToken(), is("accessToken"));
+        assertThat(holder.getIdToken(), is("idToken"));
+        assertThat(holder.getExpiresIn(), is(86400L));
+        assertThat(receivedPath, is("/oauth/token"));
+        assertThat(receivedBody, containsString("\"client_id\":\"clientId\""));
+        assertThat(receivedBody, containsString("\"client_secret\":\"clientSecret\""));
+        assertThat(receivedBody, containsString("\"grant_type\":\"authorization_code\""));
+        assertThat(receivedBody, containsString("\"code\":\"abc123\""));
+        assertThat(receivedBody, containsString("\"redirect_uri\":\"https://me.auth0.com/callback\""));
+        assertThat(receivedTelemetry, is(new Telemetry("auth0-java-mvc-common", "1.2.3").getValue()));
+    }
+
+    @Test
+    public void shouldNotSendTelemetryWhenDisabled() throws Exception {
+        HttpClientAuthAPI client = new HttpClientAuthAPI(getDomain(), "clientId", "clientSecret", new OkHttpClient());
+        client.setTelemetry(new Telemetry("auth0-java-mvc-common", "1.2.3"));
+        client.doNotSendTelemetry();
+
+        client.exchangeCode("abc123", "https://me.auth0.com/callback").execute();
+
+        assertThat(receivedTelemetry, is(nullValue()));
+    }
+
+    @Test
+    public void shouldLogCodeExchangeWhenLoggingIsEnabled() throws Exception {
+        final List<String> messages = new ArrayList<>();
+        HttpClientAuthAPI client = new HttpClientAuthAPI(getDomain(), "clientId", "clientSecret", new OkHttpClient(), new HttpLoggingInterceptor.Logger() {
+            @Override
+            public void log(String message) {
+                messages.add(message);
+            }
+        });
+
+        client.exchangeCode("abc123", "https://me.auth0.com/callback").execute();
+        assertThat(messages, is(empty()));
+
+        client.setLoggingEnabled(true);
+        client.exchangeCode("abc123", "https://me.auth0.com/callback").execute();
+        assertThat(messages, hasItem(containsString("/oauth/token")));
+        assertThat(messages, hasItem(TOKEN_RESPONSE));
+
+        messages.clear();
+        client.setLoggingEnabled(false);
+        client.exchangeCode("abc123", "https://me.auth0.com/callback").execute();
+        assertThat(messages, is(empty()));
+    }
+
+    @Test
+    public void shouldFailWhenTheTokenEndpointIsSlowerThanTheConfiguredTimeout() throws Exception {
+        exception.expect(Auth0Exception.class);
+
+        responseDelayMillis = 2000;
+        OkHttpClient httpClient = new OkHttpClient.Builder()
+                .readTimeout(200, TimeUnit.MILLISECONDS)
+                .build();
+        HttpClientAuthAPI client = new HttpClientAuthAPI(getDomain(), "clientId", "clientSecret", httpClient);
+
+        client.exchangeCode("abc123", "https://me.auth0.com/callback").execute();
+    }
+
+    @Test
+    public void shouldPreconnectToTheTokenEndpoint() throws Exception {
+        HttpClientAuthAPI client = new HttpClientAuthAPI(getDomain(), "clientId", "clientSecret", new OkHttpClient());
+
+        client.preconnect();
+
+        assertThat(receivedMethod, is("HEAD"));
+        assertThat(receivedPath, is("/oauth/token"));
+    }
+
+    @Test
+    public void shouldThrowOnMissingHttpClient() {
+        exception.expect(NullPointerException.class);
+        new HttpClientAuthAPI("me.auth0.com", "clientId", "clientSecret", null);
+    }
+
+    private String getDomain() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    private static String readBody(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
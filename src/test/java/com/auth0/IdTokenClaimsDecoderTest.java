@@ -0,0 +1,164 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTDecodeException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.StringUtils;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class IdTokenClaimsDecoderTest {
+
+    private static final String HEADER = "{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"abc123\"}";
+
+    @Test
+    public void shouldDecodeRegisteredClaims() {
+        assertSameClaims("{\"iss\":\"https://me.auth0.com/\",\"sub\":\"auth0|user123\",\"aud\":\"clientId\",\"exp\":1587595161,"
+                + "\"nbf\":1587591561,\"iat\":1587591561,\"jti\":\"id1\",\"nonce\":\"a59vk592\",\"auth_time\":1587591500,\"name\":\"Jörg\"}");
+        assertSameClaims("{\"aud\":[\"clientId\",\"other\"],\"azp\":\"clientId\"}");
+        assertSameClaims("{}");
+    }
+
+    @Test
+    public void shouldConvertClaimsLikeJavaJwt() {
+        assertSameClaims("{\"iss\":123,\"sub\":1.5,\"jti\":true}");
+        assertSameClaims("{\"iss\":{\"a\":1},\"sub\":[1,2],\"jti\":null}");
+        assertSameClaims("{\"iss\":12345678901234567890123,\"sub\":1e3}");
+        assertSameClaims("{\"aud\":\"\"}");
+        assertSameClaims("{\"aud\":42}");
+        assertSameClaims("{\"aud\":null}");
+        assertSameClaims("{\"aud\":[1,true,null,1.5,\"x\"]}");
+        assertSameClaims("{\"exp\":1587595161.9,\"iat\":null,\"nbf\":-1}");
+        assertSameClaims("{\"nonce\":1234,\"azp\":{\"a\":1},\"auth_time\":\"1587591500\"}");
+        assertSameClaims("{\"auth_time\":1587591500.5,\"nonce\":null}");
+        assertSameClaims("{\"auth_time\":12345678901234567890123}");
+        assertSameClaims("{\"sub\":\"first\",\"sub\":\"second\"}");
+        assertSameClaims("{\"custom\":{\"nested\":[1,{\"deep\":[true,null]}],\"s\":\"x\"},\"sub\":\"after\"}");
+    }
+
+    @Test
+    public void shouldRejectTheSameTokensAsJavaJwt() {
+        assertBothReject("{\"exp\":\"1587595161\"}");
+        assertBothReject("{\"iat\":true}");
+        assertBothReject("{\"nbf\":12345678901234567890123}");
+        assertBothReject("{\"aud\":[{\"a\":1}]}");
+        assertBothReject("{\"aud\":[[\"a\"]]}");
+        assertBothReject("[]");
+        assertBothReject("{\"sub\":\"abc\"");
+        assertBothReject("not json");
+        assertBothReject("");
+    }
+
+    @Test
+    public void shouldRejectNullPayload() {
+        // java-jwt accepts it, but then fails with a NullPointerException when reading any claim
+        try {
+            IdTokenClaimsDecoder.decode(token("null"), null);
+            fail();
+        } catch (JWTDecodeException e) {
+            assertThat(e.getMessage(), is("The token's payload is not a JSON object."));
+        }
+    }
+
+    @Test
+    public void shouldRejectTokenWithoutThreeParts() {
+        try {
+            IdTokenClaimsDecoder.decode("abc.def", null);
+            fail();
+        } catch (JWTDecodeException e) {
+            assertThat(e.getMessage(), is("The token was expected to have 3 parts."));
+        }
+    }
+
+    @Test
+    public void shouldDecodeOtherClaimsOnFirstAccess() {
+        String token = token("{\"sub\":\"user\",\"org_id\":\"org_123\",\"roles\":[\"admin\"]}");
+        IdTokenClaims claims = IdTokenClaimsDecoder.decode(token, JWT.decode(token));
+
+        assertThat(claims.getClaim("org_id").asString(), is("org_123"));
+        assertThat(claims.getClaim("roles").asList(String.class), contains("admin"));
+        assertThat(claims.getClaims().keySet(), containsInAnyOrder("sub", "org_id", "roles"));
+        assertThat(claims.getKeyId(), is("abc123"));
+        assertThat(claims.getType(), is("JWT"));
+    }
+
+    @Test
+    public void shouldDecodeLargePayloadWithoutReusingItsBuffer() {
+        StringBuilder json = new StringBuilder("{\"sub\":\"user\",\"large\":\"");
+        for (int i = 0; i < 20000; i++) {
+            json.append('x');
+        }
+        json.append("\"}");
+        assertSameClaims(json.toString());
+        assertSameClaims("{\"sub\":\"small\"}");
+    }
+
+    @Test
+    public void shouldDecodeBase64LikeJavaJwt() {
+        Random random = new Random(42);
+        for (int size = 0; size < 64; size++) {
+            byte[] data = new byte[size];
+            random.nextBytes(data);
+            String[] encodings = {
+                    Base64.encodeBase64URLSafeString(data),
+                    Base64.encodeBase64String(data),
+                    "!" + Base64.encodeBase64URLSafeString(data) + "~"
+            };
+            for (String encoded : encodings) {
+                byte[] out = new byte[encoded.length()];
+                int length = IdTokenClaimsDecoder.decodeBase64(encoded, 0, encoded.length(), out);
+                assertThat(encoded, Arrays.copyOf(out, length), is(Base64.decodeBase64(encoded)));
+            }
+        }
+    }
+
+    private static String token(String payloadJson) {
+        return Base64.encodeBase64URLSafeString(StringUtils.getBytesUtf8(HEADER)) + "."
+                + Base64.encodeBase64URLSafeString(StringUtils.getBytesUtf8(payloadJson)) + ".c2lnbmF0dXJl";
+    }
+
+    private static void assertSameClaims(String payloadJson) {
+        String token = token(payloadJson);
+        DecodedJWT expected = JWT.decode(token);
+        IdTokenClaims actual = IdTokenClaimsDecoder.decode(token, expected);
+
+        assertThat(payloadJson, actual.getToken(), is(expected.getToken()));
+        assertThat(payloadJson, actual.getHeader(), is(expected.getHeader()));
+        assertThat(payloadJson, actual.getPayload(), is(expected.getPayload()));
+        assertThat(payloadJson, actual.getSignature(), is(expected.getSignature()));
+        assertThat(payloadJson, actual.getAlgorithm(), is(expected.getAlgorithm()));
+        assertThat(payloadJson, actual.getIssuer(), is(expected.getIssuer()));
+        assertThat(payloadJson, actual.getSubject(), is(expected.getSubject()));
+        assertThat(payloadJson, actual.getAudience(), is(expected.getAudience()));
+        assertThat(payloadJson, actual.getExpiresAt(), is(expected.getExpiresAt()));
+        assertThat(payloadJson, actual.getNotBefore(), is(expected.getNotBefore()));
+        assertThat(payloadJson, actual.getIssuedAt(), is(expected.getIssuedAt()));
+        assertThat(payloadJson, actual.getId(), is(expected.getId()));
+        assertThat(payloadJson, IdTokenClaims.getNonce(actual), is(IdTokenClaims.getNonce(expected)));
+        assertThat(payloadJson, IdTokenClaims.getAuthorizedParty(actual), is(IdTokenClaims.getAuthorizedParty(expected)));
+        assertThat(payloadJson, IdTokenClaims.getAuthTime(actual), is(IdTokenClaims.getAuthTime(expected)));
+    }
+
+    private static void assertBothReject(String payloadJson) {
+        String token = token(payloadJson);
+        try {
+            JWT.decode(token);
+            fail("java-jwt accepted " + payloadJson);
+        } catch (JWTDecodeException expected) {
+            // expected
+        }
+        try {
+            IdTokenClaimsDecoder.decode(token, null);
+            fail("IdTokenClaimsDecoder accepted " + payloadJson);
+        } catch (JWTDecodeException expected) {
+            // expected
+        }
+    }
+}
@@ -45,4 +45,13 @@ public class IdentityVerificationExceptionTest {
         IdentityVerificationException exception2 = new IdentityVerificationException("a0.invalid_jwt_error", "description", null);
         assertThat(exception2.isJWTError(), is(true));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldBeCircuitBreakerError() {
+        IdentityVerificationException exception = new IdentityVerificationException("a0.circuit_open", "description", null);
+        assertThat(exception.isCircuitBreakerError(), is(true));
+        IdentityVerificationException exception2 = new IdentityVerificationException("a0.bulkhead_full", "description", null);
+        assertThat(exception2.isCircuitBreakerError(), is(true));
+        assertThat(exception2.isAPIError(), is(false));
+    }
+}
@@ -0,0 +1,620 @@
+package com.auth0;
+
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkException;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.NetworkException;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.auth0.jwk.UrlJwkProvider;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.*;
+
+public class JwksCacheTest {
+
+    private static final long NOW = 1587592561000L;
+    private static final long TTL = 600_000L;
+    private static final long REFRESH_AHEAD = 120_000L;
+    private static final long GRACE = 3_600_000L;
+    private static final long RETRY = 10_000L;
+    private static final long FETCH_INTERVAL = 5_000L;
+    private static final long ABSENT_TTL = 60_000L;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private long now;
+    private Clock clock;
+    private List<Runnable> tasks;
+    private JwkProvider provider;
+    private HistogramMetricsListener listener;
+    private JwksCache cache;
+
+    @Before
+    public void setUp() {
+        now = NOW;
+        clock = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+        };
+        tasks = new ArrayList<>();
+        provider = mock(JwkProvider.class);
+        listener = new HistogramMetricsListener();
+        cache = new JwksCache(provider, configBuilder().build(), clock, listener);
+    }
+
+    private JwksCacheConfig.Builder configBuilder() {
+        return JwksCacheConfig.newBuilder()
+                .withTimeToLive(TTL, TimeUnit.MILLISECONDS)
+                .withRefreshAhead(REFRESH_AHEAD, TimeUnit.MILLISECONDS)
+                .withGracePeriod(GRACE, TimeUnit.MILLISECONDS)
+                .withRefreshRetryInterval(RETRY, TimeUnit.MILLISECONDS)
+                .withMinimumFetchInterval(FETCH_INTERVAL, TimeUnit.MILLISECONDS)
+                .withAbsentKeyTimeToLive(ABSENT_TTL, TimeUnit.MILLISECONDS)
+                .withExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        tasks.add(command);
+                    }
+                });
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        for (Runnable task : pending) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void shouldFetchKeyOnceUntilRefreshAhead() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenReturn(jwk);
+
+        assertThat(cache.get("k1"), is(jwk));
+        now = NOW + TTL - REFRESH_AHEAD - 1;
+        assertThat(cache.get("k1"), is(jwk));
+
+        verify(provider, times(1)).get("k1");
+        assertThat(tasks, is(empty()));
+        assertThat(listener.getHitCount(MetricsListener.Cache.JWKS), is(1L));
+        assertThat(listener.getMissCount(MetricsListener.Cache.JWKS), is(1L));
+    }
+
+    @Test
+    public void shouldRefreshKeyInBackgroundOnceDuringRefreshAhead() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        Jwk refreshed = mock(Jwk.class);
+        when(provider.get("k1")).thenReturn(jwk, refreshed);
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(tasks, hasSize(1));
+
+        runTasks();
+        assertThat(cache.get("k1"), is(refreshed));
+        assertThat(tasks, is(empty()));
+        verify(provider, times(2)).get("k1");
+    }
+
+    @Test
+    public void shouldRefreshOnSharedThreadWithoutContextClassLoaderByDefault() throws Exception {
+        final Jwk jwk = mock(Jwk.class);
+        final CountDownLatch refreshed = new CountDownLatch(1);
+        final Thread[] refreshThread = new Thread[1];
+        when(provider.get("k1")).thenReturn(jwk).thenAnswer(new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) {
+                refreshThread[0] = Thread.currentThread();
+                refreshed.countDown();
+                return jwk;
+            }
+        });
+        cache = new JwksCache(provider, JwksCacheConfig.newBuilder()
+                .withTimeToLive(TTL, TimeUnit.MILLISECONDS)
+                .withRefreshAhead(REFRESH_AHEAD, TimeUnit.MILLISECONDS)
+                .build(), clock, null);
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        cache.get("k1");
+
+        assertThat(refreshed.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(refreshThread[0].getName(), is("auth0-jwks-refresh"));
+        assertThat(refreshThread[0].isDaemon(), is(true));
+        assertThat(refreshThread[0].getContextClassLoader(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldServeExpiredKeyDuringGracePeriodWhileRefreshFails() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenReturn(jwk).thenThrow(new NetworkException("Cannot obtain jwks from url", null));
+        cache.get("k1");
+
+        now = NOW + TTL;
+        assertThat(cache.get("k1"), is(jwk));
+        runTasks();
+
+        // Not retried before the retry interval
+        now = NOW + TTL + RETRY - 1;
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(tasks, is(empty()));
+
+        now = NOW + TTL + RETRY;
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(tasks, hasSize(1));
+        runTasks();
+
+        now = NOW + TTL + GRACE - 1;
+        assertThat(cache.get("k1"), is(jwk));
+        verify(provider, times(3)).get("k1");
+    }
+
+    @Test
+    public void shouldFetchWhileCallerWaitsAfterGracePeriod() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenReturn(jwk).thenThrow(new NetworkException("Cannot obtain jwks from url", null));
+        cache.get("k1");
+
+        now = NOW + TTL + GRACE;
+        exception.expect(NetworkException.class);
+        cache.get("k1");
+    }
+
+    @Test
+    public void shouldStopServingKeyRemovedFromJwks() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenReturn(jwk).thenThrow(new SigningKeyNotFoundException("No key found", null));
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        cache.get("k1");
+        runTasks();
+        assertThat(cache.size(), is(0));
+
+        exception.expect(SigningKeyNotFoundException.class);
+        cache.get("k1");
+    }
+
+    @Test
+    public void shouldServeKeyWhileWrappedRefreshFailureIsNotAMissingKey() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        NetworkException networkException = new NetworkException("Cannot obtain jwks from url", null);
+        when(provider.get("k1")).thenReturn(jwk).thenThrow(new SigningKeyNotFoundException("Failed to get key with kid k1", networkException));
+        cache.get("k1");
+
+        now = NOW + TTL;
+        cache.get("k1");
+        runTasks();
+
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(tasks, is(empty()));
+    }
+
+    @Test
+    public void shouldRefreshEveryKeyOfUrlJwkProviderWithOneFetch() throws Exception {
+        Jwk jwk1 = mock(Jwk.class);
+        when(jwk1.getId()).thenReturn("k1");
+        Jwk jwk2 = mock(Jwk.class);
+        when(jwk2.getId()).thenReturn("k2");
+        Jwk refreshed1 = mock(Jwk.class);
+        when(refreshed1.getId()).thenReturn("k1");
+        Jwk refreshed2 = mock(Jwk.class);
+        when(refreshed2.getId()).thenReturn("k2");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Arrays.asList(jwk1, jwk2), Arrays.asList(refreshed1, refreshed2));
+        cache = new JwksCache(urlProvider, configBuilder().build(), clock, null);
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        assertThat(cache.get("k1"), is(jwk1));
+        assertThat(cache.get("k2"), is(jwk2));
+        assertThat(tasks, hasSize(1));
+        runTasks();
+
+        assertThat(cache.get("k1"), is(refreshed1));
+        assertThat(cache.get("k2"), is(refreshed2));
+        verify(urlProvider, times(2)).getAll();
+    }
+
+    @Test
+    public void shouldNotRefreshJwksFetchedLessThanIntervalAgo() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(jwk.getId()).thenReturn("k1");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Collections.singletonList(jwk));
+        cache = new JwksCache(urlProvider, configBuilder().withMinimumFetchInterval(TTL, TimeUnit.MILLISECONDS).build(), clock, null);
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        cache.get("k1");
+        runTasks();
+        verify(urlProvider, times(1)).getAll();
+
+        // Not scheduled again until the interval is over
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(tasks, is(empty()));
+        now = NOW + TTL;
+        cache.get("k1");
+        runTasks();
+        verify(urlProvider, times(2)).getAll();
+    }
+
+    @Test
+    public void shouldStopServingKeyRemovedFromUrlJwks() throws Exception {
+        Jwk jwk1 = mock(Jwk.class);
+        when(jwk1.getId()).thenReturn("k1");
+        Jwk jwk2 = mock(Jwk.class);
+        when(jwk2.getId()).thenReturn("k2");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Arrays.asList(jwk1, jwk2), Collections.singletonList(jwk2));
+        cache = new JwksCache(urlProvider, configBuilder().build(), clock, null);
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        cache.get("k1");
+        runTasks();
+
+        assertThat(cache.get("k2"), is(jwk2));
+        exception.expect(SigningKeyNotFoundException.class);
+        cache.get("k1");
+    }
+
+    @Test
+    public void shouldServeUrlJwksDuringGracePeriodWhileRefreshFails() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(jwk.getId()).thenReturn("k1");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Collections.singletonList(jwk)).thenThrow(new NetworkException("Cannot obtain jwks from url", null));
+        cache = new JwksCache(urlProvider, configBuilder().build(), clock, null);
+        cache.get("k1");
+
+        now = NOW + TTL;
+        cache.get("k1");
+        runTasks();
+
+        now = NOW + TTL + GRACE - 1;
+        assertThat(cache.get("k1"), is(jwk));
+    }
+
+    @Test
+    public void shouldNotCacheFailedFetch() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenThrow(new NetworkException("Cannot obtain jwks from url", null)).thenReturn(jwk);
+
+        try {
+            cache.get("k1");
+        } catch (JwkException ignored) {
+        }
+        now = NOW + FETCH_INTERVAL;
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void shouldNotRememberKeyAsAbsentWhenWrappedFetchFailed() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        NetworkException networkException = new NetworkException("Cannot obtain jwks from url", null);
+        when(provider.get("k1")).thenThrow(new SigningKeyNotFoundException("Failed to get key with kid k1", networkException)).thenReturn(jwk);
+
+        try {
+            cache.get("k1");
+            fail("Expected a SigningKeyNotFoundException");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+        now = NOW + FETCH_INTERVAL;
+        assertThat(cache.get("k1"), is(jwk));
+    }
+
+    @Test
+    public void shouldCacheKeyWithoutId() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get(null)).thenReturn(jwk);
+
+        assertThat(cache.get(null), is(jwk));
+        assertThat(cache.get(null), is(jwk));
+        verify(provider, times(1)).get(null);
+    }
+
+    @Test
+    public void shouldRefreshAgainWhenExecutorRejectsRefresh() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenReturn(jwk);
+        Executor executor = mock(Executor.class);
+        doThrow(new RejectedExecutionException()).doNothing().when(executor).execute(Mockito.any(Runnable.class));
+        cache = new JwksCache(provider, configBuilder().withExecutor(executor).build(), clock, null);
+        cache.get("k1");
+
+        now = NOW + TTL - REFRESH_AHEAD;
+        assertThat(cache.get("k1"), is(jwk));
+        assertThat(cache.get("k1"), is(jwk));
+        verify(executor, times(2)).execute(Mockito.any(Runnable.class));
+    }
+
+    @Test
+    public void shouldRememberAbsentKey() throws Exception {
+        when(provider.get("unknown")).thenThrow(new SigningKeyNotFoundException("No key found", null));
+
+        for (long time : new long[]{NOW, NOW + ABSENT_TTL - 1, NOW + ABSENT_TTL}) {
+            now = time;
+            try {
+                cache.get("unknown");
+            } catch (SigningKeyNotFoundException ignored) {
+            }
+        }
+
+        verify(provider, times(2)).get("unknown");
+        assertThat(listener.getHitCount(MetricsListener.Cache.JWKS), is(1L));
+        assertThat(listener.getMissCount(MetricsListener.Cache.JWKS), is(2L));
+    }
+
+    @Test
+    public void shouldNotFetchJwksMoreThanOncePerInterval() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(jwk.getId()).thenReturn("k1");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Collections.<Jwk>emptyList(), Collections.singletonList(jwk));
+        cache = new JwksCache(urlProvider, configBuilder().build(), clock, null);
+        try {
+            cache.get("unknown");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+
+        now = NOW + FETCH_INTERVAL - 1;
+        try {
+            cache.get("k1");
+            fail("Expected a SigningKeyNotFoundException");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(e.getMessage(), is("No key found for kid k1, the JWKS was fetched less than 5000 ms ago"));
+        }
+        verify(urlProvider, times(1)).getAll();
+
+        now = NOW + FETCH_INTERVAL;
+        assertThat(cache.get("k1"), is(jwk));
+    }
+
+    @Test
+    public void shouldFetchNewKeyRightAfterUnknownKeyWhenProviderCannotListKeys() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("unknown")).thenThrow(new SigningKeyNotFoundException("No key found", null));
+        when(provider.get("k1")).thenReturn(jwk);
+        try {
+            cache.get("unknown");
+        } catch (SigningKeyNotFoundException ignored) {
+        }
+
+        now = NOW + 1;
+        assertThat(cache.get("k1"), is(jwk));
+        verify(provider, times(1)).get("unknown");
+    }
+
+    @Test
+    public void shouldNotFetchSameKeyMoreThanOncePerIntervalWhenProviderCannotListKeys() throws Exception {
+        Jwk jwk = mock(Jwk.class);
+        when(provider.get("k1")).thenThrow(new NetworkException("Cannot obtain jwks from url", null)).thenReturn(jwk);
+        try {
+            cache.get("k1");
+            fail("Expected a NetworkException");
+        } catch (NetworkException ignored) {
+        }
+
+        now = NOW + FETCH_INTERVAL - 1;
+        try {
+            cache.get("k1");
+            fail("Expected a SigningKeyNotFoundException");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(e.getMessage(), is("No key found for kid k1, it was fetched less than 5000 ms ago"));
+        }
+        verify(provider, times(1)).get("k1");
+
+        now = NOW + FETCH_INTERVAL;
+        assertThat(cache.get("k1"), is(jwk));
+    }
+
+    @Test
+    public void shouldFetchMissingKeyOnceForConcurrentCallers() throws Exception {
+        final Jwk jwk = mock(Jwk.class);
+        final CountDownLatch fetching = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(provider.get("k1")).thenAnswer(new Answer<Jwk>() {
+            @Override
+            public Jwk answer(InvocationOnMock invocation) throws Throwable {
+                fetching.countDown();
+                release.await();
+                return jwk;
+            }
+        });
+        Callable<Jwk> lookup = new Callable<Jwk>() {
+            @Override
+            public Jwk call() throws Exception {
+                return cache.get("k1");
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Jwk> first = executor.submit(lookup);
+            fetching.await();
+            Future<Jwk> second = executor.submit(lookup);
+            release.countDown();
+
+            assertThat(first.get(5, TimeUnit.SECONDS), is(jwk));
+            assertThat(second.get(5, TimeUnit.SECONDS), is(jwk));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(provider, times(1)).get("k1");
+    }
+
+    @Test
+    public void shouldKeepEveryKeyOfUrlJwkProvider() throws Exception {
+        Jwk jwk1 = mock(Jwk.class);
+        when(jwk1.getId()).thenReturn("k1");
+        Jwk jwk2 = mock(Jwk.class);
+        when(jwk2.getId()).thenReturn("k2");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Arrays.asList(jwk1, jwk2));
+        cache = new JwksCache(urlProvider, configBuilder().build(), clock, null);
+
+        try {
+            cache.get("unknown");
+            fail("Expected a SigningKeyNotFoundException");
+        } catch (SigningKeyNotFoundException e) {
+            assertThat(e.getMessage(), is("No key found for kid unknown in the JWKS"));
+        }
+        assertThat(cache.get("k1"), is(jwk1));
+        assertThat(cache.get("k2"), is(jwk2));
+        verify(urlProvider, times(1)).getAll();
+        verify(urlProvider, never()).get(anyString());
+    }
+
+    private static Jwk rsaJwk(String keyId) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        RSAPublicKey publicKey = (RSAPublicKey) generator.generateKeyPair().getPublic();
+        Map<String, Object> values = new HashMap<>();
+        values.put("kid", keyId);
+        values.put("kty", "RSA");
+        values.put("alg", "RS256");
+        values.put("use", "sig");
+        values.put("n", Base64.encodeBase64URLSafeString(toUnsignedBytes(publicKey.getModulus())));
+        values.put("e", Base64.encodeBase64URLSafeString(toUnsignedBytes(publicKey.getPublicExponent())));
+        return Jwk.fromValues(values);
+    }
+
+    private static byte[] toUnsignedBytes(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private JwksCache snapshotCache(UrlJwkProvider urlProvider, File file) {
+        return new JwksCache(urlProvider, configBuilder().withSnapshotFile(file).build(), clock, null);
+    }
+
+    @Test
+    public void shouldLoadSavedKeysWithoutFetching() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        Jwk jwk = rsaJwk("k1");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Collections.singletonList(jwk));
+        snapshotCache(urlProvider, file).get("k1");
+        runTasks();
+
+        UrlJwkProvider restartedProvider = mock(UrlJwkProvider.class);
+        now = NOW + TTL + GRACE - 1;
+        Jwk loaded = snapshotCache(restartedProvider, file).get("k1");
+
+        assertThat(loaded.getId(), is("k1"));
+        assertThat(loaded.getAlgorithm(), is("RS256"));
+        assertThat(loaded.getPublicKey(), is(jwk.getPublicKey()));
+        verify(restartedProvider, never()).getAll();
+        verify(restartedProvider, never()).get(anyString());
+        // Expired, so refreshed in the background
+        assertThat(tasks, hasSize(1));
+        assertThat(folder.getRoot().list(), is(new String[]{"jwks.json"}));
+    }
+
+    @Test
+    public void shouldIgnoreSavedKeysPastGracePeriod() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Collections.singletonList(rsaJwk("k1")));
+        snapshotCache(urlProvider, file).get("k1");
+        runTasks();
+
+        now = NOW + TTL + GRACE;
+        JwksCache restarted = snapshotCache(urlProvider, file);
+
+        assertThat(restarted.size(), is(0));
+    }
+
+    @Test
+    public void shouldIgnoreCorruptedSnapshot() throws Exception {
+        File file = folder.newFile("jwks.json");
+        Files.write(file.toPath(), "{\"fetched_at\":".getBytes(StandardCharsets.UTF_8));
+        Jwk jwk = rsaJwk("k1");
+        UrlJwkProvider urlProvider = mock(UrlJwkProvider.class);
+        when(urlProvider.getAll()).thenReturn(Collections.singletonList(jwk));
+        JwksCache cache = snapshotCache(urlProvider, file);
+
+        assertThat(cache.size(), is(0));
+        assertThat(cache.get("k1"), is(jwk));
+        runTasks();
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), containsString("\"kid\":\"k1\""));
+    }
+
+    @Test
+    public void shouldNotReplaceSnapshotWithOlderKeys() throws Exception {
+        File file = new File(folder.getRoot(), "jwks.json");
+        JwksSnapshot snapshot = new JwksSnapshot(file);
+        snapshot.write(NOW + 1, Collections.singletonList(rsaJwk("k2")));
+        snapshot.write(NOW, Collections.singletonList(rsaJwk("k1")));
+
+        JwksSnapshot.Loaded loaded = new JwksSnapshot(file).read();
+        assertThat(loaded.fetchedAtMillis, is(NOW + 1));
+        assertThat(loaded.jwks.get(0).getId(), is("k2"));
+    }
+
+    @Test
+    public void shouldThrowOnRefreshAheadNotShorterThanTimeToLive() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("the refresh ahead window must be shorter than the time to live");
+        JwksCacheConfig.newBuilder()
+                .withTimeToLive(1, TimeUnit.MINUTES)
+                .withRefreshAhead(1, TimeUnit.MINUTES)
+                .build();
+    }
+
+    @Test
+    public void shouldThrowOnInvalidTimeToLive() {
+        exception.expect(IllegalArgumentException.class);
+        JwksCacheConfig.newBuilder()
+                .withTimeToLive(0, TimeUnit.MINUTES);
+    }
+
+    @Test
+    public void shouldThrowOnNegativeGracePeriod() {
+        exception.expect(IllegalArgumentException.class);
+        JwksCacheConfig.newBuilder()
+                .withGracePeriod(-1, TimeUnit.MINUTES);
+    }
+}
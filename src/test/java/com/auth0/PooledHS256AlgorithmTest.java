@@ -0,0 +1,96 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PooledHS256AlgorithmTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @Test
+    public void shouldVerifyValidSignatureRepeatedly() {
+        PooledHS256Algorithm algorithm = new PooledHS256Algorithm("secret");
+        DecodedJWT first = JWT.decode(sign("secret", "user1"));
+        DecodedJWT second = JWT.decode(sign("secret", "user2"));
+
+        algorithm.verify(first);
+        algorithm.verify(second);
+        algorithm.verify(first);
+    }
+
+    @Test
+    public void shouldRejectSignatureOfAnotherSecret() {
+        exception.expect(SignatureVerificationException.class);
+        PooledHS256Algorithm algorithm = new PooledHS256Algorithm("secret");
+
+        algorithm.verify(JWT.decode(sign("another-secret", "user1")));
+    }
+
+    @Test
+    public void shouldRejectTruncatedSignature() {
+        exception.expect(SignatureVerificationException.class);
+        PooledHS256Algorithm algorithm = new PooledHS256Algorithm("secret");
+        String token = sign("secret", "user1");
+
+        algorithm.verify(JWT.decode(token.substring(0, token.length() - 8)));
+    }
+
+    @Test
+    public void shouldVerifyConcurrently() throws Exception {
+        final PooledHS256Algorithm algorithm = new PooledHS256Algorithm("secret");
+        final DecodedJWT valid = JWT.decode(sign("secret", "user1"));
+        final DecodedJWT invalid = JWT.decode(sign("another-secret", "user1"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                final boolean expectValid = i % 2 == 0;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        try {
+                            algorithm.verify(expectValid ? valid : invalid);
+                            return expectValid;
+                        } catch (SignatureVerificationException e) {
+                            return !expectValid;
+                        }
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), is(true));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldNotSign() {
+        exception.expect(SignatureGenerationException.class);
+        new PooledHS256Algorithm("secret").sign(new byte[0]);
+    }
+
+    private static String sign(String secret, String subject) {
+        return JWT.create()
+                .withSubject(subject)
+                .sign(Algorithm.HMAC256(secret));
+    }
+}
@@ -0,0 +1,210 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.SignatureGenerationException;
+import com.auth0.jwt.exceptions.SignatureVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.codec.binary.Base64;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class PooledSignatureAlgorithmTest {
+
+    private static KeyPair keyPair;
+    private static KeyPair otherKeyPair;
+    private static KeyPair ecKeyPair;
+    private static KeyPair otherEcKeyPair;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        otherKeyPair = generator.generateKeyPair();
+        KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+        ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+        ecKeyPair = ecGenerator.generateKeyPair();
+        otherEcKeyPair = ecGenerator.generateKeyPair();
+    }
+
+    @Test
+    public void shouldVerifyValidSignatureRepeatedly() {
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.rs256((RSAPublicKey) keyPair.getPublic());
+        DecodedJWT first = JWT.decode(sign(keyPair, "user1"));
+        DecodedJWT second = JWT.decode(sign(keyPair, "user2"));
+
+        algorithm.verify(first);
+        algorithm.verify(second);
+        algorithm.verify(first);
+    }
+
+    @Test
+    public void shouldRejectSignatureOfAnotherKey() {
+        exception.expect(SignatureVerificationException.class);
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.rs256((RSAPublicKey) keyPair.getPublic());
+
+        algorithm.verify(JWT.decode(sign(otherKeyPair, "user1")));
+    }
+
+    @Test
+    public void shouldVerifyAfterRejectingSignature() {
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.rs256((RSAPublicKey) keyPair.getPublic());
+        String token = sign(keyPair, "user1");
+        try {
+            algorithm.verify(JWT.decode(token.substring(0, token.lastIndexOf('.') + 1) + "AAAA"));
+        } catch (SignatureVerificationException ignored) {
+        }
+
+        algorithm.verify(JWT.decode(token));
+    }
+
+    @Test
+    public void shouldVerifyConcurrently() throws Exception {
+        final PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.rs256((RSAPublicKey) keyPair.getPublic());
+        final DecodedJWT valid = JWT.decode(sign(keyPair, "user1"));
+        final DecodedJWT invalid = JWT.decode(sign(otherKeyPair, "user1"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final boolean expectValid = i % 2 == 0;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        try {
+                            algorithm.verify(expectValid ? valid : invalid);
+                            return expectValid;
+                        } catch (SignatureVerificationException e) {
+                            return !expectValid;
+                        }
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get(), is(true));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldVerifyPS256Signature() throws Exception {
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.ps256((RSAPublicKey) keyPair.getPublic());
+        DecodedJWT decoded = JWT.decode(signPS256(keyPair));
+
+        assertThat(algorithm.getName(), is("PS256"));
+        algorithm.verify(decoded);
+        algorithm.verify(decoded);
+    }
+
+    @Test
+    public void shouldRejectPS256SignatureOfAnotherKey() throws Exception {
+        exception.expect(SignatureVerificationException.class);
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.ps256((RSAPublicKey) keyPair.getPublic());
+
+        algorithm.verify(JWT.decode(signPS256(otherKeyPair)));
+    }
+
+    @Test
+    public void shouldVerifyES256Signature() {
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.es256((ECPublicKey) ecKeyPair.getPublic());
+        // ECDSA signatures are randomized, so R and S take every size and sign bit across tokens
+        for (int i = 0; i < 50; i++) {
+            algorithm.verify(JWT.decode(signES256(ecKeyPair, "user" + i)));
+        }
+    }
+
+    @Test
+    public void shouldRejectES256SignatureOfAnotherKey() {
+        exception.expect(SignatureVerificationException.class);
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.es256((ECPublicKey) ecKeyPair.getPublic());
+
+        algorithm.verify(JWT.decode(signES256(otherEcKeyPair, "user1")));
+    }
+
+    @Test
+    public void shouldRejectES256SignatureOfWrongLength() {
+        exception.expect(SignatureVerificationException.class);
+        PooledSignatureAlgorithm algorithm = PooledSignatureAlgorithm.es256((ECPublicKey) ecKeyPair.getPublic());
+        String token = signES256(ecKeyPair, "user1");
+
+        algorithm.verify(JWT.decode(token.substring(0, token.length() - 4)));
+    }
+
+    @Test
+    public void shouldConvertJwsSignatureToDer() {
+        byte[] jws = new byte[64];
+        jws[31] = 0x01;
+        jws[32] = (byte) 0x80;
+        byte[] der = PooledSignatureAlgorithm.toDer(jws, 64);
+
+        assertThat(der.length, is(2 + 3 + 2 + 33));
+        assertThat(der[0], is((byte) 0x30));
+        assertThat(der[1], is((byte) (3 + 2 + 33)));
+        assertThat(der[2], is((byte) 0x02));
+        assertThat(der[3], is((byte) 1));
+        assertThat(der[4], is((byte) 0x01));
+        assertThat(der[5], is((byte) 0x02));
+        assertThat(der[6], is((byte) 33));
+        assertThat(der[7], is((byte) 0x00));
+        assertThat(der[8], is((byte) 0x80));
+    }
+
+    @Test
+    public void shouldNotSign() {
+        exception.expect(SignatureGenerationException.class);
+        PooledSignatureAlgorithm.rs256((RSAPublicKey) keyPair.getPublic()).sign(new byte[0]);
+    }
+
+    private static String sign(KeyPair keyPair, String subject) {
+        return JWT.create()
+                .withSubject(subject)
+                .sign(Algorithm.RSA256((RSAPublicKey) keyPair.getPublic(), (RSAPrivateKey) keyPair.getPrivate()));
+    }
+
+    private static String signES256(KeyPair keyPair, String subject) {
+        return JWT.create()
+                .withSubject(subject)
+                .sign(Algorithm.ECDSA256((ECPublicKey) keyPair.getPublic(), (ECPrivateKey) keyPair.getPrivate()));
+    }
+
+    private static String signPS256(KeyPair keyPair) throws Exception {
+        // java-jwt can't sign PS256 tokens
+        String content = base64Url("{\"alg\":\"PS256\",\"typ\":\"JWT\"}") + "." + base64Url("{\"sub\":\"user1\"}");
+        Signature signature = Signature.getInstance("SHA256withRSAandMGF1", new BouncyCastleProvider());
+        signature.initSign(keyPair.getPrivate());
+        signature.update(content.getBytes(StandardCharsets.UTF_8));
+        return content + "." + Base64.encodeBase64URLSafeString(signature.sign());
+    }
+
+    private static String base64Url(String json) {
+        return Base64.encodeBase64URLSafeString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
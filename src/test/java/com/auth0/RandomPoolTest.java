@@ -0,0 +1,116 @@
+package com.auth0;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RandomPoolTest {
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private List<Runnable> tasks;
+    private Executor executor;
+
+    @Before
+    public void setUp() {
+        tasks = new ArrayList<>();
+        executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+    }
+
+    private void runTasks() {
+        List<Runnable> pending = new ArrayList<>(tasks);
+        tasks.clear();
+        for (Runnable task : pending) {
+            task.run();
+        }
+    }
+
+    @Test
+    public void shouldFillInBackgroundWhenCreated() {
+        RandomPool pool = new RandomPool(4, executor);
+
+        assertThat(tasks, hasSize(1));
+        // Generated on the calling thread until filled
+        assertThat(pool.nextString().length(), is(43));
+        assertThat(tasks, hasSize(1));
+    }
+
+    @Test
+    public void shouldRefillOnceHalfUsed() {
+        RandomPool pool = new RandomPool(4, executor);
+        runTasks();
+
+        Set<String> values = new HashSet<>();
+        values.add(pool.nextString());
+        values.add(pool.nextString());
+        assertThat(tasks, is(empty()));
+        values.add(pool.nextString());
+        assertThat(tasks, hasSize(1));
+        values.add(pool.nextString());
+        values.add(pool.nextString());
+        assertThat(tasks, hasSize(1));
+
+        runTasks();
+        values.add(pool.nextString());
+        assertThat(values, hasSize(6));
+        for (String value : values) {
+            assertThat(value.matches("[A-Za-z0-9_-]{43}"), is(true));
+        }
+    }
+
+    @Test
+    public void shouldGenerateOnCallingThreadWhenRefillRejected() {
+        RandomPool pool = new RandomPool(2, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+
+        assertThat(pool.nextString(), is(not(pool.nextString())));
+    }
+
+    @Test
+    public void shouldRefillOnSharedThreadWithoutContextClassLoaderByDefault() throws Exception {
+        final CountDownLatch ran = new CountDownLatch(1);
+        final AtomicReference<Thread> refillThread = new AtomicReference<>();
+        RandomPool.RefillThread.EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                refillThread.set(Thread.currentThread());
+                ran.countDown();
+            }
+        });
+
+        assertThat(ran.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(refillThread.get().getName(), is("auth0-random-pool"));
+        assertThat(refillThread.get().isDaemon(), is(true));
+        assertThat(refillThread.get().getContextClassLoader(), is(nullValue()));
+    }
+
+    @Test
+    public void shouldThrowOnInvalidSize() {
+        exception.expect(IllegalArgumentException.class);
+        new RandomPool(0, executor);
+    }
+}
@@ -0,0 +1,140 @@
+package com.auth0;
+
+import com.auth0.jwk.SigningKeyNotFoundException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class RejectionCacheTest {
+
+    private static final long NOW = 1587592561000L;
+
+    @Rule
+    public ExpectedException exception = ExpectedException.none();
+
+    private long now;
+    private Clock clock;
+    private HistogramMetricsListener listener;
+
+    @Before
+    public void setUp() {
+        now = NOW;
+        clock = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+        };
+        listener = new HistogramMetricsListener();
+    }
+
+    @Test
+    public void shouldReturnRejectionUntilTtl() {
+        RejectionCache cache = new RejectionCache(100, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, clock, listener);
+        TokenHash key = TokenHash.of("state", "code");
+
+        assertThat(cache.get(key), is(nullValue()));
+        cache.put(key, new InvalidRequestException("a0.missing_id_token", "ID Token is missing from the response."));
+        assertThat(cache.get(key), is(notNullValue()));
+
+        now = NOW + 60_000L - 1;
+        assertThat(cache.get(key), is(notNullValue()));
+
+        now = NOW + 60_000L;
+        assertThat(cache.get(key), is(nullValue()));
+        assertThat(cache.size(), is(0));
+
+        assertThat(listener.getHitCount(MetricsListener.Cache.REJECTED_CALLBACK), is(2L));
+        assertThat(listener.getMissCount(MetricsListener.Cache.REJECTED_CALLBACK), is(2L));
+        assertThat(listener.getHitRate(MetricsListener.Cache.REJECTED_CALLBACK), is(0.5));
+    }
+
+    @Test
+    public void shouldRecreateInvalidRequestException() {
+        RejectionCache cache = new RejectionCache(100, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, clock, null);
+        TokenHash key = TokenHash.of("state", "code");
+        cache.put(key, new InvalidRequestException("a0.missing_id_token", "ID Token is missing from the response."));
+
+        IdentityVerificationException exception = cache.get(key).toException(false);
+        assertThat(exception, is(instanceOf(InvalidRequestException.class)));
+        assertThat(exception.getCode(), is("a0.missing_id_token"));
+        assertThat(exception.getMessage(), is("ID Token is missing from the response."));
+        assertThat(exception.getStackTrace().length, is(0));
+    }
+
+    @Test
+    public void shouldRecreateInvalidIdTokenException() {
+        RejectionCache cache = new RejectionCache(100, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_ID_TOKEN, clock, null);
+        TokenHash key = TokenHash.of("idToken");
+        cache.put(key, new IdentityVerificationException("a0.invalid_jwt_error", "An error occurred while trying to verify the ID Token.",
+                new TokenValidationException("Expiration Time (exp) claim error in the ID token")));
+
+        IdentityVerificationException exception = cache.get(key).toException(true);
+        assertThat(exception, is(not(instanceOf(InvalidRequestException.class))));
+        assertThat(exception.getCode(), is("a0.invalid_jwt_error"));
+        assertThat(exception.getCause(), is(instanceOf(TokenValidationException.class)));
+        assertThat(exception.getCause().getMessage(), is("Expiration Time (exp) claim error in the ID token"));
+        assertThat(exception.getStackTrace().length, is(greaterThan(0)));
+    }
+
+    @Test
+    public void shouldNotKeepRejectionsThatMayNotHappenAgain() {
+        RejectionCache cache = new RejectionCache(100, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, clock, null);
+
+        cache.put(TokenHash.of("1"), new IdentityVerificationException("a0.api_error", "An error occurred while exchanging the authorization code.", null));
+        cache.put(TokenHash.of("2"), new InvalidRequestException("access_denied", "The user denied access."));
+        cache.put(TokenHash.of("3"), new IdentityVerificationException("a0.invalid_jwt_error", "An error occurred while trying to verify the ID Token.",
+                new TokenValidationException("Could not find a public key for Key ID (kid) \"abc123\"", new SigningKeyNotFoundException("missing", null))));
+        cache.put(TokenHash.of("4"), new InvalidRequestException("a0.invalid_state", "The received state doesn't match the expected one."));
+        cache.put(TokenHash.of("5"), new IdentityVerificationException("a0.invalid_jwt_error", "An error occurred while trying to verify the ID Token.",
+                new ClaimValidationPlan.NonceMismatchException("Nonce (nonce) claim mismatch in the ID token", false)));
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldKeepFixedNumberOfEntries() {
+        RejectionCache cache = new RejectionCache(100, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, clock, null);
+        int capacity = cache.capacity();
+        assertThat(capacity, is(greaterThanOrEqualTo(100)));
+        assertThat(capacity, is(lessThan(200)));
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put(TokenHash.of("state" + i), new InvalidRequestException("a0.missing_id_token", "ID Token is missing from the response."));
+        }
+
+        assertThat(cache.size(), is(capacity));
+        assertThat(cache.get(TokenHash.of("state9999")), is(notNullValue()));
+    }
+
+    @Test
+    public void shouldReplaceEntryOfSameKey() {
+        RejectionCache cache = new RejectionCache(1, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, clock, null);
+        TokenHash key = TokenHash.of("state", "code");
+        cache.put(key, new InvalidRequestException("a0.missing_access_token", "Access Token is missing from the response."));
+        cache.put(key, new InvalidRequestException("a0.missing_id_token", "ID Token is missing from the response."));
+
+        assertThat(cache.size(), is(1));
+        assertThat(cache.get(key).getCode(), is("a0.missing_id_token"));
+    }
+
+    @Test
+    public void shouldHashValueSequencesDistinctly() {
+        assertThat(TokenHash.of("ab", "c"), is(not(TokenHash.of("a", "bc"))));
+        assertThat(TokenHash.of("a", null), is(not(TokenHash.of("a", ""))));
+        assertThat(TokenHash.of("a", "b"), is(TokenHash.of("a", "b")));
+    }
+
+    @Test
+    public void shouldThrowOnInvalidSize() {
+        exception.expect(IllegalArgumentException.class);
+        exception.expectMessage("maxSize must be greater than 0");
+        new RejectionCache(0, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, clock, null);
+    }
+}
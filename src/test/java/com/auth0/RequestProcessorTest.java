@@ -1,28 +1,57 @@
 package com.auth0;
 
 import com.auth0.client.auth.AuthAPI;
+import com.auth0.exception.APIException;
 import com.auth0.exception.Auth0Exception;
 import com.auth0.json.auth.TokenHolder;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.net.AuthRequest;
 import org.hamcrest.CoreMatchers;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.*;
 
 public class RequestProcessorTest {
@@ -93,6 +122,41 @@ public class RequestProcessorTest {
         handler.process(request, response);
     }
 
+    @Test
+    public void shouldThrowWithoutStackTraceOnProcessIfRequestHasInvalidStateAndStackTracesDisabled() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "9999"));
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions);
+        handler.setErrorStackTraces(false);
+        try {
+            handler.process(request, response);
+            fail("Expected an InvalidRequestException");
+        } catch (InvalidRequestException e) {
+            assertThat(e.getCode(), is("a0.invalid_state"));
+            assertThat(e.getMessage(), is("The received state doesn't match the expected one."));
+            assertThat(e.getStackTrace().length, is(0));
+        }
+    }
+
+    @Test
+    public void shouldThrowWithStackTraceOnProcessIfRequestHasInvalidStateByDefault() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "9999"));
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions);
+        try {
+            handler.process(request, response);
+            fail("Expected an InvalidRequestException");
+        } catch (InvalidRequestException e) {
+            assertThat(e.getStackTrace().length, is(not(0)));
+        }
+    }
+
     @Test
     public void shouldThrowOnProcessIfRequestHasInvalidStateInSession() throws Exception {
         exception.expect(InvalidRequestException.class);
@@ -176,7 +240,7 @@ public class RequestProcessorTest {
         exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.invalid_jwt_error"));
         exception.expectMessage("An error occurred while trying to verify the ID Token.");
 
-        doThrow(TokenValidationException.class).when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions));
+        doThrow(TokenValidationException.class).when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
 
         Map<String, Object> params = new HashMap<>();
         params.put("state", "1234");
@@ -190,7 +254,7 @@ public class RequestProcessorTest {
 
     @Test
     public void shouldReturnTokensOnProcessIfIdTokenRequestPassesIdTokenVerification() throws Exception {
-        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions));
+        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), eq("5678"));
 
         Map<String, Object> params = new HashMap<>();
         params.put("state", "1234");
@@ -204,13 +268,71 @@ public class RequestProcessorTest {
         assertThat(process.getIdToken(), is("frontIdToken"));
     }
 
+    @Test
+    public void shouldVerifyEachConcurrentCallbackAgainstItsOwnNonce() throws Exception {
+        final int callbacks = 2000;
+        final String issuer = "https://me.auth0.com/";
+        final Algorithm algorithm = Algorithm.HMAC256("secret");
+        IdTokenVerifier.Options sharedOptions = new IdTokenVerifier.Options(issuer, "clientId", new SymmetricSignatureVerifier("secret"));
+        final RequestProcessor handler = new RequestProcessor(client, "id_token", sharedOptions, new IdTokenVerifier(), true);
+
+        final Date now = new Date();
+        final Date tomorrow = new Date(now.getTime() + 24 * 60 * 60 * 1000L);
+        final CountDownLatch startGate = new CountDownLatch(1);
+        final AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<?>> results = new ArrayList<>();
+
+        for (int i = 0; i < callbacks; i++) {
+            final String nonce = "nonce-" + i;
+            final String state = "state-" + i;
+            results.add(executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    String idToken = JWT.create()
+                            .withIssuer(issuer)
+                            .withSubject("auth0|user")
+                            .withAudience("clientId")
+                            .withIssuedAt(now)
+                            .withExpiresAt(tomorrow)
+                            .withClaim("nonce", nonce)
+                            .sign(algorithm);
+
+                    Map<String, Object> params = new HashMap<>();
+                    params.put("state", state);
+                    params.put("id_token", idToken);
+                    MockHttpServletRequest request = getRequest(params);
+                    request.setCookies(new Cookie("com.auth0.state", state), new Cookie("com.auth0.nonce", nonce));
+
+                    try {
+                        startGate.await();
+                        Tokens tokens = handler.process(request, new MockHttpServletResponse());
+                        if (!idToken.equals(tokens.getIdToken())) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        startGate.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(failures.get(), is(0));
+    }
+
     @Test
     public void shouldThrowOnProcessIfIdTokenCodeRequestDoesNotPassIdTokenVerification() throws Exception {
         exception.expect(IdentityVerificationException.class);
         exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.invalid_jwt_error"));
         exception.expectMessage("An error occurred while trying to verify the ID Token.");
 
-        doThrow(TokenValidationException.class).when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions));
+        doThrow(TokenValidationException.class).when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
 
         Map<String, Object> params = new HashMap<>();
         params.put("code", "abc123");
@@ -244,13 +366,240 @@ public class RequestProcessorTest {
         handler.process(request, response);
     }
 
+    @Test
+    public void shouldRetryCodeExchangeOnTransientFailures() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getIdToken()).thenReturn("backIdToken");
+        when(codeExchangeRequest.execute())
+                .thenThrow(new Auth0Exception("Failed to execute request", new ConnectException("Connection refused")))
+                .thenThrow(new APIException("Service unavailable", 503, null))
+                .thenReturn(tokenHolder);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RetryPolicy retryPolicy = createNonSleepingRetryPolicy(RetryPolicy.newBuilder().withMaxAttempts(3));
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setRetryPolicy(retryPolicy);
+        Tokens tokens = handler.process(getCodeRequest(), response);
+
+        assertThat(tokens.getIdToken(), is("backIdToken"));
+        verify(codeExchangeRequest, times(3)).execute();
+        assertThat(retryPolicy.getAttemptCount(), is(3L));
+        assertThat(retryPolicy.getRetryCount(), is(2L));
+    }
+
+    @Test
+    public void shouldThrowOnProcessIfCodeExchangeRetriesAreExhausted() throws Exception {
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(new APIException("Service unavailable", 503, null));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RetryPolicy retryPolicy = createNonSleepingRetryPolicy(RetryPolicy.newBuilder().withMaxAttempts(2));
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setRetryPolicy(retryPolicy);
+
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.api_error"));
+        try {
+            handler.process(getCodeRequest(), response);
+        } finally {
+            verify(codeExchangeRequest, times(2)).execute();
+            assertThat(retryPolicy.getRetryCount(), is(1L));
+        }
+    }
+
+    @Test
+    public void shouldNotRetryCodeExchangeIfTheCodeMayHaveBeenConsumed() throws Exception {
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(new Auth0Exception("Failed to execute request", new SocketTimeoutException("timeout")));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RetryPolicy retryPolicy = createNonSleepingRetryPolicy(RetryPolicy.newBuilder());
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setRetryPolicy(retryPolicy);
+
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.api_error"));
+        try {
+            handler.process(getCodeRequest(), response);
+        } finally {
+            verify(codeExchangeRequest, times(1)).execute();
+            assertThat(retryPolicy.getAttemptCount(), is(1L));
+            assertThat(retryPolicy.getRetryCount(), is(0L));
+        }
+    }
+
+    @Test
+    public void shouldShareCodeExchangeBetweenDuplicateCallbacks() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getIdToken()).thenReturn("backIdToken");
+        when(tokenHolder.getAccessToken()).thenReturn("backAccessToken");
+        when(codeExchangeRequest.execute()).thenReturn(tokenHolder);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setSingleFlight(new CodeExchangeSingleFlight(10, TimeUnit.SECONDS));
+        Tokens first = handler.process(getCodeRequest(), response);
+        Tokens second = handler.process(getCodeRequest(), response);
+
+        assertThat(first.getAccessToken(), is("backAccessToken"));
+        assertThat(second.getAccessToken(), is("backAccessToken"));
+        verify(codeExchangeRequest, times(1)).execute();
+        verify(tokenVerifier, times(2)).verify("backIdToken", verifyOptions, null);
+    }
+
+    @Test
+    public void shouldNotShareCodeExchangeWithCallbackOfAnotherLoginRequest() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getIdToken()).thenReturn("backIdToken");
+        when(codeExchangeRequest.execute()).thenReturn(tokenHolder).thenThrow(new APIException(Collections.<String, Object>singletonMap("error", "invalid_grant"), 403));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setSingleFlight(new CodeExchangeSingleFlight(10, TimeUnit.SECONDS));
+        handler.process(getCodeRequest(), response);
+
+        // The same code, replayed with the state of another login request
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "5678");
+        MockHttpServletRequest replayed = getRequest(params);
+        replayed.setCookies(new Cookie("com.auth0.state", "5678"));
+        try {
+            handler.process(replayed, response);
+            fail("Expected the replayed code to be rejected");
+        } catch (IdentityVerificationException e) {
+            assertThat(e.getCode(), is("a0.api_error"));
+        }
+        verify(codeExchangeRequest, times(2)).execute();
+    }
+
+    @Test
+    public void shouldReportStageTimingsToMetricsListener() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getIdToken()).thenReturn("backIdToken");
+        when(codeExchangeRequest.execute()).thenReturn(tokenHolder);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setMetricsListener(metricsListener);
+        handler.process(getCodeRequest(), response);
+
+        InOrder inOrder = inOrder(metricsListener);
+        inOrder.verify(metricsListener).onStageCompleted(eq(MetricsListener.Stage.ASSERT_NO_ERROR), anyLong(), eq(true));
+        inOrder.verify(metricsListener).onStageCompleted(eq(MetricsListener.Stage.ASSERT_VALID_STATE), anyLong(), eq(true));
+        inOrder.verify(metricsListener).onStageCompleted(eq(MetricsListener.Stage.NONCE_LOOKUP), anyLong(), eq(true));
+        inOrder.verify(metricsListener).onStageCompleted(eq(MetricsListener.Stage.CODE_EXCHANGE), anyLong(), eq(true));
+        verifyNoMoreInteractions(metricsListener);
+    }
+
+    @Test
+    public void shouldReportFailedStagesToMetricsListener() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "9999");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        MetricsListener metricsListener = mock(MetricsListener.class);
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setMetricsListener(metricsListener);
+        try {
+            handler.process(request, response);
+            fail("Expected the state to be rejected");
+        } catch (InvalidRequestException e) {
+            assertThat(e.getCode(), is("a0.invalid_state"));
+        }
+
+        verify(metricsListener).onStageCompleted(eq(MetricsListener.Stage.ASSERT_NO_ERROR), anyLong(), eq(true));
+        verify(metricsListener).onStageCompleted(eq(MetricsListener.Stage.ASSERT_VALID_STATE), anyLong(), eq(false));
+        verifyNoMoreInteractions(metricsListener);
+    }
+
+    @Test
+    public void shouldFailFastOnProcessIfCodeExchangeCircuitIsOpen() throws Exception {
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(new APIException("Service unavailable", 503, null));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setCircuitBreaker(new CircuitBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(2, 2)
+                .build()));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                handler.process(getCodeRequest(), response);
+            } catch (IdentityVerificationException e) {
+                assertThat(e.getCode(), is("a0.api_error"));
+            }
+        }
+
+        try {
+            handler.process(getCodeRequest(), response);
+        } catch (IdentityVerificationException e) {
+            assertThat(e.getCode(), is("a0.circuit_open"));
+            assertThat(e.isCircuitBreakerError(), is(true));
+        }
+        verify(codeExchangeRequest, times(2)).execute();
+    }
+
+    @Test
+    public void shouldNotOpenCodeExchangeCircuitOnInvalidCodeErrors() throws Exception {
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(new APIException(Collections.<String, Object>singletonMap("error", "invalid_grant"), 403));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setCircuitBreaker(new CircuitBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(2, 2)
+                .build()));
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                handler.process(getCodeRequest(), response);
+            } catch (IdentityVerificationException e) {
+                assertThat(e.getCode(), is("a0.api_error"));
+            }
+        }
+        verify(codeExchangeRequest, times(3)).execute();
+    }
+
+    @Test
+    public void shouldReleaseBulkheadWhenCodeExchangeThrowsAnError() throws Exception {
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(new NoClassDefFoundError("okhttp3/OkHttpClient")).thenReturn(mock(TokenHolder.class));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setCircuitBreaker(new CircuitBreaker(CircuitBreakerConfig.newBuilder()
+                .withMaxConcurrentCalls(1)
+                .build()));
+        try {
+            handler.process(getCodeRequest(), response);
+            fail("Expected a NoClassDefFoundError");
+        } catch (NoClassDefFoundError ignored) {
+        }
+
+        handler.process(getCodeRequest(), response);
+        verify(codeExchangeRequest, times(2)).execute();
+    }
+
     @Test
     public void shouldThrowOnProcessIfCodeRequestSucceedsButDoesNotPassIdTokenVerification() throws Exception {
         exception.expect(IdentityVerificationException.class);
         exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.invalid_jwt_error"));
         exception.expectMessage("An error occurred while trying to verify the ID Token.");
 
-        doThrow(TokenValidationException.class).when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions));
+        doThrow(TokenValidationException.class).when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
 
         Map<String, Object> params = new HashMap<>();
         params.put("code", "abc123");
@@ -270,7 +619,7 @@ public class RequestProcessorTest {
 
     @Test
     public void shouldReturnTokensOnProcessIfIdTokenCodeRequestPassesIdTokenVerification() throws Exception {
-        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions));
+        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
 
         Map<String, Object> params = new HashMap<>();
         params.put("code", "abc123");
@@ -293,8 +642,8 @@ public class RequestProcessorTest {
         Tokens tokens = handler.process(request, response);
 
         //Should not verify the ID Token twice
-        verify(tokenVerifier).verify("frontIdToken", verifyOptions);
-        verify(tokenVerifier, never()).verify("backIdToken", verifyOptions);
+        verify(tokenVerifier).verify("frontIdToken", verifyOptions, null);
+        verify(tokenVerifier, never()).verify("backIdToken", verifyOptions, null);
         verifyNoMoreInteractions(tokenVerifier);
 
         assertThat(tokens, is(notNullValue()));
@@ -303,9 +652,148 @@ public class RequestProcessorTest {
         assertThat(tokens.getExpiresIn(), is(8400L));
     }
 
+    @Test
+    public void shouldExchangeCodeWhileVerifyingFrontChannelIdTokenIfExecutorIsSet() throws Exception {
+        final CountDownLatch exchangeStarted = new CountDownLatch(1);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(exchangeStarted.await(5, TimeUnit.SECONDS), is(true));
+                return null;
+            }
+        }).when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
+
+        final TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getAccessToken()).thenReturn("backAccessToken");
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenAnswer(new Answer<TokenHolder>() {
+            @Override
+            public TokenHolder answer(InvocationOnMock invocation) {
+                exchangeStarted.countDown();
+                return tokenHolder;
+            }
+        });
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RequestProcessor handler = new RequestProcessor(client, "id_token code", verifyOptions, tokenVerifier, true);
+            handler.setCodeExchangeExecutor(executor);
+            Tokens tokens = handler.process(getHybridRequest(), response);
+
+            assertThat(tokens.getIdToken(), is("frontIdToken"));
+            assertThat(tokens.getAccessToken(), is("backAccessToken"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldDiscardCodeExchangeWithoutInterruptingItIfFrontChannelIdTokenIsRejected() throws Exception {
+        final CountDownLatch exchangeStarted = new CountDownLatch(1);
+        final CountDownLatch frontChannelRejected = new CountDownLatch(1);
+        final AtomicBoolean exchangeInterrupted = new AtomicBoolean();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                assertThat(exchangeStarted.await(5, TimeUnit.SECONDS), is(true));
+                frontChannelRejected.countDown();
+                throw new TokenValidationException("Invalid signature");
+            }
+        }).doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
+
+        final TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getAccessToken()).thenReturn("backAccessToken");
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenAnswer(new Answer<TokenHolder>() {
+            @Override
+            public TokenHolder answer(InvocationOnMock invocation) throws Throwable {
+                exchangeStarted.countDown();
+                try {
+                    // Still in flight when the front-channel ID Token is rejected
+                    frontChannelRejected.await(5, TimeUnit.SECONDS);
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    exchangeInterrupted.set(true);
+                    throw new Auth0Exception("Failed to execute request", new InterruptedIOException());
+                }
+                return tokenHolder;
+            }
+        });
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        CircuitBreaker circuitBreaker = new CircuitBreaker(CircuitBreakerConfig.newBuilder()
+                .withSlidingWindow(1, 1)
+                .build());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RequestProcessor handler = new RequestProcessor(client, "id_token code", verifyOptions, tokenVerifier, true);
+            handler.setCodeExchangeExecutor(executor);
+            handler.setCircuitBreaker(circuitBreaker);
+            handler.setSingleFlight(new CodeExchangeSingleFlight(10, TimeUnit.SECONDS));
+            try {
+                handler.process(getHybridRequest(), response);
+                fail("Expected the front-channel ID Token to be rejected");
+            } catch (IdentityVerificationException e) {
+                assertThat(e.getCode(), is("a0.invalid_jwt_error"));
+            }
+
+            // The retry shares the outcome of the discarded exchange, which neither failed nor opened the circuit
+            Tokens tokens = handler.process(getHybridRequest(), response);
+            assertThat(tokens.getAccessToken(), is("backAccessToken"));
+            assertThat(exchangeInterrupted.get(), is(false));
+            assertThat(circuitBreaker.getState(), is(CircuitBreakerState.CLOSED));
+            verify(codeExchangeRequest, times(1)).execute();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldThrowOnProcessIfConcurrentCodeExchangeFails() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(Auth0Exception.class);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "id_token code", verifyOptions, tokenVerifier, true);
+        handler.setCodeExchangeExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                new Thread(command).start();
+            }
+        });
+
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.api_error"));
+        handler.process(getHybridRequest(), response);
+    }
+
+    @Test
+    public void shouldExchangeCodeAfterVerifyingFrontChannelIdTokenIfExecutorRejectsIt() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenReturn(mock(TokenHolder.class));
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        RequestProcessor handler = new RequestProcessor(client, "id_token code", verifyOptions, tokenVerifier, true);
+        handler.setCodeExchangeExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        });
+        Tokens tokens = handler.process(getHybridRequest(), response);
+
+        assertThat(tokens.getIdToken(), is("frontIdToken"));
+        InOrder inOrder = inOrder(tokenVerifier, codeExchangeRequest);
+        inOrder.verify(tokenVerifier).verify("frontIdToken", verifyOptions, null);
+        inOrder.verify(codeExchangeRequest).execute();
+    }
+
     @Test
     public void shouldReturnTokensOnProcessIfTokenIdTokenCodeRequestPassesIdTokenVerification() throws Exception {
-        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions));
+        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), (String) isNull());
 
         Map<String, Object> params = new HashMap<>();
         params.put("code", "abc123");
@@ -331,8 +819,8 @@ public class RequestProcessorTest {
         Tokens tokens = handler.process(request, response);
 
         //Should not verify the ID Token twice
-        verify(tokenVerifier).verify("frontIdToken", verifyOptions);
-        verify(tokenVerifier, never()).verify("backIdToken", verifyOptions);
+        verify(tokenVerifier).verify("frontIdToken", verifyOptions, null);
+        verify(tokenVerifier, never()).verify("backIdToken", verifyOptions, null);
         verifyNoMoreInteractions(tokenVerifier);
 
         assertThat(tokens, is(notNullValue()));
@@ -345,7 +833,7 @@ public class RequestProcessorTest {
 
     @Test
     public void shouldReturnTokensOnProcessIfCodeRequestPassesIdTokenVerification() throws Exception {
-        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions));
+        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
 
         Map<String, Object> params = new HashMap<>();
         params.put("code", "abc123");
@@ -364,7 +852,7 @@ public class RequestProcessorTest {
         RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
         Tokens tokens = handler.process(request, response);
 
-        verify(tokenVerifier).verify("backIdToken", verifyOptions);
+        verify(tokenVerifier).verify("backIdToken", verifyOptions, null);
         verifyNoMoreInteractions(tokenVerifier);
 
         assertThat(tokens, is(notNullValue()));
@@ -398,6 +886,193 @@ public class RequestProcessorTest {
         assertThat(tokens.getRefreshToken(), is(nullValue()));
     }
 
+    @Test
+    public void shouldProcessAsyncAndNotifyCallbackOnSuccess() throws Exception {
+        doNothing().when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getIdToken()).thenReturn("backIdToken");
+        when(tokenHolder.getAccessToken()).thenReturn("backAccessToken");
+        when(codeExchangeRequest.execute()).thenReturn(tokenHolder);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+        Tokens tokens = future.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(tokens.getIdToken(), is("backIdToken"));
+        assertThat(tokens.getAccessToken(), is("backAccessToken"));
+        verify(callback, timeout(5000)).onSuccess(tokens);
+        verify(callback, never()).onFailure(Mockito.any(IdentityVerificationException.class));
+    }
+
+    @Test
+    public void shouldFailProcessAsyncOnInvalidStateWithoutUsingTheExecutor() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "9999"));
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        Executor executor = mock(Executor.class);
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+
+        verifyZeroInteractions(executor);
+        assertThat(future.isDone(), is(true));
+        ArgumentCaptor<IdentityVerificationException> captor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        verify(callback).onFailure(captor.capture());
+        assertThat(captor.getValue().getCode(), is("a0.invalid_state"));
+
+        exception.expect(ExecutionException.class);
+        exception.expectCause(CoreMatchers.<Throwable>is(captor.getValue()));
+        future.get();
+    }
+
+    @Test
+    public void shouldFailProcessAsyncIfCodeExchangeFails() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        when(codeExchangeRequest.execute()).thenThrow(Auth0Exception.class);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+
+        ArgumentCaptor<IdentityVerificationException> captor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        verify(callback, timeout(5000)).onFailure(captor.capture());
+        verify(callback, never()).onSuccess(Mockito.any(Tokens.class));
+        executor.shutdown();
+        assertThat(captor.getValue().getCode(), is("a0.api_error"));
+        assertThat(future.isDone(), is(true));
+    }
+
+    @Test
+    public void shouldNotifyCallbackOnUnexpectedErrorInProcessAsync() throws Exception {
+        IllegalStateException unexpected = new IllegalStateException("unexpected");
+        doThrow(unexpected).when(tokenVerifier).verify(eq("backIdToken"), eq(verifyOptions), (String) isNull());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        AuthRequest codeExchangeRequest = mock(AuthRequest.class);
+        TokenHolder tokenHolder = mock(TokenHolder.class);
+        when(tokenHolder.getIdToken()).thenReturn("backIdToken");
+        when(codeExchangeRequest.execute()).thenReturn(tokenHolder);
+        when(client.exchangeCode("abc123", "https://me.auth0.com:80/callback")).thenReturn(codeExchangeRequest);
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+
+        ArgumentCaptor<IdentityVerificationException> captor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        verify(callback, timeout(5000)).onFailure(captor.capture());
+        verify(callback, never()).onSuccess(Mockito.any(Tokens.class));
+        executor.shutdown();
+        assertThat(captor.getValue().getCode(), is("a0.unexpected_error"));
+        assertThat(captor.getValue().getCause(), is((Throwable) unexpected));
+
+        exception.expect(ExecutionException.class);
+        exception.expectCause(CoreMatchers.<Throwable>is(captor.getValue()));
+        future.get();
+    }
+
+    @Test
+    public void shouldNotifyCallbackOnUnexpectedErrorWhileValidatingInProcessAsync() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", "1234");
+        params.put("id_token", "frontIdToken");
+        params.put("expires_in", "not-a-number");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        Executor executor = mock(Executor.class);
+        RequestProcessor handler = new RequestProcessor(client, "id_token", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+
+        verifyZeroInteractions(executor);
+        assertThat(future.isDone(), is(true));
+        ArgumentCaptor<IdentityVerificationException> captor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        verify(callback).onFailure(captor.capture());
+        assertThat(captor.getValue().getCode(), is("a0.unexpected_error"));
+        assertThat(captor.getValue().getCause(), is(instanceOf(NumberFormatException.class)));
+
+        exception.expect(ExecutionException.class);
+        exception.expectCause(CoreMatchers.<Throwable>is(captor.getValue()));
+        future.get();
+    }
+
+    @Test
+    public void shouldNotifyCallbackWhenExecutorRejectsProcessAsync() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        Executor executor = mock(Executor.class);
+        RejectedExecutionException rejected = new RejectedExecutionException("Saturated");
+        doThrow(rejected).when(executor).execute(Mockito.any(Runnable.class));
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+
+        assertThat(future.isDone(), is(true));
+        ArgumentCaptor<IdentityVerificationException> captor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        verify(callback).onFailure(captor.capture());
+        verify(callback, never()).onSuccess(Mockito.any(Tokens.class));
+        assertThat(captor.getValue().getCode(), is("a0.unexpected_error"));
+        assertThat(captor.getValue().getCause(), is((Throwable) rejected));
+        verifyZeroInteractions(client);
+
+        exception.expect(ExecutionException.class);
+        exception.expectCause(CoreMatchers.<Throwable>is(captor.getValue()));
+        future.get();
+    }
+
+    @Test
+    public void shouldNotifyCallbackWhenProcessAsyncIsCancelled() throws Exception {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+
+        AuthenticationCallback callback = mock(AuthenticationCallback.class);
+        Executor executor = mock(Executor.class);
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        Future<Tokens> future = handler.processAsync(request, response, executor, callback);
+        future.cancel(false);
+
+        ArgumentCaptor<IdentityVerificationException> captor = ArgumentCaptor.forClass(IdentityVerificationException.class);
+        verify(callback).onFailure(captor.capture());
+        assertThat(captor.getValue().getCode(), is("a0.unexpected_error"));
+        assertThat(captor.getValue().getCause(), is(instanceOf(CancellationException.class)));
+    }
+
     @Test
     public void shouldBuildAuthorizeUrl() {
         AuthAPI client = new AuthAPI("me.auth0.com", "clientId", "clientSecret");
@@ -517,6 +1192,290 @@ public class RequestProcessorTest {
         assertThat(handler.getClient(), is(client));
     }
 
+    @Test
+    public void shouldVerifyStoredIdTokenOnlyOnceWhenCached() throws Exception {
+        String idToken = JWT.create()
+                .withSubject("user1")
+                .withExpiresAt(new Date(System.currentTimeMillis() + 3600_000L))
+                .sign(Algorithm.HMAC256("secret"));
+        DecodedJWT decoded = JWT.decode(idToken);
+        when(tokenVerifier.decodeAndVerify(idToken, verifyOptions, null)).thenReturn(decoded);
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setVerifiedIdTokenCache(new VerifiedIdTokenCache(10, 60, null, Clock.SYSTEM, listener));
+
+        assertThat(handler.verifyIdToken(idToken), is(decoded));
+        assertThat(handler.verifyIdToken(idToken), is(decoded));
+        verify(tokenVerifier, times(1)).decodeAndVerify(idToken, verifyOptions, null);
+        assertThat(listener.getHitCount(MetricsListener.Cache.VERIFIED_ID_TOKEN), is(1L));
+        assertThat(listener.getMissCount(MetricsListener.Cache.VERIFIED_ID_TOKEN), is(1L));
+    }
+
+    @Test
+    public void shouldVerifyStoredIdTokenEveryTimeWithoutCache() throws Exception {
+        DecodedJWT decoded = JWT.decode(JWT.create().withSubject("user1").sign(Algorithm.HMAC256("secret")));
+        when(tokenVerifier.decodeAndVerify("idToken", verifyOptions, null)).thenReturn(decoded);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+
+        assertThat(handler.verifyIdToken("idToken"), is(decoded));
+        assertThat(handler.verifyIdToken("idToken"), is(decoded));
+        verify(tokenVerifier, times(2)).decodeAndVerify("idToken", verifyOptions, null);
+    }
+
+    @Test
+    public void shouldThrowOnVerifyStoredIdTokenIfInvalid() throws Exception {
+        exception.expect(IdentityVerificationException.class);
+        exception.expect(IdentityVerificationExceptionMatcher.hasCode("a0.invalid_jwt_error"));
+        exception.expectMessage("An error occurred while trying to verify the ID Token.");
+
+        when(tokenVerifier.decodeAndVerify("idToken", verifyOptions, null)).thenThrow(TokenValidationException.class);
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setVerifiedIdTokenCache(new VerifiedIdTokenCache(10, 60, null, Clock.SYSTEM, null));
+        handler.verifyIdToken("idToken");
+    }
+
+    @Test
+    public void shouldThrowOnVerifyStoredIdTokenWithoutSignatureVerifier() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("The ID Token signature can't be verified");
+
+        IdTokenVerifier.Options options = new IdTokenVerifier.Options("issuer", "clientId", new AlgorithmNameVerifier());
+        RequestProcessor handler = new RequestProcessor(client, "code", options, tokenVerifier, true);
+        try {
+            handler.verifyIdToken("idToken");
+        } finally {
+            verifyZeroInteractions(tokenVerifier);
+        }
+    }
+
+    @Test
+    public void shouldRejectReplayedCallbackFromRejectionCache() throws Exception {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        RequestProcessor handler = new RequestProcessor(client, "id_token", verifyOptions, tokenVerifier, true);
+        handler.setRejectionCaches(new RejectionCache(10, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, Clock.SYSTEM, listener), null);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", "1234");
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = getRequest(params);
+            request.setCookies(new Cookie("com.auth0.state", "1234"));
+            try {
+                handler.process(request, response);
+                fail("Expected an InvalidRequestException");
+            } catch (InvalidRequestException e) {
+                assertThat(e.getCode(), is("a0.missing_id_token"));
+                assertThat(e.getMessage(), is("ID Token is missing from the response."));
+            }
+        }
+        assertThat(listener.getHitCount(MetricsListener.Cache.REJECTED_CALLBACK), is(1L));
+        assertThat(listener.getMissCount(MetricsListener.Cache.REJECTED_CALLBACK), is(1L));
+    }
+
+    @Test
+    public void shouldNotKeepInvalidStateInRejectionCache() throws Exception {
+        RequestProcessor handler = new RequestProcessor(client, "id_token", verifyOptions, tokenVerifier, true);
+        handler.setRejectionCaches(new RejectionCache(10, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, Clock.SYSTEM, null), null);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", "1234");
+        params.put("id_token", "frontIdToken");
+        // A callback submitted with the cookies of another browser must not poison the cache for the right one
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "9999"));
+        try {
+            handler.process(request, response);
+            fail("Expected an InvalidRequestException");
+        } catch (InvalidRequestException e) {
+            assertThat(e.getCode(), is("a0.invalid_state"));
+        }
+
+        MockHttpServletRequest replay = getRequest(params);
+        replay.setCookies(new Cookie("com.auth0.state", "1234"));
+        Tokens tokens = handler.process(replay, response);
+        assertThat(tokens.getIdToken(), is("frontIdToken"));
+    }
+
+    @Test
+    public void shouldNotKeepNonceMismatchInRejectionCache() throws Exception {
+        doThrow(new ClaimValidationPlan.NonceMismatchException("Nonce (nonce) claim mismatch in the ID token", false))
+                .when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), eq("9999"));
+        doNothing().when(tokenVerifier).verify(eq("frontIdToken"), eq(verifyOptions), eq("5678"));
+        RequestProcessor handler = new RequestProcessor(client, "id_token", verifyOptions, tokenVerifier, true);
+        handler.setRejectionCaches(new RejectionCache(10, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_CALLBACK, Clock.SYSTEM, null), null);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("state", "1234");
+        params.put("id_token", "frontIdToken");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"), new Cookie("com.auth0.nonce", "9999"));
+        try {
+            handler.process(request, response);
+            fail("Expected an IdentityVerificationException");
+        } catch (IdentityVerificationException e) {
+            assertThat(e.getCode(), is("a0.invalid_jwt_error"));
+        }
+
+        MockHttpServletRequest replay = getRequest(params);
+        replay.setCookies(new Cookie("com.auth0.state", "1234"), new Cookie("com.auth0.nonce", "5678"));
+        Tokens tokens = handler.process(replay, response);
+        assertThat(tokens.getIdToken(), is("frontIdToken"));
+    }
+
+    @Test
+    public void shouldRejectStoredIdTokenFromRejectionCache() throws Exception {
+        when(tokenVerifier.decodeAndVerify("idToken", verifyOptions, null)).thenThrow(new TokenValidationException("Expiration Time (exp) claim error in the ID token"));
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        handler.setRejectionCaches(null, new RejectionCache(10, 60, TimeUnit.SECONDS, MetricsListener.Cache.REJECTED_ID_TOKEN, Clock.SYSTEM, null));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                handler.verifyIdToken("idToken");
+                fail("Expected an IdentityVerificationException");
+            } catch (IdentityVerificationException e) {
+                assertThat(e.getCode(), is("a0.invalid_jwt_error"));
+                assertThat(e.getCause().getMessage(), is("Expiration Time (exp) claim error in the ID token"));
+            }
+        }
+        verify(tokenVerifier, times(1)).decodeAndVerify("idToken", verifyOptions, null);
+    }
+
+    @Test
+    public void shouldVerifyBatchOfIdTokensInOrderWithoutThrowing() throws Exception {
+        final DecodedJWT decoded = JWT.decode(JWT.create().withSubject("user1").sign(Algorithm.HMAC256("secret")));
+        when(tokenVerifier.decodeAndVerify(anyString(), eq(verifyOptions), (String) isNull(), Mockito.any(SignatureVerifier.BatchVerifiers.class))).thenAnswer(new Answer<DecodedJWT>() {
+            @Override
+            public DecodedJWT answer(InvocationOnMock invocation) {
+                String token = (String) invocation.getArguments()[0];
+                if (token.startsWith("invalid")) {
+                    throw new TokenValidationException("Invalid token signature");
+                }
+                return decoded;
+            }
+        });
+        List<String> idTokens = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            idTokens.add(i % 3 == 0 ? "invalid" + i : "valid" + i);
+        }
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        VerifiedIdTokenCache cache = new VerifiedIdTokenCache(10, 60, null, Clock.SYSTEM, null);
+        handler.setVerifiedIdTokenCache(cache);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<IdTokenVerificationResult> results;
+        try {
+            results = handler.verifyIdTokens(idTokens, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(results.size(), is(100));
+        for (int i = 0; i < 100; i++) {
+            IdTokenVerificationResult result = results.get(i);
+            assertThat(result.getIdToken(), is(idTokens.get(i)));
+            if (i % 3 == 0) {
+                assertThat(result.isValid(), is(false));
+                assertThat(result.getVerifiedIdToken(), is(nullValue()));
+                assertThat(result.getException().getCode(), is("a0.invalid_jwt_error"));
+                assertThat(result.getException().getCause().getMessage(), is("Invalid token signature"));
+            } else {
+                assertThat(result.isValid(), is(true));
+                assertThat(result.getVerifiedIdToken(), is(decoded));
+                assertThat(result.getException(), is(nullValue()));
+            }
+        }
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldVerifyBatchOfIdTokensOnCallingThreadWhenExecutorRejects() throws Exception {
+        DecodedJWT decoded = JWT.decode(JWT.create().withSubject("user1").sign(Algorithm.HMAC256("secret")));
+        when(tokenVerifier.decodeAndVerify(eq("idToken"), eq(verifyOptions), (String) isNull(), Mockito.any(SignatureVerifier.BatchVerifiers.class))).thenReturn(decoded);
+        Executor rejecting = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        List<IdTokenVerificationResult> results = handler.verifyIdTokens(Collections.singletonList("idToken"), rejecting);
+
+        assertThat(results.size(), is(1));
+        assertThat(results.get(0).getVerifiedIdToken(), is(decoded));
+    }
+
+    @Test
+    public void shouldRejectOnlyTheBatchedIdTokenWhoseVerificationFailsUnexpectedly() throws Exception {
+        final DecodedJWT decoded = JWT.decode(JWT.create().withSubject("user1").sign(Algorithm.HMAC256("secret")));
+        when(tokenVerifier.decodeAndVerify(anyString(), eq(verifyOptions), (String) isNull(), Mockito.any(SignatureVerifier.BatchVerifiers.class))).thenAnswer(new Answer<DecodedJWT>() {
+            @Override
+            public DecodedJWT answer(InvocationOnMock invocation) {
+                if ("broken".equals(invocation.getArguments()[0])) {
+                    throw new IllegalArgumentException("boom");
+                }
+                return decoded;
+            }
+        });
+        List<String> idTokens = Arrays.asList("valid1", "broken", "valid2");
+
+        RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<IdTokenVerificationResult> results;
+        try {
+            results = handler.verifyIdTokens(idTokens, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(results.size(), is(3));
+        assertThat(results.get(0).getVerifiedIdToken(), is(decoded));
+        assertThat(results.get(1).isValid(), is(false));
+        assertThat(results.get(1).getException().getCode(), is("a0.unexpected_error"));
+        assertThat(results.get(1).getException().getCause(), is(instanceOf(IllegalArgumentException.class)));
+        assertThat(results.get(2).getVerifiedIdToken(), is(decoded));
+    }
+
+    @Test
+    public void shouldVerifyBatchOfIdTokensFromThreadOfTheSameExecutor() throws Exception {
+        DecodedJWT decoded = JWT.decode(JWT.create().withSubject("user1").sign(Algorithm.HMAC256("secret")));
+        when(tokenVerifier.decodeAndVerify(anyString(), eq(verifyOptions), (String) isNull(), Mockito.any(SignatureVerifier.BatchVerifiers.class))).thenReturn(decoded);
+        final List<String> idTokens = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            idTokens.add("idToken" + i);
+        }
+
+        final RequestProcessor handler = new RequestProcessor(client, "code", verifyOptions, tokenVerifier, true);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // The only thread of the executor waits for the batch, so the queued chunks must not depend on it
+            Future<List<IdTokenVerificationResult>> batch = executor.submit(new Callable<List<IdTokenVerificationResult>>() {
+                @Override
+                public List<IdTokenVerificationResult> call() throws Exception {
+                    return handler.verifyIdTokens(idTokens, executor);
+                }
+            });
+            List<IdTokenVerificationResult> results = batch.get(10, TimeUnit.SECONDS);
+            assertThat(results.size(), is(1000));
+            assertThat(results.get(999).getVerifiedIdToken(), is(decoded));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldThrowOnVerifyBatchOfIdTokensWithoutSignatureVerifier() throws Exception {
+        exception.expect(IllegalStateException.class);
+        exception.expectMessage("The ID Token signature can't be verified");
+
+        IdTokenVerifier.Options options = new IdTokenVerifier.Options("issuer", "clientId", new AlgorithmNameVerifier());
+        RequestProcessor handler = new RequestProcessor(client, "code", options, tokenVerifier, true);
+        handler.verifyIdTokens(Collections.singletonList("idToken"), mock(Executor.class));
+    }
+
     // Utils
 
     private MockHttpServletRequest getRequest(Map<String, Object> parameters) {
@@ -528,4 +1487,32 @@ public class RequestProcessorTest {
         request.setParameters(parameters);
         return request;
     }
-}
\ No newline at end of file
+
+    private MockHttpServletRequest getCodeRequest() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+        return request;
+    }
+
+    private RetryPolicy createNonSleepingRetryPolicy(RetryPolicy.Builder builder) {
+        return new RetryPolicy(builder) {
+            @Override
+            boolean sleep(long nanos) {
+                return true;
+            }
+        };
+    }
+
+    private MockHttpServletRequest getHybridRequest() {
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "abc123");
+        params.put("state", "1234");
+        params.put("id_token", "frontIdToken");
+        MockHttpServletRequest request = getRequest(params);
+        request.setCookies(new Cookie("com.auth0.state", "1234"));
+        return request;
+    }
+}
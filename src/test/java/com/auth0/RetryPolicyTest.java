@@ -0,0 +1,164 @@
+package com.auth0;
+
+import com.auth0.exception.APIException;
+import com.auth0.exception.Auth0Exception;
+import com.auth0.exception.RateLimitException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class RetryPolicyTest {
+
+    private long nanos;
+    private long millis;
+    private double random;
+
+    @Before
+    public void setUp() {
+        nanos = 0;
+        millis = 1_000_000;
+        random = 1.0;
+    }
+
+    @Test
+    public void shouldRetryConnectionErrors() {
+        assertThat(RetryPolicy.isRetryable(new Auth0Exception("Failed to execute request", new ConnectException("Connection refused"))), is(true));
+        assertThat(RetryPolicy.isRetryable(new Auth0Exception("Failed to execute request", new UnknownHostException("me.auth0.com"))), is(true));
+    }
+
+    @Test
+    public void shouldRetryRateLimitedAndUnavailableResponses() {
+        assertThat(RetryPolicy.isRetryable(new RateLimitException(10, 0, 100)), is(true));
+        assertThat(RetryPolicy.isRetryable(new APIException("Service unavailable", 503, null)), is(true));
+    }
+
+    @Test
+    public void shouldNotRetryFailuresThatMayHaveConsumedTheCode() {
+        assertThat(RetryPolicy.isRetryable(new Auth0Exception("Failed to execute request", new SocketTimeoutException("timeout"))), is(false));
+        assertThat(RetryPolicy.isRetryable(new Auth0Exception("Failed to execute request", new IOException("unexpected end of stream"))), is(false));
+        assertThat(RetryPolicy.isRetryable(new Auth0Exception("Failed to parse json body")), is(false));
+        assertThat(RetryPolicy.isRetryable(new APIException("Internal error", 500, null)), is(false));
+        assertThat(RetryPolicy.isRetryable(new APIException("Bad gateway", 502, null)), is(false));
+        assertThat(RetryPolicy.isRetryable(new APIException(Collections.<String, Object>singletonMap("error", "invalid_grant"), 403)), is(false));
+    }
+
+    @Test
+    public void shouldBackOffExponentiallyUpToTheMaximum() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder()
+                .withMaxAttempts(10)
+                .withDeadline(1, TimeUnit.MINUTES)
+                .withBackoff(100, 1000, TimeUnit.MILLISECONDS));
+        Auth0Exception e = new APIException("Service unavailable", 503, null);
+
+        assertThat(policy.getRetryDelayNanos(e, 1, 0), is(TimeUnit.MILLISECONDS.toNanos(100)));
+        assertThat(policy.getRetryDelayNanos(e, 2, 0), is(TimeUnit.MILLISECONDS.toNanos(200)));
+        assertThat(policy.getRetryDelayNanos(e, 3, 0), is(TimeUnit.MILLISECONDS.toNanos(400)));
+        assertThat(policy.getRetryDelayNanos(e, 4, 0), is(TimeUnit.MILLISECONDS.toNanos(800)));
+        assertThat(policy.getRetryDelayNanos(e, 5, 0), is(TimeUnit.MILLISECONDS.toNanos(1000)));
+        assertThat(policy.getRetryDelayNanos(e, 9, 0), is(TimeUnit.MILLISECONDS.toNanos(1000)));
+    }
+
+    @Test
+    public void shouldApplyJitterToTheBackoff() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder()
+                .withBackoff(100, 1000, TimeUnit.MILLISECONDS));
+        random = 0.25;
+
+        assertThat(policy.getRetryDelayNanos(new APIException("Service unavailable", 503, null), 2, 0), is(TimeUnit.MILLISECONDS.toNanos(50)));
+    }
+
+    @Test
+    public void shouldWaitUntilTheRateLimitResets() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder()
+                .withBackoff(100, 1000, TimeUnit.MILLISECONDS));
+        RateLimitException e = new RateLimitException(10, 0, TimeUnit.MILLISECONDS.toSeconds(millis) + 2);
+
+        assertThat(policy.getRetryDelayNanos(e, 1, 0), is(TimeUnit.SECONDS.toNanos(2)));
+    }
+
+    @Test
+    public void shouldNotRetryAfterMaxAttempts() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder()
+                .withMaxAttempts(2));
+        Auth0Exception e = new APIException("Service unavailable", 503, null);
+
+        assertThat(policy.getRetryDelayNanos(e, 1, 0) >= 0, is(true));
+        assertThat(policy.getRetryDelayNanos(e, 2, 0), is(-1L));
+    }
+
+    @Test
+    public void shouldNotRetryPastTheDeadline() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder()
+                .withDeadline(1, TimeUnit.SECONDS)
+                .withBackoff(500, 500, TimeUnit.MILLISECONDS));
+        Auth0Exception e = new APIException("Service unavailable", 503, null);
+
+        nanos = TimeUnit.MILLISECONDS.toNanos(400);
+        assertThat(policy.getRetryDelayNanos(e, 1, 0), is(TimeUnit.MILLISECONDS.toNanos(500)));
+        nanos = TimeUnit.MILLISECONDS.toNanos(600);
+        assertThat(policy.getRetryDelayNanos(e, 1, 0), is(-1L));
+    }
+
+    @Test
+    public void shouldNotRetryWhenTheRateLimitResetsPastTheDeadline() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder()
+                .withDeadline(5, TimeUnit.SECONDS));
+        RateLimitException e = new RateLimitException(10, 0, TimeUnit.MILLISECONDS.toSeconds(millis) + 60);
+
+        assertThat(policy.getRetryDelayNanos(e, 1, 0), is(-1L));
+    }
+
+    @Test
+    public void shouldNotRetryNonRetryableErrors() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder());
+
+        assertThat(policy.getRetryDelayNanos(new APIException("Internal error", 500, null), 1, 0), is(-1L));
+    }
+
+    @Test
+    public void shouldCountAttemptsRetriesAndRetryTime() {
+        RetryPolicy policy = createPolicy(RetryPolicy.newBuilder());
+
+        policy.onAttempt(1);
+        policy.onCompleted(-1);
+        policy.onAttempt(1);
+        nanos = TimeUnit.MILLISECONDS.toNanos(100);
+        long firstFailure = nanos;
+        policy.onAttempt(2);
+        policy.onAttempt(3);
+        nanos = TimeUnit.MILLISECONDS.toNanos(350);
+        policy.onCompleted(firstFailure);
+
+        assertThat(policy.getAttemptCount(), is(4L));
+        assertThat(policy.getRetryCount(), is(2L));
+        assertThat(policy.getRetryTime(TimeUnit.MILLISECONDS), is(250L));
+    }
+
+    private RetryPolicy createPolicy(RetryPolicy.Builder builder) {
+        return new RetryPolicy(builder) {
+            @Override
+            long nanoTime() {
+                return nanos;
+            }
+
+            @Override
+            long currentTimeMillis() {
+                return millis;
+            }
+
+            @Override
+            double random() {
+                return random;
+            }
+        };
+    }
+}
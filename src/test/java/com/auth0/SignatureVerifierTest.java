@@ -3,7 +3,11 @@ package com.auth0;
 import com.auth0.jwk.Jwk;
 import com.auth0.jwk.JwkException;
 import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.SigningKeyNotFoundException;
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import org.apache.commons.codec.binary.Base64;
 import org.bouncycastle.util.io.pem.PemReader;
 import org.junit.Rule;
 import org.junit.Test;
@@ -12,19 +16,37 @@ import org.junit.rules.ExpectedException;
 import java.io.FileInputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
 import java.security.PublicKey;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPrivateKey;
+import java.security.interfaces.ECPublicKey;
 import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
 import java.security.spec.EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Scanner;
 
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.isA;
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SignatureVerifierTest {
@@ -151,6 +173,277 @@ public class SignatureVerifierTest {
         verifier.verifySignature(RS_JWT);
     }
 
+    @Test
+    public void failsWhenTokenIsTooLong() {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("ID token is too long. Expected at most 100 characters, but found " + HS_JWT.length() + ".");
+
+        SignatureVerifier verifier = new SymmetricSignatureVerifier("secret");
+        verifier.setMaxTokenLength(100);
+        verifier.verifySignature(HS_JWT);
+    }
+
+    @Test
+    public void failsWhenTokenDoesNotHaveThreeParts() {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("ID token could not be decoded");
+
+        SignatureVerifier verifier = new SymmetricSignatureVerifier("secret");
+        verifier.verifySignature(HS_JWT + ".extra");
+    }
+
+    @Test
+    public void failsWhenHeaderCannotBeDecoded() {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("ID token could not be decoded");
+
+        SignatureVerifier verifier = new SymmetricSignatureVerifier("secret");
+        verifier.verifySignature("bm90LWpzb24" + HS_JWT.substring(HS_JWT.indexOf('.')));
+    }
+
+    @Test
+    public void failsOnAlgorithmBeforeDecodingPayload() {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("Signature algorithm of \"none\" is not supported. Expected the ID token to be signed with \"[HS256, RS256]\".");
+
+        SignatureVerifier verifier = new AlgorithmNameVerifier();
+        verifier.verifySignature(NONE_JWT.substring(0, NONE_JWT.indexOf('.')) + ".not-a-payload.");
+    }
+
+    @Test
+    public void failsOnUnknownKeyIdBeforeDecodingPayload() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("abc123")).thenThrow(SigningKeyNotFoundException.class);
+
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("Invalid token signature");
+        exception.expectCause(isA(SigningKeyNotFoundException.class));
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+        verifier.verifySignature(RS_JWT.substring(0, RS_JWT.indexOf('.')) + ".not-a-payload.signature");
+    }
+
+    @Test
+    public void succeedsWithLightweightDecoding() throws Exception {
+        SignatureVerifier hsVerifier = new SymmetricSignatureVerifier("secret");
+        hsVerifier.setLightweightDecoding(true);
+        SignatureVerifier rsVerifier = new AsymmetricSignatureVerifier(getRSProvider(RS_PUBLIC_KEY));
+        rsVerifier.setLightweightDecoding(true);
+
+        DecodedJWT hsDecoded = hsVerifier.verifySignature(HS_JWT);
+        DecodedJWT rsDecoded = rsVerifier.verifySignature(RS_JWT);
+
+        assertThat(hsDecoded, instanceOf(IdTokenClaims.class));
+        assertThat(hsDecoded.getSubject(), is("auth0|user123"));
+        assertThat(rsDecoded, instanceOf(IdTokenClaims.class));
+        assertThat(rsDecoded.getSubject(), is("auth0|user123"));
+    }
+
+    @Test
+    public void failsWithInvalidSignatureAndLightweightDecoding() {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("Invalid token signature");
+
+        SignatureVerifier verifier = new SymmetricSignatureVerifier("secret");
+        verifier.setLightweightDecoding(true);
+        verifier.verifySignature(HS_JWT_INVALID_SIGNATURE);
+    }
+
+    @Test
+    public void failsWithoutStackTraceWhenStackTracesDisabled() {
+        SignatureVerifier verifier = new AlgorithmNameVerifier();
+        verifier.setErrorStackTraces(false);
+        try {
+            verifier.verifySignature(NONE_JWT);
+            fail("Expected a TokenValidationException");
+        } catch (TokenValidationException e) {
+            assertThat(e.getMessage(), is("Signature algorithm of \"none\" is not supported. Expected the ID token to be signed with \"[HS256, RS256]\"."));
+            assertThat(e.getStackTrace().length, is(0));
+        }
+    }
+
+    @Test
+    public void looksKeyUpOnceForTokensOfSameBatch() throws Exception {
+        JwkProvider jwkProvider = getRSProvider(RS_PUBLIC_KEY);
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+        SignatureVerifier.BatchVerifiers batch = new SignatureVerifier.BatchVerifiers();
+
+        assertThat(verifier.verifySignature(RS_JWT, batch), notNullValue());
+        assertThat(verifier.verifySignature(RS_JWT, batch), notNullValue());
+        try {
+            verifier.verifySignature(RS_JWT_INVALID_SIGNATURE, batch);
+            fail("Expected a TokenValidationException");
+        } catch (TokenValidationException e) {
+            assertThat(e.getMessage(), is("Invalid token signature"));
+        }
+        verify(jwkProvider, times(1)).get("abc123");
+    }
+
+    @Test
+    public void sharesKeyLookupFailureWithTokensOfSameBatch() throws Exception {
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("abc123")).thenThrow(new SigningKeyNotFoundException("No key found", null));
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+        SignatureVerifier.BatchVerifiers batch = new SignatureVerifier.BatchVerifiers();
+
+        TokenValidationException first = null;
+        for (int i = 0; i < 2; i++) {
+            try {
+                verifier.verifySignature(RS_JWT, batch);
+                fail("Expected a TokenValidationException");
+            } catch (TokenValidationException e) {
+                assertThat(e.getMessage(), is("Invalid token signature"));
+                assertThat(e.getCause(), instanceOf(SigningKeyNotFoundException.class));
+                assertThat(e == first, is(false));
+                first = e;
+            }
+        }
+        verify(jwkProvider, times(1)).get("abc123");
+    }
+
+    @Test
+    public void succeedsWithValidSignatureES256Token() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+        String token = JWT.create()
+                .withKeyId("abc123")
+                .withSubject("auth0|user123")
+                .sign(Algorithm.ECDSA256((ECPublicKey) keyPair.getPublic(), (ECPrivateKey) keyPair.getPrivate()));
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        Jwk jwk = mock(Jwk.class);
+        when(jwkProvider.get("abc123")).thenReturn(jwk);
+        when(jwk.getPublicKey()).thenReturn(keyPair.getPublic());
+
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider, "ES256", "RS256");
+        assertThat(verifier.verifySignature(token), notNullValue());
+    }
+
+    @Test
+    public void parsesPublicKeyOnceWhenProviderReturnsSameJwk() throws Exception {
+        JwkProvider jwkProvider = getRSProvider(RS_PUBLIC_KEY);
+        Jwk jwk = jwkProvider.get("abc123");
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+
+        verifier.verifySignature(RS_JWT);
+        verifier.verifySignature(RS_JWT);
+        verify(jwk, times(1)).getPublicKey();
+    }
+
+    @Test
+    public void parsesPublicKeyOnceWhenProviderReturnsNewInstanceOfSameKey() throws Exception {
+        RSAPublicKey publicKey = readPublicKeyFromFile(RS_PUBLIC_KEY);
+        Jwk jwk = spy(rsaJwk("abc123", publicKey));
+        Jwk refreshed = spy(rsaJwk("abc123", publicKey));
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("abc123")).thenReturn(jwk, refreshed);
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+
+        verifier.verifySignature(RS_JWT);
+        verifier.verifySignature(RS_JWT);
+        verify(jwk, times(1)).getPublicKey();
+        verify(refreshed, never()).getPublicKey();
+    }
+
+    @Test
+    public void parsesPublicKeyAgainWhenKeyWithSameIdChanges() throws Exception {
+        Jwk jwk = spy(rsaJwk("abc123", readPublicKeyFromFile(RS_PUBLIC_KEY)));
+        Jwk rotated = spy(rsaJwk("abc123", readPublicKeyFromFile(RS_PUBLIC_KEY_BAD)));
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        when(jwkProvider.get("abc123")).thenReturn(jwk, rotated);
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+
+        verifier.verifySignature(RS_JWT);
+        try {
+            verifier.verifySignature(RS_JWT);
+            fail("Expected a TokenValidationException");
+        } catch (TokenValidationException e) {
+            assertThat(e.getMessage(), is("Invalid token signature"));
+        }
+        verify(rotated, times(1)).getPublicKey();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedVerifier() throws Exception {
+        RSAPublicKey publicKey = readPublicKeyFromFile(RS_PUBLIC_KEY);
+        JwkProvider jwkProvider = mock(JwkProvider.class);
+        Jwk[] jwks = new Jwk[17];
+        for (int i = 0; i < jwks.length; i++) {
+            jwks[i] = spy(rsaJwk("k" + i, publicKey));
+            when(jwkProvider.get("k" + i)).thenReturn(jwks[i]);
+        }
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider);
+        for (int i = 0; i < 16; i++) {
+            verifyWithKeyId(verifier, "k" + i);
+        }
+
+        verifyWithKeyId(verifier, "k0");
+        verifyWithKeyId(verifier, "k16");
+        verifyWithKeyId(verifier, "k0");
+        verifyWithKeyId(verifier, "k1");
+        verify(jwks[0], times(1)).getPublicKey();
+        verify(jwks[1], times(2)).getPublicKey();
+    }
+
+    @Test
+    public void failsWhenAlgorithmES256IsNotExpected() throws Exception {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("Signature algorithm of \"RS256\" is not supported. Expected the ID token to be signed with \"[ES256]\".");
+
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(getRSProvider(RS_PUBLIC_KEY), "ES256");
+        verifier.verifySignature(RS_JWT);
+    }
+
+    @Test
+    public void failsWhenAlgorithmDoesNotMatchJwkAlgorithm() throws Exception {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("Signature algorithm of \"RS256\" does not match the algorithm \"PS256\" of the signing key.");
+
+        JwkProvider jwkProvider = getRSProvider(RS_PUBLIC_KEY);
+        when(jwkProvider.get("abc123").getAlgorithm()).thenReturn("PS256");
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(jwkProvider, "RS256", "PS256");
+        verifier.verifySignature(RS_JWT);
+    }
+
+    @Test
+    public void failsWhenKeyTypeDoesNotMatchAlgorithm() throws Exception {
+        exception.expect(TokenValidationException.class);
+        exception.expectMessage("Signing key of type RSA cannot verify ES256 signatures.");
+
+        String header = "eyJhbGciOiJFUzI1NiIsInR5cCI6IkpXVCIsImtpZCI6ImFiYzEyMyJ9";
+        SignatureVerifier verifier = new AsymmetricSignatureVerifier(getRSProvider(RS_PUBLIC_KEY), "ES256");
+        verifier.verifySignature(header + RS_JWT.substring(RS_JWT.indexOf('.')));
+    }
+
+    @Test
+    public void failsWhenAlgorithmIsNotSupportedByAsymmetricVerifier() {
+        exception.expect(IllegalArgumentException.class);
+        new AsymmetricSignatureVerifier(mock(JwkProvider.class), "HS256");
+    }
+
+    private static Jwk rsaJwk(String keyId, RSAPublicKey publicKey) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("kid", keyId);
+        values.put("kty", "RSA");
+        values.put("n", Base64.encodeBase64URLSafeString(toUnsignedBytes(publicKey.getModulus())));
+        values.put("e", Base64.encodeBase64URLSafeString(toUnsignedBytes(publicKey.getPublicExponent())));
+        return Jwk.fromValues(values);
+    }
+
+    private static byte[] toUnsignedBytes(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+    }
+
+    private static void verifyWithKeyId(SignatureVerifier verifier, String keyId) {
+        // The signature doesn't match the changed header, but the key was looked up and parsed
+        String header = Base64.encodeBase64URLSafeString(("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"" + keyId + "\"}").getBytes(StandardCharsets.UTF_8));
+        try {
+            verifier.verifySignature(header + RS_JWT.substring(RS_JWT.indexOf('.')));
+            fail("Expected a TokenValidationException");
+        } catch (TokenValidationException ignored) {
+        }
+    }
+
     private JwkProvider getRSProvider(String rsaPath) throws Exception {
         JwkProvider jwkProvider = mock(JwkProvider.class);
         Jwk jwk = mock(Jwk.class);
@@ -0,0 +1,39 @@
+package com.auth0;
+
+import org.apache.commons.codec.binary.Base64;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class StorageUtilsTest {
+
+    @Test
+    public void shouldEncodeLikeUrlSafeBase64WithoutPadding() {
+        Random random = new Random(42);
+        for (int length = 0; length <= 40; length++) {
+            byte[] bytes = new byte[length + 3];
+            random.nextBytes(bytes);
+            byte[] expected = new byte[length];
+            System.arraycopy(bytes, 2, expected, 0, length);
+
+            assertThat(StorageUtils.encodeBase64Url(bytes, 2, length), is(Base64.encodeBase64URLSafeString(expected)));
+        }
+    }
+
+    @Test
+    public void shouldGenerateDistinctRandomStrings() {
+        Set<String> values = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String value = StorageUtils.secureRandomString();
+            assertThat(value.length(), is(43));
+            assertThat(value.matches("[A-Za-z0-9_-]+"), is(true));
+            values.add(value);
+        }
+        assertThat(values, hasSize(100));
+    }
+}
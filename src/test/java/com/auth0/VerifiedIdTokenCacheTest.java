@@ -0,0 +1,117 @@
+package com.auth0;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class VerifiedIdTokenCacheTest {
+
+    private static final long NOW = 1587592561000L;
+
+    private long now;
+    private Clock clock;
+    private HistogramMetricsListener listener;
+
+    @Before
+    public void setUp() {
+        now = NOW;
+        clock = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return now;
+            }
+        };
+        listener = new HistogramMetricsListener();
+    }
+
+    @Test
+    public void shouldReturnCachedTokenUntilExpirationMinusClockSkew() {
+        VerifiedIdTokenCache cache = new VerifiedIdTokenCache(10, 60, null, clock, listener);
+        String token = token("user1", NOW + 3600_000L, null);
+        DecodedJWT decoded = JWT.decode(token);
+
+        assertThat(cache.get(token), is(nullValue()));
+        cache.put(token, decoded);
+        assertThat(cache.get(token), is(sameInstance(decoded)));
+
+        now = NOW + 3600_000L - 60_000L - 1;
+        assertThat(cache.get(token), is(sameInstance(decoded)));
+
+        now = NOW + 3600_000L - 60_000L;
+        assertThat(cache.get(token), is(nullValue()));
+        assertThat(cache.size(), is(0));
+
+        assertThat(listener.getHitCount(MetricsListener.Cache.VERIFIED_ID_TOKEN), is(2L));
+        assertThat(listener.getMissCount(MetricsListener.Cache.VERIFIED_ID_TOKEN), is(2L));
+    }
+
+    @Test
+    public void shouldExpireAtMaxAgeWhenBeforeExpiration() {
+        VerifiedIdTokenCache cache = new VerifiedIdTokenCache(10, 60, 600, clock, null);
+        String token = token("user1", NOW + 3600_000L, new Date(NOW - 120_000L));
+        DecodedJWT decoded = JWT.decode(token);
+        cache.put(token, decoded);
+
+        now = NOW + 600_000L - 120_000L - 60_000L - 1;
+        assertThat(cache.get(token), is(sameInstance(decoded)));
+
+        now += 1;
+        assertThat(cache.get(token), is(nullValue()));
+    }
+
+    @Test
+    public void shouldNotCacheTokenAboutToExpire() {
+        VerifiedIdTokenCache cache = new VerifiedIdTokenCache(10, 60, null, clock, null);
+        String token = token("user1", NOW + 30_000L, null);
+        cache.put(token, JWT.decode(token));
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldNotCacheTokenWithoutAuthTimeWhenMaxAgeIsSet() {
+        VerifiedIdTokenCache cache = new VerifiedIdTokenCache(10, 60, 600, clock, null);
+        String token = token("user1", NOW + 3600_000L, null);
+        cache.put(token, JWT.decode(token));
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedToken() {
+        VerifiedIdTokenCache cache = new VerifiedIdTokenCache(2, 60, null, clock, null);
+        String token1 = token("user1", NOW + 3600_000L, null);
+        String token2 = token("user2", NOW + 3600_000L, null);
+        String token3 = token("user3", NOW + 3600_000L, null);
+        cache.put(token1, JWT.decode(token1));
+        cache.put(token2, JWT.decode(token2));
+        assertThat(cache.get(token1), is(notNullValue()));
+
+        cache.put(token3, JWT.decode(token3));
+
+        assertThat(cache.size(), is(2));
+        assertThat(cache.get(token1), is(notNullValue()));
+        assertThat(cache.get(token2), is(nullValue()));
+        assertThat(cache.get(token3), is(notNullValue()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowOnInvalidMaxSize() {
+        new VerifiedIdTokenCache(0, 60, null, clock, null);
+    }
+
+    private static String token(String subject, long expiresAt, Date authTime) {
+        return JWT.create()
+                .withSubject(subject)
+                .withExpiresAt(new Date(expiresAt))
+                .withClaim("auth_time", authTime)
+                .sign(Algorithm.HMAC256("secret"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.auth0;
+
+import com.auth0.client.auth.AuthAPI;
+import com.auth0.jwk.Jwk;
+import com.auth0.jwk.JwkProvider;
+import com.auth0.jwk.UrlJwkProvider;
+import com.auth0.jwt.exceptions.InvalidClaimException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+public class WarmUpTest {
+
+    private AuthAPI client;
+
+    @Before
+    public void setUp() {
+        client = mock(AuthAPI.class);
+    }
+
+    private IdTokenVerifier.Options options(SignatureVerifier verifier) {
+        return new IdTokenVerifier.Options("https://domain/", "clientId", verifier);
+    }
+
+    private UrlJwkProvider urlProviderWithKey() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        RSAPublicKey publicKey = (RSAPublicKey) generator.generateKeyPair().getPublic();
+        Jwk jwk = mock(Jwk.class);
+        when(jwk.getId()).thenReturn("k1");
+        when(jwk.getAlgorithm()).thenReturn("RS256");
+        when(jwk.getPublicKey()).thenReturn(publicKey);
+        UrlJwkProvider provider = mock(UrlJwkProvider.class);
+        when(provider.getAll()).thenReturn(Collections.singletonList(jwk));
+        return provider;
+    }
+
+    @Test
+    public void shouldVerifySymmetricTokenWithoutFetchingKeys() throws Exception {
+        WarmUpReport report = new WarmUp(client, options(new SymmetricSignatureVerifier("secret"))).run(10_000);
+
+        assertThat(report.getOutcome(WarmUpReport.Step.JWKS), is(WarmUpReport.Outcome.SKIPPED));
+        assertThat(report.getOutcome(WarmUpReport.Step.CONNECTION), is(WarmUpReport.Outcome.SKIPPED));
+        assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.SUCCEEDED));
+        assertThat(report.getException(WarmUpReport.Step.VERIFICATION), is(nullValue()));
+        assertThat(report.isSuccessful(), is(true));
+    }
+
+    @Test
+    public void shouldFetchKeysAndVerifyAsymmetricToken() throws Exception {
+        UrlJwkProvider provider = urlProviderWithKey();
+        JwksCache cache = new JwksCache(provider, JwksCacheConfig.newBuilder().build(), Clock.SYSTEM, null);
+
+        WarmUpReport report = new WarmUp(client, options(new AsymmetricSignatureVerifier(cache))).run(10_000);
+
+        assertThat(report.getOutcome(WarmUpReport.Step.JWKS), is(WarmUpReport.Outcome.SUCCEEDED));
+        assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.SUCCEEDED));
+        assertThat(report.isSuccessful(), is(true));
+        // The key was kept by the cache, so the callbacks don't fetch it again
+        cache.get("k1");
+        verify(provider, times(1)).getAll();
+        verify(provider, never()).get(anyString());
+    }
+
+    @Test
+    public void shouldSkipVerificationWhenKeysCannotBeListed() throws Exception {
+        WarmUpReport report = new WarmUp(client, options(new AsymmetricSignatureVerifier(mock(JwkProvider.class)))).run(10_000);
+
+        assertThat(report.getOutcome(WarmUpReport.Step.JWKS), is(WarmUpReport.Outcome.SKIPPED));
+        assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.SKIPPED));
+        assertThat(report.isSuccessful(), is(true));
+    }
+
+    @Test
+    public void shouldFailJwksWhenNoKeyMatchesAlgorithms() throws Exception {
+        WarmUpReport report = new WarmUp(client, options(new AsymmetricSignatureVerifier(urlProviderWithKey(), "ES256"))).run(10_000);
+
+        assertThat(report.getOutcome(WarmUpReport.Step.JWKS), is(WarmUpReport.Outcome.FAILED));
+        assertThat(report.getException(WarmUpReport.Step.JWKS).getMessage(), is("None of the signing keys can verify signatures made with [ES256]."));
+        assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.SKIPPED));
+        assertThat(report.isSuccessful(), is(false));
+    }
+
+    @Test
+    public void shouldReportClaimValidatorRejectingTheToken() throws Exception {
+        IdTokenVerifier.Options options = options(new SymmetricSignatureVerifier("secret"));
+        options.setClaimValidators(Collections.<ClaimValidator>singletonList(new ClaimValidator() {
+            @Override
+            public void validate(DecodedJWT idToken) throws InvalidClaimException {
+                throw new InvalidClaimException("Missing org_id claim");
+            }
+        }));
+
+        WarmUpReport report = new WarmUp(client, options).run(10_000);
+
+        assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.FAILED));
+        assertThat(report.getException(WarmUpReport.Step.VERIFICATION), instanceOf(TokenValidationException.class));
+    }
+
+    @Test
+    public void shouldReportUnfinishedStepsAsTimedOut() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        UrlJwkProvider provider = mock(UrlJwkProvider.class);
+        when(provider.getAll()).thenAnswer(new Answer<List<Jwk>>() {
+            @Override
+            public List<Jwk> answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return Collections.emptyList();
+            }
+        });
+
+        try {
+            WarmUpReport report = new WarmUp(client, options(new AsymmetricSignatureVerifier(provider))).run(100);
+
+            assertThat(report.getOutcome(WarmUpReport.Step.JWKS), is(WarmUpReport.Outcome.TIMED_OUT));
+            assertThat(report.getOutcome(WarmUpReport.Step.CONNECTION), is(WarmUpReport.Outcome.TIMED_OUT));
+            assertThat(report.getOutcome(WarmUpReport.Step.VERIFICATION), is(WarmUpReport.Outcome.TIMED_OUT));
+            assertThat(report.getDuration(WarmUpReport.Step.JWKS, TimeUnit.MILLISECONDS), is(greaterThanOrEqualTo(100L)));
+            assertThat(report.isSuccessful(), is(false));
+        } finally {
+            release.countDown();
+        }
+    }
+}